@@ -26,6 +26,7 @@ import java.util.Map;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisMetricsListener;
 
 /**
  * To use SonarLint in connected mode please provide a server id that will identify the storage.
@@ -41,12 +42,14 @@ public abstract class AbstractGlobalConfiguration {
   private final Path sonarLintUserHome;
   private final Path workDir;
   private final Map<String, String> extraProperties;
+  private final AnalysisMetricsListener analysisMetricsListener;
 
   public AbstractGlobalConfiguration(AbstractBuilder<?> builder) {
     this.sonarLintUserHome = builder.sonarlintUserHome != null ? builder.sonarlintUserHome : SonarLintPathManager.home();
     this.workDir = builder.workDir != null ? builder.workDir : this.sonarLintUserHome.resolve(DEFAULT_WORK_DIR);
     this.logOutput = builder.logOutput;
     this.extraProperties = new LinkedHashMap<>(builder.extraProperties);
+    this.analysisMetricsListener = builder.analysisMetricsListener;
   }
 
   public Map<String, String> extraProperties() {
@@ -66,11 +69,17 @@ public abstract class AbstractGlobalConfiguration {
     return logOutput;
   }
 
+  @CheckForNull
+  public AnalysisMetricsListener getAnalysisMetricsListener() {
+    return analysisMetricsListener;
+  }
+
   public static class AbstractBuilder<G extends AbstractBuilder> {
     private LogOutput logOutput;
     private Path sonarlintUserHome;
     private Path workDir;
     private Map<String, String> extraProperties = Collections.emptyMap();
+    private AnalysisMetricsListener analysisMetricsListener;
 
     public G setLogOutput(@Nullable LogOutput logOutput) {
       this.logOutput = logOutput;
@@ -101,6 +110,14 @@ public abstract class AbstractGlobalConfiguration {
       return (G) this;
     }
 
+    /**
+     * Listener notified with the metrics of each analysis
+     */
+    public G setAnalysisMetricsListener(@Nullable AnalysisMetricsListener analysisMetricsListener) {
+      this.analysisMetricsListener = analysisMetricsListener;
+      return (G) this;
+    }
+
   }
 
 }
@@ -0,0 +1,76 @@
+/*
+ * SonarLint Core - Client API
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.client.api.common.analysis;
+
+import java.util.Map;
+
+/**
+ * Where the time of an analysis was spent. Durations are in milliseconds.
+ * Phases can overlap: file metadata is usually computed lazily while sensors are executed, and issue filtering and
+ * {@link IssueListener} callbacks happen while the sensor reporting the issue is executed.
+ *
+ * @since 4.0
+ */
+public interface AnalysisMetrics {
+
+  /**
+   * Time spent indexing input files, including InputFileFilter extensions.
+   */
+  long fileIndexingTime();
+
+  /**
+   * Time spent reading files to compute their metadata (lines, hash).
+   */
+  long fileMetadataTime();
+
+  /**
+   * Time spent applying issue filters and exclusions to reported issues.
+   */
+  long issueFilteringTime();
+
+  /**
+   * Time spent in {@link IssueListener#handle(Issue)}.
+   */
+  long issueListenerTime();
+
+  /**
+   * Metrics of each executed sensor, by sensor name, in execution order.
+   */
+  Map<String, SensorMetrics> sensorMetrics();
+
+  interface SensorMetrics {
+
+    /**
+     * Elapsed time, in milliseconds.
+     */
+    long wallTime();
+
+    /**
+     * CPU time of the analysis thread, in milliseconds. -1 if not supported by the JVM.
+     * Work done by the sensor in other threads is not accounted.
+     */
+    long cpuTime();
+
+    /**
+     * Bytes allocated by the analysis thread. -1 if not supported by the JVM.
+     */
+    long allocatedBytes();
+  }
+}
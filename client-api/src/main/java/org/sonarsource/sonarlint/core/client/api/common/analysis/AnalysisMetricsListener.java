@@ -0,0 +1,31 @@
+/*
+ * SonarLint Core - Client API
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.client.api.common.analysis;
+
+/**
+ * Receives the {@link AnalysisMetrics} of every analysis run by an engine, for example to export them to a monitoring system.
+ * Called on the analysis thread, after the analysis completed successfully.
+ *
+ * @since 4.0
+ */
+@FunctionalInterface
+public interface AnalysisMetricsListener {
+  void analysisCompleted(AnalysisMetrics metrics);
+}
@@ -42,4 +42,13 @@ public interface AnalysisResults {
    */
   Map<ClientInputFile, String> languagePerFile();
 
+  /**
+   * Time spent in the different phases and sensors of the analysis. Implementations that don't measure it return metrics
+   * with no time spent and no sensor.
+   * @since 4.0
+   */
+  default AnalysisMetrics metrics() {
+    return EmptyAnalysisMetrics.INSTANCE;
+  }
+
 }
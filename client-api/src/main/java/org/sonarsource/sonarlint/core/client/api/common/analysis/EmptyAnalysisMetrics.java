@@ -0,0 +1,59 @@
+/*
+ * SonarLint Core - Client API
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.client.api.common.analysis;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Metrics of analyses that don't measure where time was spent.
+ */
+class EmptyAnalysisMetrics implements AnalysisMetrics {
+  static final AnalysisMetrics INSTANCE = new EmptyAnalysisMetrics();
+
+  private EmptyAnalysisMetrics() {
+    // singleton
+  }
+
+  @Override
+  public long fileIndexingTime() {
+    return 0;
+  }
+
+  @Override
+  public long fileMetadataTime() {
+    return 0;
+  }
+
+  @Override
+  public long issueFilteringTime() {
+    return 0;
+  }
+
+  @Override
+  public long issueListenerTime() {
+    return 0;
+  }
+
+  @Override
+  public Map<String, SensorMetrics> sensorMetrics() {
+    return Collections.emptyMap();
+  }
+}
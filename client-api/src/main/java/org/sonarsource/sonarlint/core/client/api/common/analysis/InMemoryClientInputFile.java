@@ -0,0 +1,76 @@
+/*
+ * SonarLint Core - Client API
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.client.api.common.analysis;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * {@link ClientInputFile} whose content is held in memory, like the buffer of a document opened in an editor.
+ * The content is immutable: it is encoded at most once, whatever the number of calls to {@link #inputStream()}, and the analysis
+ * reads characters directly from {@link #charContents()} instead of decoding the stream. Instances can be reused across analyses
+ * of the same version of a document.
+ *
+ * @since 4.0
+ */
+public abstract class InMemoryClientInputFile implements ClientInputFile {
+
+  private final String content;
+  private final Charset charset;
+  private volatile byte[] encoded;
+
+  protected InMemoryClientInputFile(String content, Charset charset) {
+    this.content = content;
+    this.charset = charset;
+  }
+
+  @Override
+  public Charset getCharset() {
+    return charset;
+  }
+
+  @Override
+  public String contents() {
+    return content;
+  }
+
+  /**
+   * Characters of the content, without copy.
+   */
+  public CharSequence charContents() {
+    return content;
+  }
+
+  @Override
+  public InputStream inputStream() {
+    return new ByteArrayInputStream(encoded());
+  }
+
+  private byte[] encoded() {
+    byte[] bytes = encoded;
+    if (bytes == null) {
+      // a concurrent call may encode twice, which is harmless since the result is the same
+      bytes = content.getBytes(charset);
+      encoded = bytes;
+    }
+    return bytes;
+  }
+}
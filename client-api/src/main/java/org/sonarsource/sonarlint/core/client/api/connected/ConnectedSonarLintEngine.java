@@ -83,6 +83,16 @@ public interface ConnectedSonarLintEngine {
    */
   List<ServerIssue> getServerIssues(ProjectBinding projectBinding, String filePath);
 
+  /**
+   * Gets locally stored server issues for several files, reading the storage in a single pass.
+   *
+   * @param projectBinding information about the project (must have been previously updated with {@link #updateProject(ServerConfiguration, String, ProgressMonitor)})
+   * @param filePaths      relative to the project.
+   * @return Server issues in the local storage for each of the given files, in iteration order. Files without issues are mapped to an empty list.
+   * @since 4.0
+   */
+  Map<String, List<ServerIssue>> getServerIssuesForFiles(ProjectBinding projectBinding, Collection<String> filePaths);
+
   /**
    * Get information about current global storage state
    *
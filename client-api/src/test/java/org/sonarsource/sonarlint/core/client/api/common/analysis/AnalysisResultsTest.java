@@ -0,0 +1,57 @@
+/*
+ * SonarLint Core - Client API
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.client.api.common.analysis;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AnalysisResultsTest {
+
+  @Test
+  public void no_metrics_by_default() {
+    AnalysisResults results = new AnalysisResults() {
+      @Override
+      public int indexedFileCount() {
+        return 0;
+      }
+
+      @Override
+      public Collection<ClientInputFile> failedAnalysisFiles() {
+        return Collections.emptyList();
+      }
+
+      @Override
+      public Map<ClientInputFile, String> languagePerFile() {
+        return Collections.emptyMap();
+      }
+    };
+
+    AnalysisMetrics metrics = results.metrics();
+    assertThat(metrics.fileIndexingTime()).isZero();
+    assertThat(metrics.fileMetadataTime()).isZero();
+    assertThat(metrics.issueFilteringTime()).isZero();
+    assertThat(metrics.issueListenerTime()).isZero();
+    assertThat(metrics.sensorMetrics()).isEmpty();
+  }
+}
@@ -56,6 +56,7 @@ import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
 import org.sonarsource.sonarlint.core.container.connected.ConnectedContainer;
 import org.sonarsource.sonarlint.core.container.storage.StorageContainer;
 import org.sonarsource.sonarlint.core.container.storage.StorageContainerHandler;
+import org.sonarsource.sonarlint.core.container.storage.StorageReader;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -226,6 +227,11 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
     return withReadLock(() -> getHandler().getServerIssues(projectBinding, filePath));
   }
 
+  @Override
+  public Map<String, List<ServerIssue>> getServerIssuesForFiles(ProjectBinding projectBinding, Collection<String> filePaths) {
+    return withReadLock(() -> getHandler().getServerIssuesForFiles(projectBinding, filePaths));
+  }
+
   @Override
   public <G> List<G> getExcludedFiles(ProjectBinding projectBinding, Collection<G> files, Function<G, String> filePathExtractor, Predicate<G> testFilePredicate) {
     return withReadLock(() -> getHandler().getExcludedFiles(projectBinding, files, filePathExtractor, testFilePredicate));
@@ -272,6 +278,8 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
       } catch (Exception e) {
         // Ignore
       }
+      // the project storage was replaced while the storage container was running
+      storageContainer.getComponentByType(StorageReader.class).invalidate();
       changeState(getHandler().getGlobalStorageStatus() != null ? State.UPDATED : State.NEVER_UPDATED);
       rwl.writeLock().unlock();
     }
@@ -20,7 +20,15 @@
 package org.sonarsource.sonarlint.core.analyzer.sensor;
 
 import com.google.common.base.Strings;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.rule.ActiveRule;
 import org.sonar.api.batch.rule.ActiveRules;
@@ -47,8 +55,7 @@ import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.SonarLintInputFile;
 import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
-
-import static java.util.stream.Collectors.toList;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
 public class DefaultSensorStorage implements SensorStorage {
 
@@ -57,13 +64,24 @@ public class DefaultSensorStorage implements SensorStorage {
   private final IssueFilters filters;
   private final IssueListener issueListener;
   private final DefaultAnalysisResult analysisResult;
+  private final ProgressWrapper progress;
+  private final Map<RuleKey, ResolvedRule> resolvedRules = new ConcurrentHashMap<>();
+  private final Queue<PendingIssue> pendingIssues = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean dispatching = new AtomicBoolean();
+  private final Map<Thread, RuntimeException> listenerFailuresPerReporter = new ConcurrentHashMap<>();
 
-  public DefaultSensorStorage(ActiveRules activeRules, Rules rules, IssueFilters filters, IssueListener issueListener, DefaultAnalysisResult analysisResult) {
+  public DefaultSensorStorage(ActiveRules activeRules, Rules rules, IssueFilters filters, IssueListener issueListener, DefaultAnalysisResult analysisResult,
+    ProgressWrapper progress) {
     this.activeRules = activeRules;
     this.rules = rules;
     this.filters = filters;
     this.issueListener = issueListener;
     this.analysisResult = analysisResult;
+    this.progress = progress;
+  }
+
+  public DefaultSensorStorage(ActiveRules activeRules, Rules rules, IssueFilters filters, IssueListener issueListener, DefaultAnalysisResult analysisResult) {
+    this(activeRules, rules, filters, issueListener, analysisResult, new ProgressWrapper(null));
   }
 
   @Override
@@ -73,48 +91,108 @@ public class DefaultSensorStorage implements SensorStorage {
 
   @Override
   public void store(Issue issue) {
-    InputComponent inputComponent = issue.primaryLocation().inputComponent();
-
-    DefaultRule rule = validateRule(issue);
-    ActiveRule activeRule = activeRules.find(issue.ruleKey());
-    if (activeRule == null) {
-      // rule does not exist or is not enabled -> ignore the issue
+    RuleKey ruleKey = issue.ruleKey();
+    ResolvedRule resolved = resolvedRules.computeIfAbsent(ruleKey, k -> new ResolvedRule(rules.find(k), activeRules.find(k)));
+    if (resolved.rule == null) {
+      throw MessageException.of(String.format("The rule '%s' does not exist.", ruleKey));
+    }
+    if (Strings.isNullOrEmpty(resolved.rule.name()) && Strings.isNullOrEmpty(issue.primaryLocation().message())) {
+      throw MessageException.of(String.format("The rule '%s' has no name and the related issue has no message.", ruleKey));
+    }
+    if (resolved.activeRule == null) {
+      // rule is not enabled -> ignore the issue
       return;
     }
 
-    String primaryMessage = Strings.isNullOrEmpty(issue.primaryLocation().message()) ? rule.name() : issue.primaryLocation().message();
+    InputComponent inputComponent = issue.primaryLocation().inputComponent();
+    String primaryMessage = Strings.isNullOrEmpty(issue.primaryLocation().message()) ? resolved.rule.name() : issue.primaryLocation().message();
     org.sonar.api.batch.rule.Severity overriddenSeverity = issue.overriddenSeverity();
-    String severity = overriddenSeverity != null ? overriddenSeverity.name() : activeRule.severity();
-    String type = rule.type();
+    String severity = overriddenSeverity != null ? overriddenSeverity.name() : resolved.activeRule.severity();
 
-    List<org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow> flows = mapFlows(issue.flows());
+    DefaultClientIssue newIssue = new DefaultClientIssue(severity, resolved.rule.type(), resolved.activeRule, resolved.rule, primaryMessage,
+      issue.primaryLocation().textRange(), inputComponent.isFile() ? ((SonarLintInputFile) inputComponent).getClientInputFile() : null, mapFlows(issue.flows()));
+    pendingIssues.add(new PendingIssue(inputComponent, newIssue, Thread.currentThread()));
+    dispatchPendingIssues();
+    RuntimeException listenerFailure = listenerFailuresPerReporter.remove(Thread.currentThread());
+    if (listenerFailure != null) {
+      throw listenerFailure;
+    }
+  }
 
-    DefaultClientIssue newIssue = new DefaultClientIssue(severity, type, activeRule, rules.find(activeRule.ruleKey()), primaryMessage, issue.primaryLocation().textRange(),
-      inputComponent.isFile() ? ((SonarLintInputFile) inputComponent).getClientInputFile() : null, flows);
-    if (filters.accept(inputComponent, newIssue)) {
-      issueListener.handle(newIssue);
+  /**
+   * Dispatch the issues still pending, and throw the listener failures not yet reported to the threads that stored the issues.
+   * Called once all sensors are executed.
+   */
+  public void flush() {
+    dispatchPendingIssues();
+    RuntimeException failure = null;
+    for (RuntimeException e : listenerFailuresPerReporter.values()) {
+      failure = merge(failure, e);
+    }
+    listenerFailuresPerReporter.clear();
+    if (failure != null) {
+      throw failure;
     }
   }
 
-  private static List<org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow> mapFlows(List<Flow> flows) {
-    return flows.stream()
-      .map(f -> new DefaultFlow(f.locations()
-        .stream()
-        .collect(toList())))
-      .filter(f -> !f.locations().isEmpty())
-      .collect(toList());
+  /**
+   * Issues can be reported concurrently by analyzers that parallelize internally. Only one thread at a time applies filters
+   * and notifies the listener, in batches, while the others only enqueue their issues. A thread leaving the dispatch loop checks
+   * the queue again, so that an issue enqueued during the last batch is never left behind.
+   * A listener failure doesn't stop the dispatch of other issues: it is thrown to the thread that stored the issue, on its next call
+   * to {@link #store(Issue)}, or by {@link #flush()}.
+   */
+  private void dispatchPendingIssues() {
+    while (!pendingIssues.isEmpty() && dispatching.compareAndSet(false, true)) {
+      try {
+        PendingIssue pending;
+        while ((pending = pendingIssues.poll()) != null) {
+          try {
+            dispatch(pending);
+          } catch (RuntimeException e) {
+            listenerFailuresPerReporter.merge(pending.reporter, e, DefaultSensorStorage::merge);
+          }
+        }
+      } finally {
+        dispatching.set(false);
+      }
+    }
   }
 
-  private DefaultRule validateRule(Issue issue) {
-    RuleKey ruleKey = issue.ruleKey();
-    Rule rule = rules.find(ruleKey);
-    if (rule == null) {
-      throw MessageException.of(String.format("The rule '%s' does not exist.", ruleKey));
+  private static RuntimeException merge(@Nullable RuntimeException first, RuntimeException next) {
+    if (first == null) {
+      return next;
     }
-    if (Strings.isNullOrEmpty(rule.name()) && Strings.isNullOrEmpty(issue.primaryLocation().message())) {
-      throw MessageException.of(String.format("The rule '%s' has no name and the related issue has no message.", ruleKey));
+    first.addSuppressed(next);
+    return first;
+  }
+
+  private void dispatch(PendingIssue pending) {
+    if (progress.isCanceled()) {
+      // the analysis is cancelled, sensors may still report issues until they notice it
+      return;
+    }
+    long start = System.nanoTime();
+    boolean accepted = filters.accept(pending.inputComponent, pending.issue);
+    long filtered = System.nanoTime();
+    analysisResult.metrics().addIssueFilteringTime(filtered - start);
+    if (accepted) {
+      issueListener.handle(pending.issue);
+      analysisResult.metrics().addIssueListenerTime(System.nanoTime() - filtered);
+    }
+  }
+
+  private static List<org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow> mapFlows(List<Flow> flows) {
+    if (flows.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow> result = new ArrayList<>(flows.size());
+    for (Flow flow : flows) {
+      if (!flow.locations().isEmpty()) {
+        result.add(new DefaultFlow(flow.locations()));
+      }
     }
-    return (DefaultRule) rule;
+    return result;
   }
 
   @Override
@@ -158,4 +236,27 @@ public class DefaultSensorStorage implements SensorStorage {
     // NO-OP
   }
 
+  private static class ResolvedRule {
+    @Nullable
+    private final DefaultRule rule;
+    @Nullable
+    private final ActiveRule activeRule;
+
+    ResolvedRule(@Nullable Rule rule, @Nullable ActiveRule activeRule) {
+      this.rule = (DefaultRule) rule;
+      this.activeRule = activeRule;
+    }
+  }
+
+  private static class PendingIssue {
+    private final InputComponent inputComponent;
+    private final DefaultClientIssue issue;
+    private final Thread reporter;
+
+    PendingIssue(InputComponent inputComponent, DefaultClientIssue issue, Thread reporter) {
+      this.inputComponent = inputComponent;
+      this.issue = issue;
+      this.reporter = reporter;
+    }
+  }
 }
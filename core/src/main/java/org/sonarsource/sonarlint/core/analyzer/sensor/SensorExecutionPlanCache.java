@@ -0,0 +1,81 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.analyzer.sensor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.sonar.api.batch.sensor.Sensor;
+import org.sonar.api.batch.sensor.internal.DefaultSensorDescriptor;
+
+/**
+ * Sensors are instantiated again for each analysis, but the set of sensor classes is fixed for the lifetime of
+ * a global extension container. Keep the execution order and the sensor descriptors, so that annotations are
+ * evaluated and {@link Sensor#describe} is called only once per set of sensors.
+ */
+public class SensorExecutionPlanCache {
+
+  private final Map<List<Class<?>>, Plan> plans = new ConcurrentHashMap<>();
+
+  Plan get(Sensor[] sensors, Function<Sensor[], Plan> planner) {
+    List<Class<?>> key = new ArrayList<>(sensors.length);
+    for (Sensor sensor : sensors) {
+      key.add(sensor.getClass());
+    }
+    return plans.computeIfAbsent(key, k -> planner.apply(sensors));
+  }
+
+  int size() {
+    return plans.size();
+  }
+
+  /**
+   * Sensors to execute, as indexes in the array of sensors the plan was computed from, with their descriptors and display names.
+   */
+  static class Plan {
+    private final int[] order;
+    private final DefaultSensorDescriptor[] descriptors;
+    private final String[] names;
+
+    Plan(int[] order, DefaultSensorDescriptor[] descriptors, String[] names) {
+      this.order = order;
+      this.descriptors = descriptors;
+      this.names = names;
+    }
+
+    int size() {
+      return order.length;
+    }
+
+    int sensorIndex(int step) {
+      return order[step];
+    }
+
+    DefaultSensorDescriptor descriptor(int step) {
+      return descriptors[step];
+    }
+
+    String name(int step) {
+      return names[step];
+    }
+  }
+}
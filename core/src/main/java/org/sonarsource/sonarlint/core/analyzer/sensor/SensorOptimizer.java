@@ -19,28 +19,27 @@
  */
 package org.sonarsource.sonarlint.core.analyzer.sensor;
 
-import org.sonar.api.batch.fs.FilePredicate;
-import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.rule.ActiveRules;
 import org.sonar.api.batch.sensor.internal.DefaultSensorDescriptor;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.api.sonarlint.SonarLintSide;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.InputPathCache;
 
 @SonarLintSide
 public class SensorOptimizer {
 
   private static final Logger LOG = Loggers.get(SensorOptimizer.class);
 
-  private final FileSystem fs;
   private final ActiveRules activeRules;
   private final Configuration config;
+  private final InputPathCache inputPathCache;
 
-  public SensorOptimizer(FileSystem fs, ActiveRules activeRules, Configuration config) {
-    this.fs = fs;
+  public SensorOptimizer(ActiveRules activeRules, Configuration config, InputPathCache inputPathCache) {
     this.activeRules = activeRules;
     this.config = config;
+    this.inputPathCache = inputPathCache;
   }
 
   /**
@@ -83,10 +82,7 @@ public class SensorOptimizer {
 
   private boolean fsCondition(DefaultSensorDescriptor descriptor) {
     if (!descriptor.languages().isEmpty() || descriptor.type() != null) {
-      FilePredicate langPredicate = descriptor.languages().isEmpty() ? fs.predicates().all() : fs.predicates().hasLanguages(descriptor.languages());
-
-      FilePredicate typePredicate = descriptor.type() == null ? fs.predicates().all() : fs.predicates().hasType(descriptor.type());
-      return fs.hasFiles(fs.predicates().and(langPredicate, typePredicate));
+      return inputPathCache.hasFiles(descriptor.languages(), descriptor.type());
     }
     return true;
   }
@@ -23,20 +23,25 @@ import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.sonar.api.batch.DependedUpon;
 import org.sonar.api.batch.DependsUpon;
 import org.sonar.api.batch.Phase;
 import org.sonar.api.batch.sensor.Sensor;
-import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.internal.DefaultSensorDescriptor;
 import org.sonar.api.utils.AnnotationUtils;
 import org.sonar.api.utils.dag.DirectAcyclicGraph;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisMetrics;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 import org.sonarsource.sonarlint.core.util.StringUtils;
+import org.sonarsource.sonarlint.core.util.ThreadUsage;
 
 import static java.util.Arrays.asList;
 
@@ -51,34 +56,73 @@ public class SensorsExecutor {
   private final ProgressWrapper progress;
   private final Sensor[] sensors;
   private final DefaultSensorContext context;
+  private final SensorExecutionPlanCache planCache;
+  private final DefaultAnalysisMetrics metrics;
 
-  public SensorsExecutor(DefaultSensorContext context, SensorOptimizer sensorOptimizer, ProgressWrapper progress) {
-    this(context, sensorOptimizer, progress, new Sensor[0]);
+  public SensorsExecutor(DefaultSensorContext context, SensorOptimizer sensorOptimizer, ProgressWrapper progress, SensorExecutionPlanCache planCache,
+    DefaultAnalysisResult analysisResult) {
+    this(context, sensorOptimizer, progress, planCache, analysisResult, new Sensor[0]);
   }
 
-  public SensorsExecutor(DefaultSensorContext context, SensorOptimizer sensorOptimizer, ProgressWrapper progress, Sensor[] sensors) {
+  public SensorsExecutor(DefaultSensorContext context, SensorOptimizer sensorOptimizer, ProgressWrapper progress, SensorExecutionPlanCache planCache,
+    DefaultAnalysisResult analysisResult, Sensor[] sensors) {
     this.context = context;
     this.sensors = sensors;
     this.sensorOptimizer = sensorOptimizer;
     this.progress = progress;
+    this.planCache = planCache;
+    this.metrics = analysisResult.metrics();
   }
 
   public void execute() {
-    for (Sensor sensor : sort(asList(sensors))) {
+    SensorExecutionPlanCache.Plan plan = planCache.get(sensors, SensorsExecutor::plan);
+    for (int step = 0; step < plan.size(); step++) {
       progress.checkCancel();
-      DefaultSensorDescriptor descriptor = new DefaultSensorDescriptor();
-      sensor.describe(descriptor);
-      if (sensorOptimizer.shouldExecute(descriptor)) {
-        executeSensor(context, sensor, descriptor);
+      Sensor sensor = sensors[plan.sensorIndex(step)];
+      if (sensorOptimizer.shouldExecute(plan.descriptor(step))) {
+        executeSensor(sensor, plan.name(step));
       }
     }
   }
 
-  private static void executeSensor(SensorContext context, Sensor sensor, DefaultSensorDescriptor descriptor) {
-    if (LOG.isDebugEnabled()) {
-      LOG.debug("Execute Sensor: {}", descriptor.name() != null ? descriptor.name() : StringUtils.describe(sensor));
+  private void executeSensor(Sensor sensor, String name) {
+    LOG.debug("Execute Sensor: {}", name);
+    long cpuStart = ThreadUsage.currentThreadCpuNanos();
+    long allocatedStart = ThreadUsage.currentThreadAllocatedBytes();
+    long start = System.nanoTime();
+    try {
+      sensor.execute(context);
+    } finally {
+      long wallNanos = System.nanoTime() - start;
+      metrics.addSensorExecution(name, wallNanos, delta(cpuStart, ThreadUsage.currentThreadCpuNanos()),
+        delta(allocatedStart, ThreadUsage.currentThreadAllocatedBytes()));
+      LOG.debug("Sensor {} done: {} ms", name, TimeUnit.NANOSECONDS.toMillis(wallNanos));
+    }
+  }
+
+  private static long delta(long start, long end) {
+    return start < 0 || end < 0 ? -1 : (end - start);
+  }
+
+  private static SensorExecutionPlanCache.Plan plan(Sensor[] sensors) {
+    Map<Sensor, Integer> indexes = new IdentityHashMap<>();
+    for (int i = 0; i < sensors.length; i++) {
+      indexes.put(sensors[i], i);
+    }
+    Collection<Sensor> sorted = sort(asList(sensors));
+    int[] order = new int[sorted.size()];
+    DefaultSensorDescriptor[] descriptors = new DefaultSensorDescriptor[sorted.size()];
+    String[] names = new String[sorted.size()];
+    int step = 0;
+    for (Sensor sensor : sorted) {
+      DefaultSensorDescriptor descriptor = new DefaultSensorDescriptor();
+      sensor.describe(descriptor);
+      order[step] = indexes.get(sensor);
+      descriptors[step] = descriptor;
+      names[step] = descriptor.name() != null ? descriptor.name() : StringUtils.describe(sensor);
+      step++;
     }
-    sensor.execute(context);
+    return new SensorExecutionPlanCache.Plan(order, descriptors, names);
   }
 
   private static <T> Collection<T> sort(Collection<T> extensions) {
@@ -33,6 +33,8 @@ import org.sonarsource.sonarlint.core.analyzer.sensor.DefaultSensorContext;
 import org.sonarsource.sonarlint.core.analyzer.sensor.DefaultSensorStorage;
 import org.sonarsource.sonarlint.core.analyzer.sensor.SensorOptimizer;
 import org.sonarsource.sonarlint.core.analyzer.sensor.SensorsExecutor;
+import org.sonarsource.sonarlint.core.client.api.common.AbstractGlobalConfiguration;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisMetricsListener;
 import org.sonarsource.sonarlint.core.container.ComponentContainer;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.DefaultLanguagesRepository;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileIndexer;
@@ -47,6 +49,7 @@ import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.IgnoreIssu
 import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern.IssueInclusionPatternInitializer;
 import org.sonarsource.sonarlint.core.container.global.ExtensionInstaller;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
 public class AnalysisContainer extends ComponentContainer {
@@ -129,6 +132,20 @@ public class AnalysisContainer extends ComponentContainer {
     // Don't initialize Sensors before the FS is indexed
     getComponentByType(SonarLintFileSystem.class).index();
     getComponentByType(SensorsExecutor.class).execute();
+    getComponentByType(DefaultSensorStorage.class).flush();
+    notifyMetricsListener();
+  }
+
+  private void notifyMetricsListener() {
+    AbstractGlobalConfiguration globalConfig = getComponentByType(AbstractGlobalConfiguration.class);
+    AnalysisMetricsListener listener = globalConfig != null ? globalConfig.getAnalysisMetricsListener() : null;
+    if (listener != null) {
+      try {
+        listener.analysisCompleted(getComponentByType(DefaultAnalysisResult.class).metrics());
+      } catch (RuntimeException e) {
+        LOG.warn("Unable to report analysis metrics", e);
+      }
+    }
   }
 
 }
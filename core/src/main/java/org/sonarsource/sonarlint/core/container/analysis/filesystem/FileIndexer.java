@@ -19,9 +19,6 @@
  */
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
-import java.nio.file.Path;
-import java.util.HashSet;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.InputFileFilter;
@@ -33,6 +30,7 @@ import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
 import org.sonarsource.sonarlint.core.util.ProgressReport;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
 /**
  * Index input files into {@link InputPathCache}.
@@ -43,24 +41,28 @@ public class FileIndexer {
   private static final Logger LOG = Loggers.get(FileIndexer.class);
 
   private final InputFileBuilder inputFileBuilder;
+  private final InputPathCache inputPathCache;
   private final StandaloneAnalysisConfiguration analysisConfiguration;
   private final DefaultAnalysisResult analysisResult;
   private final InputFileFilter[] filters;
+  private final ProgressWrapper progress;
 
   private ProgressReport progressReport;
 
-  public FileIndexer(InputFileBuilder inputFileBuilder, StandaloneAnalysisConfiguration analysisConfiguration,
-    DefaultAnalysisResult analysisResult,
+  public FileIndexer(InputFileBuilder inputFileBuilder, InputPathCache inputPathCache, StandaloneAnalysisConfiguration analysisConfiguration,
+    DefaultAnalysisResult analysisResult, ProgressWrapper progress,
     InputFileFilter[] filters) {
     this.inputFileBuilder = inputFileBuilder;
+    this.inputPathCache = inputPathCache;
     this.analysisConfiguration = analysisConfiguration;
     this.analysisResult = analysisResult;
+    this.progress = progress;
     this.filters = filters;
   }
 
-  public FileIndexer(InputFileBuilder inputFileBuilder, StandaloneAnalysisConfiguration analysisConfiguration,
-    DefaultAnalysisResult analysisResult) {
-    this(inputFileBuilder, analysisConfiguration, analysisResult, new InputFileFilter[0]);
+  public FileIndexer(InputFileBuilder inputFileBuilder, InputPathCache inputPathCache, StandaloneAnalysisConfiguration analysisConfiguration,
+    DefaultAnalysisResult analysisResult, ProgressWrapper progress) {
+    this(inputFileBuilder, inputPathCache, analysisConfiguration, analysisResult, progress, new InputFileFilter[0]);
   }
 
   void index(SonarLintFileSystem fileSystem) {
@@ -69,18 +71,21 @@ public class FileIndexer {
 
     Progress progress = new Progress();
 
+    long start = System.nanoTime();
     try {
       indexFiles(fileSystem, progress, analysisConfiguration.inputFiles());
     } catch (Exception e) {
       progressReport.stop(null);
       throw e;
     }
+    analysisResult.metrics().addFileIndexingTime(System.nanoTime() - start);
     progressReport.stop(progress.count() + " files indexed");
     analysisResult.setIndexedFileCount(progress.count());
   }
 
   private void indexFiles(SonarLintFileSystem fileSystem, Progress progress, Iterable<ClientInputFile> inputFiles) {
     for (ClientInputFile file : inputFiles) {
+      this.progress.checkCancel();
       indexFile(fileSystem, progress, file);
     }
   }
@@ -94,6 +99,9 @@ public class FileIndexer {
   }
 
   private void indexFile(final SonarLintFileSystem fs, final Progress status, final SonarLintInputFile inputFile) {
+    if (inputPathCache.inputFile(inputFile.path()) != null) {
+      throw MessageException.of("File " + inputFile + " can't be indexed twice.");
+    }
     fs.add(inputFile);
     status.markAsIndexed(inputFile);
     SonarLintInputDir inputDir = new SonarLintInputDir(inputFile.path().getParent());
@@ -112,19 +120,16 @@ public class FileIndexer {
   }
 
   private class Progress {
-    private final Set<Path> indexed = new HashSet<>();
+    private int count;
 
     void markAsIndexed(SonarLintInputFile inputFile) {
-      if (indexed.contains(inputFile.path())) {
-        throw MessageException.of("File " + inputFile + " can't be indexed twice.");
-      }
-      indexed.add(inputFile.path());
-      int size = indexed.size();
+      count++;
+      int size = count;
       progressReport.message(() -> size + " files indexed...  (last one was " + inputFile.absolutePath() + ")");
     }
 
     int count() {
-      return indexed.size();
+      return count;
     }
   }
 
@@ -34,10 +34,12 @@ import java.util.ArrayList;
 import java.util.List;
 import org.apache.commons.io.ByteOrderMark;
 import org.apache.commons.io.input.BOMInputStream;
+import org.apache.commons.io.input.CharSequenceReader;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.api.sonarlint.SonarLintSide;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
 /**
  * Computes hash of files. Ends of Lines are ignored, so files with
@@ -50,6 +52,18 @@ public class FileMetadata {
 
   private static final char LINE_FEED = '\n';
   private static final char CARRIAGE_RETURN = '\r';
+  // number of characters read between two checks of cancellation, must be a power of 2
+  private static final int CANCEL_CHECK_INTERVAL = 1 << 16;
+
+  private final ProgressWrapper progress;
+
+  public FileMetadata(ProgressWrapper progress) {
+    this.progress = progress;
+  }
+
+  public FileMetadata() {
+    this(new ProgressWrapper(null));
+  }
 
   public abstract static class CharHandler {
 
@@ -146,10 +160,22 @@ public class FileMetadata {
    * Maximum performance is needed.
    */
   public Metadata readMetadata(InputStream stream, Charset encoding, String filePath) {
+    return readMetadata(new BufferedReader(new InputStreamReader(stream, encoding)), encoding, filePath);
+  }
+
+  /**
+   * Compute hash of in-memory content ignoring line ends differences, without encoding and decoding it.
+   */
+  public Metadata readMetadata(CharSequence content, Charset encoding, String filePath) {
+    return readMetadata(new CharSequenceReader(content), encoding, filePath);
+  }
+
+  private Metadata readMetadata(Reader reader, Charset encoding, String filePath) {
+    progress.checkCancel();
     LineCounter lineCounter = new LineCounter(filePath, encoding);
     LineOffsetCounter lineOffsetCounter = new LineOffsetCounter();
-    try (Reader reader = new BufferedReader(new InputStreamReader(stream, encoding))) {
-      read(reader, lineCounter, lineOffsetCounter);
+    try (Reader r = reader) {
+      read(r, lineCounter, lineOffsetCounter);
     } catch (IOException e) {
       throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", filePath, encoding), e);
     }
@@ -165,11 +191,15 @@ public class FileMetadata {
     }
   }
 
-  private static void read(Reader reader, CharHandler... handlers) throws IOException {
+  private void read(Reader reader, CharHandler... handlers) throws IOException {
     char c;
     int i = reader.read();
+    int count = 0;
     boolean afterCR = false;
     while (i != -1) {
+      if ((++count & (CANCEL_CHECK_INTERVAL - 1)) == 0) {
+        progress.checkCancel();
+      }
       c = (char) i;
       if (afterCR) {
         for (CharHandler handler : handlers) {
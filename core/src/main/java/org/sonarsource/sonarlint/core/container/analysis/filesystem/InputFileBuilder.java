@@ -26,15 +26,20 @@ import org.sonar.api.batch.fs.InputFile.Type;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.InMemoryClientInputFile;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisMetrics;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
 
 public class InputFileBuilder {
   private static final Logger LOG = Loggers.get(InputFileBuilder.class);
   private final LanguageDetection langDetection;
   private final FileMetadata fileMetadata;
+  private final DefaultAnalysisMetrics metrics;
 
-  public InputFileBuilder(LanguageDetection langDetection, FileMetadata fileMetadata) {
+  public InputFileBuilder(LanguageDetection langDetection, FileMetadata fileMetadata, DefaultAnalysisResult analysisResult) {
     this.langDetection = langDetection;
     this.fileMetadata = fileMetadata;
+    this.metrics = analysisResult.metrics();
   }
 
   LanguageDetection langDetection() {
@@ -45,13 +50,9 @@ public class InputFileBuilder {
     SonarLintInputFile defaultInputFile = new SonarLintInputFile(inputFile, f -> {
       LOG.debug("Initializing metadata of file {}", inputFile.uri());
       Charset charset = inputFile.getCharset();
-      InputStream stream;
-      try {
-        stream = inputFile.inputStream();
-      } catch (IOException e) {
-        throw new IllegalStateException("Failed to open a stream on file: " + inputFile.getPath(), e);
-      }
-      ((SonarLintInputFile) f).init(fileMetadata.readMetadata(stream, charset != null ? charset : Charset.defaultCharset(), inputFile.getPath()));
+      long start = System.nanoTime();
+      ((SonarLintInputFile) f).init(readMetadata(inputFile, charset != null ? charset : Charset.defaultCharset()));
+      metrics.addFileMetadataTime(System.nanoTime() - start);
     });
     defaultInputFile.setType(inputFile.isTest() ? Type.TEST : Type.MAIN);
     if (inputFile.language() != null) {
@@ -64,4 +65,17 @@ public class InputFileBuilder {
     return defaultInputFile;
   }
 
+  private FileMetadata.Metadata readMetadata(ClientInputFile inputFile, Charset charset) {
+    if (inputFile instanceof InMemoryClientInputFile) {
+      return fileMetadata.readMetadata(((InMemoryClientInputFile) inputFile).charContents(), charset, inputFile.getPath());
+    }
+    InputStream stream;
+    try {
+      stream = inputFile.inputStream();
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to open a stream on file: " + inputFile.getPath(), e);
+    }
+    return fileMetadata.readMetadata(stream, charset, inputFile.getPath());
+  }
+
 }
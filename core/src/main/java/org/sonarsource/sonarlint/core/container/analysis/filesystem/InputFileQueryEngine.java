@@ -0,0 +1,134 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.FileExtensionPredicate;
+import org.sonar.api.batch.fs.internal.FilenamePredicate;
+
+/**
+ * Evaluates file predicates against the bitsets of {@link InputPathCache}. Language, type, status, name and extension
+ * predicates are resolved from the index, and boolean combinations of them become bitset operations. Other predicates
+ * are applied file by file, and only on the files not already excluded by indexed predicates.
+ */
+class InputFileQueryEngine {
+
+  private final InputPathCache cache;
+
+  InputFileQueryEngine(InputPathCache cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Ids of the files matching the predicate, as a new bitset.
+   */
+  BitSet evaluate(FilePredicate predicate) {
+    FilePredicate p = unwrap(predicate);
+    if (p == TruePredicate.TRUE) {
+      return cache.allFiles();
+    } else if (p == FalsePredicate.FALSE) {
+      return new BitSet();
+    } else if (p instanceof LanguagePredicate) {
+      return cache.filesOfLanguage(((LanguagePredicate) p).language());
+    } else if (p instanceof TypePredicate) {
+      return cache.filesOfType(((TypePredicate) p).type());
+    } else if (p instanceof StatusPredicate) {
+      InputFile.Status status = ((StatusPredicate) p).status();
+      return status == null ? cache.allFiles() : cache.filesOfStatus(status);
+    } else if (p instanceof FileExtensionPredicate || p instanceof FilenamePredicate) {
+      return ids(((org.sonar.api.batch.fs.internal.OptimizedFilePredicate) p).get(cache));
+    } else if (p instanceof NotPredicate) {
+      BitSet result = cache.allFiles();
+      result.andNot(evaluate(((NotPredicate) p).predicate()));
+      return result;
+    } else if (p instanceof AndPredicate) {
+      return and(((AndPredicate) p).predicates());
+    } else if (p instanceof OrPredicate) {
+      BitSet result = new BitSet();
+      for (FilePredicate operand : ((OrPredicate) p).predicates()) {
+        result.or(evaluate(operand));
+      }
+      return result;
+    }
+    return scan(cache.allFiles(), p);
+  }
+
+  private BitSet and(Iterable<? extends FilePredicate> operands) {
+    BitSet result = cache.allFiles();
+    List<FilePredicate> notIndexed = new ArrayList<>();
+    for (FilePredicate operand : operands) {
+      if (isIndexed(operand)) {
+        result.and(evaluate(operand));
+      } else {
+        notIndexed.add(operand);
+      }
+    }
+    for (FilePredicate operand : notIndexed) {
+      if (result.isEmpty()) {
+        break;
+      }
+      result = scan(result, operand);
+    }
+    return result;
+  }
+
+  private BitSet scan(BitSet candidates, FilePredicate predicate) {
+    for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+      if (!predicate.apply(cache.file(id))) {
+        candidates.clear(id);
+      }
+    }
+    return candidates;
+  }
+
+  private BitSet ids(Iterable<InputFile> files) {
+    BitSet result = new BitSet();
+    for (InputFile file : files) {
+      int id = cache.id(file);
+      if (id >= 0) {
+        result.set(id);
+      }
+    }
+    return result;
+  }
+
+  private static boolean isIndexed(FilePredicate predicate) {
+    FilePredicate p = unwrap(predicate);
+    if (p == TruePredicate.TRUE || p == FalsePredicate.FALSE || p instanceof LanguagePredicate || p instanceof TypePredicate || p instanceof StatusPredicate
+      || p instanceof FileExtensionPredicate || p instanceof FilenamePredicate) {
+      return true;
+    } else if (p instanceof NotPredicate) {
+      return isIndexed(((NotPredicate) p).predicate());
+    } else if (p instanceof AndPredicate) {
+      return ((AndPredicate) p).predicates().stream().allMatch(InputFileQueryEngine::isIndexed);
+    } else if (p instanceof OrPredicate) {
+      return ((OrPredicate) p).predicates().stream().allMatch(InputFileQueryEngine::isIndexed);
+    }
+    return false;
+  }
+
+  private static FilePredicate unwrap(FilePredicate predicate) {
+    return predicate instanceof OptimizedFilePredicateAdapter ? ((OptimizedFilePredicateAdapter) predicate).unoptimizedPredicate() : predicate;
+  }
+}
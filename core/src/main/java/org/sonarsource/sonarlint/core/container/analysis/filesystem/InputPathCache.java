@@ -19,33 +19,50 @@
  */
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
-import com.google.common.collect.LinkedHashMultimap;
-import com.google.common.collect.SetMultimap;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.batch.fs.InputDir;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultFileSystem;
 import org.sonar.api.batch.fs.internal.FileExtensionPredicate;
 import org.sonarsource.api.sonarlint.SonarLintSide;
 
+/**
+ * Files are stored in an array and identified by their index in it. Files sharing the same name or extension are chained
+ * through int arrays, and files of a given language or type are kept in bitsets, so that the index costs a few bytes per file
+ * on top of the {@link InputFile} itself.
+ */
 @SonarLintSide
 public class InputPathCache extends DefaultFileSystem.Cache {
 
-  private final Set<InputFile> inputFileCache = new LinkedHashSet<>();
+  private static final int NONE = -1;
+
+  private final List<InputFile> files = new ArrayList<>();
+  private final Map<Path, Integer> fileIdsByPath = new HashMap<>();
   private final Map<Path, InputDir> inputDirCache = new LinkedHashMap<>();
-  private final SetMultimap<String, InputFile> filesByNameCache = LinkedHashMultimap.create();
-  private final SetMultimap<String, InputFile> filesByExtensionCache = LinkedHashMultimap.create();
+  private final Chains byName = new Chains();
+  private final Chains byExtension = new Chains();
+  private final Map<String, BitSet> filesByLanguage = new HashMap<>();
   private final SortedSet<String> languages = new TreeSet<>();
+  private final BitSet testFiles = new BitSet();
+  private final Map<InputFile.Status, BitSet> filesByStatus = new EnumMap<>(InputFile.Status.class);
 
   @Override
   public Iterable<InputFile> inputFiles() {
-    return inputFileCache;
+    return Collections.unmodifiableList(files);
   }
 
   public Iterable<InputDir> allDirs() {
@@ -54,12 +71,23 @@ public class InputPathCache extends DefaultFileSystem.Cache {
 
   @Override
   public void doAdd(InputFile inputFile) {
-    if (inputFile.language() != null) {
-      languages.add(inputFile.language());
+    int id = files.size();
+    files.add(inputFile);
+    fileIdsByPath.put(inputFile.path(), id);
+    byName.add(inputFile.filename(), id);
+    byExtension.add(FileExtensionPredicate.getExtension(inputFile), id);
+    String language = inputFile.language();
+    if (language != null) {
+      languages.add(language);
+      filesByLanguage.computeIfAbsent(language, l -> new BitSet()).set(id);
+    }
+    if (inputFile.type() == InputFile.Type.TEST) {
+      testFiles.set(id);
+    }
+    InputFile.Status status = inputFile.status();
+    if (status != null) {
+      filesByStatus.computeIfAbsent(status, s -> new BitSet()).set(id);
     }
-    inputFileCache.add(inputFile);
-    filesByNameCache.put(inputFile.filename(), inputFile);
-    filesByExtensionCache.put(FileExtensionPredicate.getExtension(inputFile), inputFile);
   }
 
   @Override
@@ -72,6 +100,12 @@ public class InputPathCache extends DefaultFileSystem.Cache {
     return null;
   }
 
+  @CheckForNull
+  public InputFile inputFile(Path path) {
+    Integer id = fileIdsByPath.get(path);
+    return id != null ? files.get(id) : null;
+  }
+
   @Override
   public InputDir inputDir(String relativePath) {
     return null;
@@ -83,12 +117,12 @@ public class InputPathCache extends DefaultFileSystem.Cache {
 
   @Override
   public Iterable<InputFile> getFilesByName(String filename) {
-    return filesByNameCache.get(filename);
+    return byName.files(filename);
   }
 
   @Override
   public Iterable<InputFile> getFilesByExtension(String extension) {
-    return filesByExtensionCache.get(extension);
+    return byExtension.files(extension);
   }
 
   @Override
@@ -96,4 +130,114 @@ public class InputPathCache extends DefaultFileSystem.Cache {
     return languages;
   }
 
+  public int size() {
+    return files.size();
+  }
+
+  InputFile file(int id) {
+    return files.get(id);
+  }
+
+  /**
+   * Id of the given file, or -1 if it was not indexed
+   */
+  int id(InputFile inputFile) {
+    Integer id = fileIdsByPath.get(inputFile.path());
+    return id != null && files.get(id) == inputFile ? id : NONE;
+  }
+
+  List<InputFile> files(BitSet ids) {
+    List<InputFile> result = new ArrayList<>(ids.cardinality());
+    for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+      result.add(files.get(id));
+    }
+    return result;
+  }
+
+  /**
+   * The following methods return new bitsets that can be modified by the caller.
+   */
+  BitSet allFiles() {
+    BitSet all = new BitSet(files.size());
+    all.set(0, files.size());
+    return all;
+  }
+
+  BitSet filesOfLanguage(String language) {
+    BitSet ofLanguage = filesByLanguage.get(language);
+    return ofLanguage != null ? (BitSet) ofLanguage.clone() : new BitSet();
+  }
+
+  BitSet filesOfType(InputFile.Type type) {
+    if (type == InputFile.Type.TEST) {
+      return (BitSet) testFiles.clone();
+    }
+    BitSet main = allFiles();
+    main.andNot(testFiles);
+    return main;
+  }
+
+  BitSet filesOfStatus(InputFile.Status status) {
+    BitSet ofStatus = filesByStatus.get(status);
+    return ofStatus != null ? (BitSet) ofStatus.clone() : new BitSet();
+  }
+
+  /**
+   * Whether at least one file matches one of the given languages (any language if empty) and the given type (any type if null).
+   */
+  public boolean hasFiles(Collection<String> languages, @Nullable InputFile.Type type) {
+    BitSet candidates = languages.isEmpty() ? allFiles() : filesOfLanguages(languages);
+    if (type == InputFile.Type.TEST) {
+      candidates.and(testFiles);
+    } else if (type == InputFile.Type.MAIN) {
+      candidates.andNot(testFiles);
+    }
+    return !candidates.isEmpty();
+  }
+
+  private BitSet filesOfLanguages(Collection<String> languages) {
+    BitSet result = new BitSet();
+    for (String language : languages) {
+      BitSet ofLanguage = filesByLanguage.get(language);
+      if (ofLanguage != null) {
+        result.or(ofLanguage);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Files grouped by key, in insertion order, as singly linked lists of file ids.
+   */
+  private class Chains {
+    private final Map<String, int[]> headAndTail = new HashMap<>();
+    private int[] next = new int[16];
+
+    void add(String key, int id) {
+      if (id >= next.length) {
+        next = Arrays.copyOf(next, Math.max(id + 1, next.length * 2));
+      }
+      next[id] = NONE;
+      int[] chain = headAndTail.get(key);
+      if (chain == null) {
+        headAndTail.put(key, new int[] {id, id});
+      } else {
+        next[chain[1]] = id;
+        chain[1] = id;
+      }
+    }
+
+    List<InputFile> files(String key) {
+      int[] chain = headAndTail.get(key);
+      if (chain == null) {
+        return Collections.emptyList();
+      }
+      List<InputFile> result = new ArrayList<>();
+      for (int id = chain[0]; id != NONE; id = next[id]) {
+        result.add(files.get(id));
+      }
+      return result;
+    }
+  }
+
 }
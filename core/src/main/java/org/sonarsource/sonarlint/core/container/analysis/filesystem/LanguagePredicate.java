@@ -31,6 +31,10 @@ class LanguagePredicate extends AbstractFilePredicate {
     this.language = language;
   }
 
+  String language() {
+    return language;
+  }
+
   @Override
   public boolean apply(InputFile f) {
     return language.equals(f.language());
@@ -33,6 +33,10 @@ class NotPredicate extends AbstractFilePredicate {
     this.predicate = predicate;
   }
 
+  FilePredicate predicate() {
+    return predicate;
+  }
+
   @Override
   public boolean apply(InputFile f) {
     return !predicate.apply(f);
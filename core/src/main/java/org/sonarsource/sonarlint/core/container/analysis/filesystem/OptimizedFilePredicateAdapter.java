@@ -30,6 +30,10 @@ class OptimizedFilePredicateAdapter extends AbstractFilePredicate {
     this.unoptimizedPredicate = unoptimizedPredicate;
   }
 
+  FilePredicate unoptimizedPredicate() {
+    return unoptimizedPredicate;
+  }
+
   @Override
   public boolean apply(InputFile inputFile) {
     return unoptimizedPredicate.apply(inputFile);
@@ -21,7 +21,11 @@ package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
 import java.io.File;
 import java.nio.charset.Charset;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.StreamSupport;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.FilePredicate;
 import org.sonar.api.batch.fs.FilePredicates;
 import org.sonar.api.batch.fs.InputDir;
 import org.sonar.api.batch.fs.InputFile;
@@ -37,12 +41,15 @@ public class SonarLintFileSystem extends DefaultFileSystem {
   private FileIndexer indexer;
   private final DefaultFilePredicates filePredicates;
   private final InputPathCache moduleInputFileCache;
+  private final InputFileQueryEngine queryEngine;
+  private boolean hasDefaultPredicate;
 
   public SonarLintFileSystem(StandaloneAnalysisConfiguration analysisConfiguration, InputPathCache moduleInputFileCache, FileIndexer indexer) {
     super(analysisConfiguration.baseDir(), moduleInputFileCache);
     this.moduleInputFileCache = moduleInputFileCache;
     this.indexer = indexer;
     this.filePredicates = new DefaultFilePredicates();
+    this.queryEngine = new InputFileQueryEngine(moduleInputFileCache);
     setWorkDir(analysisConfiguration.workDir());
   }
 
@@ -55,6 +62,29 @@ public class SonarLintFileSystem extends DefaultFileSystem {
     return moduleInputFileCache.inputDir(dir.toPath());
   }
 
+  @Override
+  public Iterable<InputFile> inputFiles(FilePredicate predicate) {
+    if (hasDefaultPredicate) {
+      return super.inputFiles(predicate);
+    }
+    return moduleInputFileCache.files(queryEngine.evaluate(predicate));
+  }
+
+  @Override
+  public boolean hasFiles(FilePredicate predicate) {
+    if (hasDefaultPredicate) {
+      return super.hasFiles(predicate);
+    }
+    return !queryEngine.evaluate(predicate).isEmpty();
+  }
+
+  @Override
+  public DefaultFileSystem setDefaultPredicate(@Nullable Function<FilePredicate, Predicate<InputFile>> defaultPredicateFactory) {
+    // the default predicate filters every query result, which the index can't take into account
+    this.hasDefaultPredicate = defaultPredicateFactory != null;
+    return super.setDefaultPredicate(defaultPredicateFactory);
+  }
+
   @Override
   public FilePredicates predicates() {
     return filePredicates;
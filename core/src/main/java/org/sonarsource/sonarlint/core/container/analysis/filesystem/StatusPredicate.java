@@ -19,6 +19,7 @@
  */
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.AbstractFilePredicate;
@@ -31,6 +32,11 @@ public class StatusPredicate extends AbstractFilePredicate {
     this.status = status;
   }
 
+  @CheckForNull
+  InputFile.Status status() {
+    return status;
+  }
+
   @Override
   public boolean apply(InputFile f) {
     return status == null || status == f.status();
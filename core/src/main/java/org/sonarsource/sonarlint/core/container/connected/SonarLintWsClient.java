@@ -27,8 +27,15 @@ import com.google.gson.JsonParser;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import javax.annotation.CheckForNull;
@@ -52,6 +59,7 @@ public class SonarLintWsClient {
 
   public static final int PAGE_SIZE = 500;
   public static final int MAX_PAGES = 20;
+  public static final int DEFAULT_PAGE_WINDOW = 3;
 
   private final WsConnector client;
   private final String userAgent;
@@ -178,34 +186,91 @@ public class SonarLintWsClient {
    */
   public static <G, F> void getPaginated(SonarLintWsClient client, String baseUrl, CheckedFunction<InputStream, G> responseParser, Function<G, Paging> getPaging,
     Function<G, List<F>> itemExtractor, Consumer<F> itemConsumer, boolean limitToTwentyPages, ProgressWrapper progress) {
+    getPaginated(client, baseUrl, responseParser, getPaging, itemExtractor, itemConsumer, limitToTwentyPages, DEFAULT_PAGE_WINDOW, progress);
+  }
+
+  /**
+   * Same as {@link #getPaginated(SonarLintWsClient, String, CheckedFunction, Function, Function, Consumer, boolean, ProgressWrapper)}, requesting up to
+   * <code>pageWindow</code> pages in advance while the current page is parsed and consumed. Pages are still consumed in order on the calling thread,
+   * and progress is reported and cancellation checked between pages.
+   */
+  public static <G, F> void getPaginated(SonarLintWsClient client, String baseUrl, CheckedFunction<InputStream, G> responseParser, Function<G, Paging> getPaging,
+    Function<G, List<F>> itemExtractor, Consumer<F> itemConsumer, boolean limitToTwentyPages, int pageWindow, ProgressWrapper progress) {
     int page = 0;
     boolean stop = false;
     int loaded = 0;
-    do {
-      page++;
-      String url = baseUrl + (baseUrl.contains("?") ? "&" : "?") + "ps=" + PAGE_SIZE + "&p=" + page;
-      WsResponse response = client.get(url);
-      try (InputStream stream = response.contentStream()) {
-        G protoBufResponse = responseParser.apply(stream);
-        List<F> items = itemExtractor.apply(protoBufResponse);
-        for (F item : items) {
-          itemConsumer.accept(item);
-          loaded++;
+    // until the first page tells the total, don't request pages that may not exist
+    int lastPage = 1;
+    int maxPage = limitToTwentyPages ? MAX_PAGES : Integer.MAX_VALUE;
+    int nextPageToRequest = 1;
+    Deque<CompletableFuture<WsResponse>> requested = new ArrayDeque<>();
+    ExecutorService executor = pageWindow > 1 ? Executors.newFixedThreadPool(pageWindow) : null;
+    try {
+      do {
+        page++;
+        while (nextPageToRequest <= Math.min(lastPage, maxPage) && (requested.isEmpty() || requested.size() < pageWindow)) {
+          String url = baseUrl + (baseUrl.contains("?") ? "&" : "?") + "ps=" + PAGE_SIZE + "&p=" + nextPageToRequest;
+          requested.add(executor != null ? CompletableFuture.supplyAsync(() -> client.get(url), executor) : CompletableFuture.completedFuture(client.get(url)));
+          nextPageToRequest++;
         }
-        boolean isEmpty = items.isEmpty();
-        Paging paging = getPaging.apply(protoBufResponse);
-        // SONAR-9150 Some WS used to miss the paging information, so iterate until response is empty
-        stop = isEmpty || (paging.getTotal() > 0 && page * PAGE_SIZE >= paging.getTotal());
-        if (!stop && limitToTwentyPages && page >= MAX_PAGES) {
-          stop = true;
-          LOG.debug("Limiting number of requested pages from '{}' to {}. Some of the data won't be fetched", baseUrl, MAX_PAGES);
+        WsResponse response = await(requested.remove());
+        try (InputStream stream = response.contentStream()) {
+          G protoBufResponse = responseParser.apply(stream);
+          List<F> items = itemExtractor.apply(protoBufResponse);
+          for (F item : items) {
+            itemConsumer.accept(item);
+            loaded++;
+          }
+          boolean isEmpty = items.isEmpty();
+          Paging paging = getPaging.apply(protoBufResponse);
+          // SONAR-9150 Some WS used to miss the paging information, so iterate until response is empty
+          stop = isEmpty || (paging.getTotal() > 0 && page * PAGE_SIZE >= paging.getTotal());
+          if (!stop && limitToTwentyPages && page >= MAX_PAGES) {
+            stop = true;
+            LOG.debug("Limiting number of requested pages from '{}' to {}. Some of the data won't be fetched", baseUrl, MAX_PAGES);
+          }
+          lastPage = paging.getTotal() > 0 ? ((paging.getTotal() + PAGE_SIZE - 1) / PAGE_SIZE) : (page + pageWindow);
+
+          progress.setProgressAndCheckCancel("Page " + page, loaded / (float) paging.getTotal());
+        } catch (IOException e) {
+          throw new IllegalStateException("Failed to process paginated WS", e);
         }
-        
-        progress.setProgressAndCheckCancel("Page " + page, loaded / (float) paging.getTotal());
-      } catch (IOException e) {
-        throw new IllegalStateException("Failed to process paginated WS", e);
+      } while (!stop);
+    } finally {
+      discard(requested);
+      if (executor != null) {
+        executor.shutdown();
       }
-    } while (!stop);
+    }
+  }
+
+  private static WsResponse await(Future<WsResponse> response) {
+    try {
+      return response.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while processing paginated WS", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Failed to process paginated WS", e.getCause());
+    }
+  }
+
+  /**
+   * Release the connections of pages requested in advance but not needed. Requests are not cancelled, as the response of a running one would
+   * then never be closed: each response is closed when it completes.
+   */
+  private static void discard(Deque<CompletableFuture<WsResponse>> requested) {
+    for (CompletableFuture<WsResponse> future : requested) {
+      future.thenAccept(response -> {
+        if (response != null) {
+          response.close();
+        }
+      });
+    }
+    requested.clear();
   }
 
   @FunctionalInterface
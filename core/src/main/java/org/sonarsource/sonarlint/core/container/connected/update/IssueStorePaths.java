@@ -20,6 +20,7 @@
 package org.sonarsource.sonarlint.core.container.connected.update;
 
 import java.time.Instant;
+import java.util.HashMap;
 import java.util.Map;
 import javax.annotation.CheckForNull;
 import org.sonar.scanner.protocol.input.ScannerInput;
@@ -30,20 +31,27 @@ import org.sonarsource.sonarlint.core.proto.Sonarlint;
 
 public class IssueStorePaths {
 
-  public String sqPathToFileKey(Sonarlint.ProjectConfiguration projectConfiguration, String projectKey, String sqFilePath) {
-    Map<String, String> modulePaths = projectConfiguration.getModulePathByKeyMap();
+  // callers convert many paths with the same configuration in a row, so keep the modules of the last one
+  private volatile ModulePaths lastModulePaths;
 
+  public String sqPathToFileKey(Sonarlint.ProjectConfiguration projectConfiguration, String projectKey, String sqFilePath) {
     // find longest prefix match
+    ModulePaths.Node node = modulePaths(projectConfiguration).root;
     String subModuleKey = projectKey;
     int prefixLen = 0;
 
-    for (Map.Entry<String, String> entry : modulePaths.entrySet()) {
-      String entryModuleKey = entry.getKey();
-      String entryPath = entry.getValue();
-      if (!entryPath.isEmpty() && sqFilePath.startsWith(entryPath) && prefixLen <= entryPath.length()) {
-        subModuleKey = entryModuleKey;
-        prefixLen = entryPath.length() + 1;
+    int start = 0;
+    int end;
+    while ((end = sqFilePath.indexOf('/', start)) >= 0) {
+      node = node.children.get(sqFilePath.substring(start, end));
+      if (node == null) {
+        break;
       }
+      if (node.moduleKey != null) {
+        subModuleKey = node.moduleKey;
+        prefixLen = end + 1;
+      }
+      start = end + 1;
     }
 
     String relativeFilePath = sqFilePath.substring(prefixLen);
@@ -104,14 +112,51 @@ public class IssueStorePaths {
   }
 
   public String fileKeyToSqPath(Sonarlint.ProjectConfiguration projectConfiguration, String fileModuleKey, String filePath) {
-    Map<String, String> modulePaths = projectConfiguration.getModulePathByKeyMap();
-
     // normally this should not be null, but the ModuleConfiguration could be out dated
-    String modulePath = modulePaths.getOrDefault(fileModuleKey, "");
-    if (!modulePath.isEmpty()) {
-      modulePath = modulePath + "/";
+    String modulePrefix = modulePaths(projectConfiguration).prefixByModuleKey.getOrDefault(fileModuleKey, "");
+    return modulePrefix + filePath;
+  }
+
+  private ModulePaths modulePaths(Sonarlint.ProjectConfiguration projectConfiguration) {
+    ModulePaths modulePaths = lastModulePaths;
+    if (modulePaths == null || modulePaths.projectConfiguration != projectConfiguration) {
+      modulePaths = new ModulePaths(projectConfiguration);
+      lastModulePaths = modulePaths;
+    }
+    return modulePaths;
+  }
+
+  /**
+   * Module paths of a project configuration, indexed by segment so that the module of a path is found in a single pass over the path.
+   */
+  private static class ModulePaths {
+    private final Sonarlint.ProjectConfiguration projectConfiguration;
+    private final Node root = new Node();
+    private final Map<String, String> prefixByModuleKey = new HashMap<>();
+
+    private ModulePaths(Sonarlint.ProjectConfiguration projectConfiguration) {
+      this.projectConfiguration = projectConfiguration;
+      for (Map.Entry<String, String> entry : projectConfiguration.getModulePathByKeyMap().entrySet()) {
+        String modulePath = entry.getValue();
+        if (!modulePath.isEmpty()) {
+          index(entry.getKey(), modulePath);
+          prefixByModuleKey.put(entry.getKey(), modulePath + "/");
+        }
+      }
+    }
+
+    private void index(String moduleKey, String modulePath) {
+      Node node = root;
+      for (String segment : modulePath.split("/", -1)) {
+        node = node.children.computeIfAbsent(segment, s -> new Node());
+      }
+      node.moduleKey = moduleKey;
+    }
+
+    private static class Node {
+      private final Map<String, Node> children = new HashMap<>();
+      private String moduleKey;
     }
-    return modulePath + filePath;
   }
 
   public static ServerIssue toApiIssue(Sonarlint.ServerIssue pbIssue, String localPath) {
@@ -19,87 +19,83 @@
  */
 package org.sonarsource.sonarlint.core.container.connected.update;
 
+import com.google.protobuf.Message;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import javax.annotation.CheckForNull;
 import org.sonar.api.rule.RuleKey;
+import org.sonarqube.ws.Common.Paging;
 import org.sonarqube.ws.Common.RuleType;
 import org.sonarqube.ws.Rules.Active.Param;
 import org.sonarqube.ws.Rules.ActiveList;
 import org.sonarqube.ws.Rules.Rule;
 import org.sonarqube.ws.Rules.SearchResponse;
+import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
 import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
 import org.sonarsource.sonarlint.core.container.connected.SonarLintWsClient;
-import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
 import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ActiveRules;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.Rules;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.Rules.Rule.Builder;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 import org.sonarsource.sonarlint.core.util.StringUtils;
-import org.sonarsource.sonarlint.core.util.ws.WsResponse;
 
 public class RulesDownloader {
   static final String RULES_SEARCH_URL = "/api/rules/search.protobuf?f=repo,name,severity,lang,htmlDesc,htmlNote,internalKey,isTemplate,templateKey,"
     + "actives&statuses=BETA,DEPRECATED,READY&types=CODE_SMELL,BUG,VULNERABILITY";
 
+  private static final int MAX_RULES = 10_000;
+  private static final int MAX_CONCURRENT_PAGES = 4;
+
   private final SonarLintWsClient wsClient;
 
   public RulesDownloader(SonarLintWsClient wsClient) {
     this.wsClient = wsClient;
   }
 
+  /**
+   * Pages are requested ahead by {@link SonarLintWsClient#getPaginated}, and each page is appended to the storage files as soon as it is
+   * consumed, in page order: protobuf merges concatenated messages, so the files are the same as if whole messages were written.
+   */
   public void fetchRulesTo(Path destDir, ProgressWrapper progress) {
-    Rules.Builder rulesBuilder = Rules.newBuilder();
-    Map<String, ActiveRules.Builder> activeRulesBuildersByQProfile = new HashMap<>();
-    fetchRulesAndActiveRules(rulesBuilder, activeRulesBuildersByQProfile, progress);
     Path activeRulesDir = destDir.resolve(StoragePaths.ACTIVE_RULES_FOLDER);
     FileUtils.mkdirs(activeRulesDir);
-    for (Map.Entry<String, ActiveRules.Builder> entry : activeRulesBuildersByQProfile.entrySet()) {
-      ProtobufUtil.writeToFile(entry.getValue().build(), activeRulesDir.resolve(StoragePaths.encodeForFs(entry.getKey()) + ".pb"));
-    }
-
-    ProtobufUtil.writeToFile(rulesBuilder.build(), destDir.resolve(StoragePaths.RULES_PB));
-  }
-
-  private void fetchRulesAndActiveRules(Rules.Builder rulesBuilder, Map<String, ActiveRules.Builder> activeRulesBuildersByQProfile, ProgressWrapper progress) {
-    int page = 0;
-    int pageSize = 500;
-    int loaded = 0;
-
-    while (true) {
-      page++;
-      SearchResponse response = loadFromStream(wsClient.get(getUrl(page, pageSize)));
-      if (response.getTotal() > 10_000) {
-        throw new IllegalStateException("Found more than 10000 rules in the SonarQube server, which is not supported by SonarLint.");
-      }
-      readPage(rulesBuilder, activeRulesBuildersByQProfile, response);
-      loaded += response.getPs();
-
-      if (response.getTotal() <= loaded) {
-        break;
-      }
-      progress.setProgressAndCheckCancel("Loading page " + page, loaded / (float) response.getTotal());
+    try (RulesWriter writer = new RulesWriter(destDir.resolve(StoragePaths.RULES_PB), activeRulesDir)) {
+      SonarLintWsClient.getPaginated(wsClient, getUrl(),
+        RulesDownloader::loadFromStream,
+        response -> Paging.newBuilder().setTotal((int) response.getTotal()).build(),
+        response -> {
+          if (response.getTotal() > MAX_RULES) {
+            throw new IllegalStateException("Found more than 10000 rules in the SonarQube server, which is not supported by SonarLint.");
+          }
+          writer.write(response);
+          return response.getRulesList();
+        },
+        rule -> {
+          // rules of the page are written with their active rules
+        }, false, MAX_CONCURRENT_PAGES, progress);
     }
   }
 
-  private String getUrl(int page, int pageSize) {
+  private String getUrl() {
     StringBuilder builder = new StringBuilder(1024);
     builder.append(RULES_SEARCH_URL);
     if (wsClient.getOrganizationKey() != null) {
       builder.append("&organization=").append(StringUtils.urlEncode(wsClient.getOrganizationKey()));
     }
-    builder.append("&p=").append(page);
-    builder.append("&ps=").append(pageSize);
     return builder.toString();
   }
 
-  private static SearchResponse loadFromStream(WsResponse response) {
-    try (InputStream is = response.contentStream()) {
+  private static SearchResponse loadFromStream(InputStream is) {
+    try {
       return SearchResponse.parseFrom(is);
     } catch (IOException e) {
       throw new IllegalStateException("Failed to load rules", e);
@@ -157,6 +153,73 @@ public class RulesDownloader {
     }
   }
 
+  /**
+   * Appends pages of rules and active rules to the storage files, keeping one stream open per file.
+   */
+  private static class RulesWriter implements Closeable {
+    private final Path rulesPath;
+    private final Path activeRulesDir;
+    private final OutputStream rulesOutput;
+    private final Map<String, OutputStream> activeRulesOutputsByQProfile = new HashMap<>();
+
+    private RulesWriter(Path rulesPath, Path activeRulesDir) {
+      this.rulesPath = rulesPath;
+      this.activeRulesDir = activeRulesDir;
+      this.rulesOutput = open(rulesPath);
+    }
+
+    private void write(SearchResponse response) {
+      Rules.Builder rulesBuilder = Rules.newBuilder();
+      Map<String, ActiveRules.Builder> activeRulesBuildersByQProfile = new HashMap<>();
+      readPage(rulesBuilder, activeRulesBuildersByQProfile, response);
+
+      write(rulesBuilder.build(), rulesOutput, rulesPath);
+      for (Map.Entry<String, ActiveRules.Builder> entry : activeRulesBuildersByQProfile.entrySet()) {
+        Path activeRulesPath = activeRulesDir.resolve(StoragePaths.encodeForFs(entry.getKey()) + ".pb");
+        OutputStream output = activeRulesOutputsByQProfile.computeIfAbsent(entry.getKey(), k -> open(activeRulesPath));
+        write(entry.getValue().build(), output, activeRulesPath);
+      }
+    }
+
+    private static void write(Message message, OutputStream output, Path file) {
+      try {
+        message.writeTo(output);
+      } catch (IOException e) {
+        throw new StorageException("Unable to write protocol buffer data to file " + file, e);
+      }
+    }
+
+    private static OutputStream open(Path file) {
+      try {
+        return new BufferedOutputStream(Files.newOutputStream(file));
+      } catch (IOException e) {
+        throw new StorageException("Unable to write protocol buffer data to file " + file, e);
+      }
+    }
+
+    @Override
+    public void close() {
+      StorageException failure = null;
+      for (OutputStream output : activeRulesOutputsByQProfile.values()) {
+        failure = closeQuietly(output, failure);
+      }
+      failure = closeQuietly(rulesOutput, failure);
+      if (failure != null) {
+        throw failure;
+      }
+    }
+
+    @CheckForNull
+    private StorageException closeQuietly(OutputStream output, @CheckForNull StorageException previousFailure) {
+      try {
+        output.close();
+        return previousFailure;
+      } catch (IOException e) {
+        return previousFailure != null ? previousFailure : new StorageException("Unable to write rules to " + rulesPath.getParent(), e);
+      }
+    }
+  }
+
   @CheckForNull
   private static String typeToString(RuleType type) {
     switch (type) {
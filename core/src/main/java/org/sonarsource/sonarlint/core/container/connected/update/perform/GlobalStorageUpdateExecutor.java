@@ -35,6 +35,7 @@ import org.sonarsource.sonarlint.core.container.connected.update.SettingsDownloa
 import org.sonarsource.sonarlint.core.container.connected.validate.ServerVersionAndStatusChecker;
 import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
 import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
+import org.sonarsource.sonarlint.core.container.storage.StorageReader;
 import org.sonarsource.sonarlint.core.plugin.Version;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerInfos;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.StorageStatus;
@@ -53,10 +54,12 @@ public class GlobalStorageUpdateExecutor {
   private final SonarLintWsClient wsClient;
   private final QualityProfilesDownloader qualityProfilesDownloader;
   private final PluginListDownloader pluginListDownloader;
+  private final StorageReader storageReader;
 
   public GlobalStorageUpdateExecutor(StoragePaths storageManager, SonarLintWsClient wsClient, ServerVersionAndStatusChecker statusChecker,
     PluginReferencesDownloader pluginReferenceDownloader, SettingsDownloader globalPropertiesDownloader, RulesDownloader rulesDownloader,
-    ProjectListDownloader projectListDownloader, QualityProfilesDownloader qualityProfilesDownloader, PluginListDownloader pluginListDownloader, TempFolder tempFolder) {
+    ProjectListDownloader projectListDownloader, QualityProfilesDownloader qualityProfilesDownloader, PluginListDownloader pluginListDownloader, TempFolder tempFolder,
+    StorageReader storageReader) {
     this.storageManager = storageManager;
     this.wsClient = wsClient;
     this.statusChecker = statusChecker;
@@ -67,6 +70,7 @@ public class GlobalStorageUpdateExecutor {
     this.qualityProfilesDownloader = qualityProfilesDownloader;
     this.pluginListDownloader = pluginListDownloader;
     this.tempFolder = tempFolder;
+    this.storageReader = storageReader;
   }
 
   public List<SonarAnalyzer> update(ProgressWrapper progress) {
@@ -111,6 +115,7 @@ public class GlobalStorageUpdateExecutor {
       FileUtils.deleteRecursively(dest);
       FileUtils.mkdirs(dest.getParent());
       FileUtils.moveDir(temp, dest);
+      storageReader.invalidate();
       return analyzers;
     } catch (RuntimeException e) {
       try {
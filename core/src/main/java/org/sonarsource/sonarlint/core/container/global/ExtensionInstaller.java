@@ -19,7 +19,11 @@
  */
 package org.sonarsource.sonarlint.core.container.global;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.sonar.api.ExtensionProvider;
 import org.sonar.api.Plugin;
 import org.sonar.api.SonarRuntime;
@@ -36,6 +40,11 @@ import org.sonarsource.sonarlint.core.plugin.PluginCacheLoader;
 import org.sonarsource.sonarlint.core.plugin.PluginInfo;
 import org.sonarsource.sonarlint.core.plugin.PluginRepository;
 
+/**
+ * Adds the extensions of plugins to containers. Whether an extension is accepted in a scope (global or analysis) only depends on its type,
+ * so the decision is made once per type. Plugins declaring only classes are defined once per scope and their accepted classes reused,
+ * while plugins declaring instances are defined again for every container, so that containers never share extension instances.
+ */
 public class ExtensionInstaller {
 
   private static final Logger LOG = Loggers.get(ExtensionInstaller.class);
@@ -43,6 +52,7 @@ public class ExtensionInstaller {
   private final SonarRuntime sonarRuntime;
   private final PluginRepository pluginRepository;
   private final Configuration bootConfiguration;
+  private final Map<Boolean, List<PluginExtensions>> extensionsPerScope = new ConcurrentHashMap<>();
 
   public ExtensionInstaller(SonarRuntime sonarRuntime, PluginRepository pluginRepository, Configuration bootConfiguration) {
     this.sonarRuntime = sonarRuntime;
@@ -53,14 +63,10 @@ public class ExtensionInstaller {
   public ExtensionInstaller install(ComponentContainer container, boolean global) {
 
     // plugin extensions
-    for (PluginInfo pluginInfo : pluginRepository.getPluginInfos()) {
-      Plugin plugin = pluginRepository.getPluginInstance(pluginInfo.getKey());
-      Plugin.Context context = new PluginContextImpl.Builder()
-        .setSonarRuntime(sonarRuntime)
-        .setBootConfiguration(bootConfiguration)
-        .build();
-      plugin.define(context);
-      loadExtensions(container, pluginInfo, context, global);
+    for (PluginExtensions pluginExtensions : extensionsPerScope.computeIfAbsent(global, this::loadPlugins)) {
+      for (Object extension : pluginExtensions.extensions()) {
+        container.addExtension(pluginExtensions.pluginInfo, extension);
+      }
     }
     if (!global) {
       List<ExtensionProvider> providers = container.getComponentsByType(ExtensionProvider.class);
@@ -78,26 +84,31 @@ public class ExtensionInstaller {
     return this;
   }
 
-  private static void loadExtensions(ComponentContainer container, PluginInfo pluginInfo, Plugin.Context context, boolean global) {
+  private List<PluginExtensions> loadPlugins(boolean global) {
+    List<PluginExtensions> plugins = new ArrayList<>();
+    for (PluginInfo pluginInfo : pluginRepository.getPluginInfos()) {
+      plugins.add(new PluginExtensions(pluginInfo, global));
+    }
+    return Collections.unmodifiableList(plugins);
+  }
+
+  private static boolean accept(PluginInfo pluginInfo, Object extension, boolean global) {
     Boolean isSlPluginOrNull = pluginInfo.isSonarLintSupported();
     boolean isExplicitlySonarLintCompatible = isSlPluginOrNull != null && isSlPluginOrNull.booleanValue();
     if (global && !isExplicitlySonarLintCompatible) {
       // Don't support global extensions for old plugins
-      return;
+      return false;
     }
-    for (Object extension : context.getExtensions()) {
-      if (isExplicitlySonarLintCompatible) {
-        // When plugin itself claim to be compatible with SonarLint, only load @SonarLintSide extensions
-        // filter out non officially supported Sensors
-        if (isSonarLintSide(extension) && (isGlobal(extension) == global) && onlySonarSourceSensor(pluginInfo, extension)) {
-          container.addExtension(pluginInfo, extension);
-        }
-      } else if (!blacklisted(extension) && ExtensionUtils.isScannerSide(extension)) {
-        // Here we have whitelisted extensions of whitelisted plugins
-        container.addExtension(pluginInfo, extension);
-      } else {
-        LOG.debug("Extension {} was blacklisted as it is not used by SonarLint", className(extension));
-      }
+    if (isExplicitlySonarLintCompatible) {
+      // When plugin itself claim to be compatible with SonarLint, only load @SonarLintSide extensions
+      // filter out non officially supported Sensors
+      return isSonarLintSide(extension) && (isGlobal(extension) == global) && onlySonarSourceSensor(pluginInfo, extension);
+    } else if (!blacklisted(extension) && ExtensionUtils.isScannerSide(extension)) {
+      // Here we have whitelisted extensions of whitelisted plugins
+      return true;
+    } else {
+      LOG.debug("Extension {} was blacklisted as it is not used by SonarLint", className(extension));
+      return false;
     }
   }
 
@@ -138,4 +149,51 @@ public class ExtensionInstaller {
     return extension instanceof Class ? ((Class) extension).getName() : extension.getClass().getName();
   }
 
+  private static Class<?> typeOf(Object extension) {
+    return extension instanceof Class ? (Class<?>) extension : extension.getClass();
+  }
+
+  /**
+   * Extensions of a plugin in a scope.
+   */
+  private class PluginExtensions {
+    private final PluginInfo pluginInfo;
+    private final boolean global;
+    private final Map<Class<?>, Boolean> acceptedTypes = new ConcurrentHashMap<>();
+    // accepted extensions, when they are all classes
+    private volatile List<Object> acceptedClasses;
+
+    PluginExtensions(PluginInfo pluginInfo, boolean global) {
+      this.pluginInfo = pluginInfo;
+      this.global = global;
+    }
+
+    List<Object> extensions() {
+      List<Object> classes = acceptedClasses;
+      if (classes != null) {
+        return classes;
+      }
+      List<Object> extensions = new ArrayList<>();
+      for (Object extension : define().getExtensions()) {
+        if (acceptedTypes.computeIfAbsent(typeOf(extension), t -> accept(pluginInfo, extension, global))) {
+          extensions.add(extension);
+        }
+      }
+      if (extensions.stream().allMatch(Class.class::isInstance)) {
+        acceptedClasses = Collections.unmodifiableList(extensions);
+      }
+      return extensions;
+    }
+
+    private Plugin.Context define() {
+      Plugin plugin = pluginRepository.getPluginInstance(pluginInfo.getKey());
+      Plugin.Context context = new PluginContextImpl.Builder()
+        .setSonarRuntime(sonarRuntime)
+        .setBootConfiguration(bootConfiguration)
+        .build();
+      plugin.define(context);
+      return context;
+    }
+  }
+
 }
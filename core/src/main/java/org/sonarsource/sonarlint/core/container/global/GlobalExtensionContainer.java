@@ -19,6 +19,7 @@
  */
 package org.sonarsource.sonarlint.core.container.global;
 
+import org.sonarsource.sonarlint.core.analyzer.sensor.SensorExecutionPlanCache;
 import org.sonarsource.sonarlint.core.container.ComponentContainer;
 
 /**
@@ -32,6 +33,7 @@ public class GlobalExtensionContainer extends ComponentContainer {
 
   @Override
   protected void doBeforeStart() {
+    add(SensorExecutionPlanCache.class);
     getComponentByType(ExtensionInstaller.class).install(this, true);
   }
 
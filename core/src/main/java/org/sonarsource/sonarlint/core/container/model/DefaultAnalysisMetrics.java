@@ -0,0 +1,113 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisMetrics;
+
+public class DefaultAnalysisMetrics implements AnalysisMetrics {
+  private final AtomicLong fileIndexingNanos = new AtomicLong();
+  private final AtomicLong fileMetadataNanos = new AtomicLong();
+  private final AtomicLong issueFilteringNanos = new AtomicLong();
+  private final AtomicLong issueListenerNanos = new AtomicLong();
+  private final Map<String, DefaultSensorMetrics> sensorMetrics = Collections.synchronizedMap(new LinkedHashMap<>());
+
+  public void addFileIndexingTime(long nanos) {
+    fileIndexingNanos.addAndGet(nanos);
+  }
+
+  public void addFileMetadataTime(long nanos) {
+    fileMetadataNanos.addAndGet(nanos);
+  }
+
+  public void addIssueFilteringTime(long nanos) {
+    issueFilteringNanos.addAndGet(nanos);
+  }
+
+  public void addIssueListenerTime(long nanos) {
+    issueListenerNanos.addAndGet(nanos);
+  }
+
+  public void addSensorExecution(String sensorName, long wallNanos, long cpuNanos, long allocatedBytes) {
+    sensorMetrics.computeIfAbsent(sensorName, k -> new DefaultSensorMetrics()).add(wallNanos, cpuNanos, allocatedBytes);
+  }
+
+  @Override
+  public long fileIndexingTime() {
+    return toMillis(fileIndexingNanos.get());
+  }
+
+  @Override
+  public long fileMetadataTime() {
+    return toMillis(fileMetadataNanos.get());
+  }
+
+  @Override
+  public long issueFilteringTime() {
+    return toMillis(issueFilteringNanos.get());
+  }
+
+  @Override
+  public long issueListenerTime() {
+    return toMillis(issueListenerNanos.get());
+  }
+
+  @Override
+  public Map<String, SensorMetrics> sensorMetrics() {
+    synchronized (sensorMetrics) {
+      return Collections.unmodifiableMap(new LinkedHashMap<>(sensorMetrics));
+    }
+  }
+
+  private static long toMillis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+  private static class DefaultSensorMetrics implements SensorMetrics {
+    private long wallNanos;
+    private long cpuNanos;
+    private long allocatedBytes;
+
+    synchronized void add(long wallNanos, long cpuNanos, long allocatedBytes) {
+      this.wallNanos += wallNanos;
+      this.cpuNanos = cpuNanos < 0 || this.cpuNanos < 0 ? -1 : (this.cpuNanos + cpuNanos);
+      this.allocatedBytes = allocatedBytes < 0 || this.allocatedBytes < 0 ? -1 : (this.allocatedBytes + allocatedBytes);
+    }
+
+    @Override
+    public synchronized long wallTime() {
+      return toMillis(wallNanos);
+    }
+
+    @Override
+    public synchronized long cpuTime() {
+      return cpuNanos < 0 ? -1 : toMillis(cpuNanos);
+    }
+
+    @Override
+    public synchronized long allocatedBytes() {
+      return allocatedBytes;
+    }
+  }
+}
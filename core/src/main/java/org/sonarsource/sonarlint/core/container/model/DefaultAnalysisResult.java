@@ -32,6 +32,7 @@ public class DefaultAnalysisResult implements AnalysisResults {
   private Set<ClientInputFile> failedAnalysisFiles = new LinkedHashSet<>();
   private int indexedFileCount;
   private Map<ClientInputFile, String> languagePerFile = new LinkedHashMap<>();
+  private final DefaultAnalysisMetrics metrics = new DefaultAnalysisMetrics();
 
   public DefaultAnalysisResult setIndexedFileCount(int indexedFileCount) {
     this.indexedFileCount = indexedFileCount;
@@ -61,4 +62,9 @@ public class DefaultAnalysisResult implements AnalysisResults {
     return failedAnalysisFiles;
   }
 
+  @Override
+  public DefaultAnalysisMetrics metrics() {
+    return metrics;
+  }
+
 }
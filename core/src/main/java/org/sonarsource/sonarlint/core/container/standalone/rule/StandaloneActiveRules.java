@@ -20,7 +20,11 @@
 package org.sonarsource.sonarlint.core.container.standalone.rule;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -30,9 +34,20 @@ import org.sonar.api.rule.RuleKey;
 import org.sonarsource.sonarlint.core.client.api.common.RuleDetails;
 
 public class StandaloneActiveRules {
+  /**
+   * Rule configuration rarely changes between analyses, so a few filtered {@link ActiveRules} are kept to be reused
+   */
+  private static final int MAX_CACHED_FILTERED_RULES = 8;
+
   public final ActiveRules activeRules;
   private final ActiveRules inactiveRules;
   private final Map<String, RuleDetails> ruleDetails;
+  private final Map<List<Set<String>>, ActiveRules> filteredCache = new LinkedHashMap<List<Set<String>>, ActiveRules>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<List<Set<String>>, ActiveRules> eldest) {
+      return size() > MAX_CACHED_FILTERED_RULES;
+    }
+  };
 
   StandaloneActiveRules(ActiveRules activeRules, ActiveRules inactiveRules, Map<String, RuleDetails> ruleDetails) {
     this.activeRules = activeRules;
@@ -41,6 +56,13 @@ public class StandaloneActiveRules {
   }
 
   public ActiveRules filtered(Set<String> excludedRules, Set<String> includedRules) {
+    List<Set<String>> key = Arrays.asList(new HashSet<>(excludedRules), new HashSet<>(includedRules));
+    synchronized (filteredCache) {
+      return filteredCache.computeIfAbsent(key, k -> computeFiltered(excludedRules, includedRules));
+    }
+  }
+
+  private ActiveRules computeFiltered(Set<String> excludedRules, Set<String> includedRules) {
     Collection<ActiveRule> filteredActiveRules = new ArrayList<>();
 
     filteredActiveRules.addAll(activeRules.findAll().stream()
@@ -0,0 +1,62 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.storage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ProjectComponents;
+import org.sonarsource.sonarlint.core.util.ReversePathTree;
+
+/**
+ * Reverse path tree of the components of a project in storage. The tree is built once and reused as long as the
+ * {@link StorageReader} returns the same component list, so it is invalidated together with the storage reader.
+ */
+public class ComponentPathTreeReader implements Function<String, ReversePathTree> {
+  private final StorageReader storageReader;
+  private final Map<String, CachedTree> treesByProjectKey = new ConcurrentHashMap<>();
+
+  public ComponentPathTreeReader(StorageReader storageReader) {
+    this.storageReader = storageReader;
+  }
+
+  @Override
+  public ReversePathTree apply(String projectKey) {
+    ProjectComponents components = storageReader.readProjectComponents(projectKey);
+    CachedTree cached = treesByProjectKey.get(projectKey);
+    if (cached != null && cached.components == components) {
+      return cached.tree;
+    }
+    ReversePathTree tree = new ReversePathTree();
+    components.getComponentList().forEach(tree::index);
+    treesByProjectKey.put(projectKey, new CachedTree(components, tree));
+    return tree;
+  }
+
+  private static class CachedTree {
+    private final ProjectComponents components;
+    private final ReversePathTree tree;
+
+    private CachedTree(ProjectComponents components, ReversePathTree tree) {
+      this.components = components;
+      this.tree = tree;
+    }
+  }
+}
@@ -19,8 +19,6 @@
  */
 package org.sonarsource.sonarlint.core.container.storage;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
@@ -37,21 +35,27 @@ public class FileMatcher {
     this.reversePathTree = reversePathTree;
   }
 
-  public Result match(List<Path> sqRelativePaths, List<Path> localRelativePaths) {
-    Map<Path, Integer> localPrefixes = new HashMap<>();
-    Map<Path, Integer> sqPrefixes = new HashMap<>();
-    BiFunction<Path, Integer, Integer> incrementer = (p, i) -> i != null ? (i + 1) : 1;
-
+  public Result match(List<String> sqRelativePaths, List<String> localRelativePaths) {
     sqRelativePaths.forEach(reversePathTree::index);
+    return match(localRelativePaths);
+  }
+
+  /**
+   * Match local paths against the server paths already indexed in the tree. Paths are '/'-separated.
+   */
+  public Result match(List<String> localRelativePaths) {
+    Map<String, Integer> localPrefixes = new HashMap<>();
+    Map<String, Integer> sqPrefixes = new HashMap<>();
+    BiFunction<String, Integer, Integer> incrementer = (p, i) -> i != null ? (i + 1) : 1;
 
-    for (Path local : localRelativePaths) {
+    for (String local : localRelativePaths) {
       ReversePathTree.Match match = reversePathTree.findLongestSuffixMatches(local);
-      for (Path sqPrefix : match.matchPrefixes()) {
+      for (String sqPrefix : match.matchPrefixes()) {
         sqPrefixes.compute(sqPrefix, incrementer);
       }
 
       if (match.matchLen() > 0) {
-        Path localPrefix = getLocalPrefix(local, match);
+        String localPrefix = getLocalPrefix(local, match);
         localPrefixes.compute(localPrefix, incrementer);
       }
     }
@@ -59,39 +63,61 @@ public class FileMatcher {
     return new Result(mostCommonPrefix(localPrefixes), mostCommonPrefix(sqPrefixes));
   }
 
-  private static Path getLocalPrefix(Path localPath, ReversePathTree.Match match) {
-    int prefixLen = localPath.getNameCount() - match.matchLen();
-    if (prefixLen > 0) {
-      return localPath.subpath(0, localPath.getNameCount() - match.matchLen());
+  private static String getLocalPrefix(String localPath, ReversePathTree.Match match) {
+    // drop the matched segments from the end of the path, ignoring empty segments like the path tree does
+    int end = localPath.length();
+    int remaining = match.matchLen();
+    while (remaining > 0 && end > 0) {
+      int start = localPath.lastIndexOf('/', end - 1) + 1;
+      if (start < end) {
+        remaining--;
+      }
+      end = start - 1;
+    }
+    while (end > 0 && localPath.charAt(end - 1) == '/') {
+      end--;
     }
-    return Paths.get("");
+    return end > 0 ? localPath.substring(0, end) : "";
   }
 
   public static class Result {
-    private Path localPrefix;
-    private Path sqPrefix;
+    private String localPrefix;
+    private String sqPrefix;
 
-    private Result(Path localPrefix, Path sqPrefix) {
+    private Result(String localPrefix, String sqPrefix) {
       this.localPrefix = localPrefix;
       this.sqPrefix = sqPrefix;
     }
 
-    public Path mostCommonLocalPrefix() {
+    public String mostCommonLocalPrefix() {
       return localPrefix;
     }
 
-    public Path mostCommonSqPrefix() {
+    public String mostCommonSqPrefix() {
       return sqPrefix;
     }
   }
 
-  private static Path mostCommonPrefix(Map<Path, Integer> prefixes) {
-    Comparator<Map.Entry<Path, Integer>> c = Comparator.comparing(Map.Entry::getValue);
-    c = c.thenComparing(x -> x.getKey().getNameCount(), reverseOrder());
+  private static String mostCommonPrefix(Map<String, Integer> prefixes) {
+    Comparator<Map.Entry<String, Integer>> c = Comparator.comparing(Map.Entry::getValue);
+    c = c.thenComparing(x -> segmentCount(x.getKey()), reverseOrder());
 
     return prefixes.entrySet().stream()
       .max(c)
       .map(Map.Entry::getKey)
-      .orElse(Paths.get(""));
+      .orElse("");
+  }
+
+  private static int segmentCount(String path) {
+    if (path.isEmpty()) {
+      return 0;
+    }
+    int count = 1;
+    for (int i = 0; i < path.length(); i++) {
+      if (path.charAt(i) == '/') {
+        count++;
+      }
+    }
+    return count;
   }
 }
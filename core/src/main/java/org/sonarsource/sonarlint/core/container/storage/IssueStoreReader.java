@@ -20,8 +20,11 @@
 package org.sonarsource.sonarlint.core.container.storage;
 
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import org.sonarsource.sonarlint.core.client.api.connected.ProjectBinding;
 import org.sonarsource.sonarlint.core.client.api.connected.ServerIssue;
@@ -44,18 +47,41 @@ public class IssueStoreReader {
   }
 
   public List<ServerIssue> getServerIssues(ProjectBinding projectBinding, String localFilePath) {
+    checkProjectInStorage(projectBinding);
+    return getServerIssues(projectBinding, openIssueStore(projectBinding), localFilePath);
+  }
+
+  /**
+   * Same as {@link #getServerIssues(ProjectBinding, String)} for several files, checking the project and opening the issue store only once.
+   */
+  public Map<String, List<ServerIssue>> getServerIssues(ProjectBinding projectBinding, Collection<String> localFilePaths) {
+    checkProjectInStorage(projectBinding);
+    IssueStore issueStore = openIssueStore(projectBinding);
+    Map<String, List<ServerIssue>> issuesByFile = new LinkedHashMap<>();
+    for (String localFilePath : localFilePaths) {
+      issuesByFile.put(localFilePath, getServerIssues(projectBinding, issueStore, localFilePath));
+    }
+    return issuesByFile;
+  }
+
+  private void checkProjectInStorage(ProjectBinding projectBinding) {
     Sonarlint.ProjectConfiguration projectConfiguration = storageReader.readProjectConfig(projectBinding.projectKey());
 
     if (projectConfiguration == null) {
       throw new IllegalStateException("project not in storage: " + projectBinding.projectKey());
     }
+  }
 
+  private IssueStore openIssueStore(ProjectBinding projectBinding) {
+    Path serverIssuesPath = storagePaths.getServerIssuesPath(projectBinding.projectKey());
+    return issueStoreFactory.apply(serverIssuesPath);
+  }
+
+  private List<ServerIssue> getServerIssues(ProjectBinding projectBinding, IssueStore issueStore, String localFilePath) {
     String sqPath = issueStorePaths.localPathToSqPath(projectBinding, localFilePath);
     if (sqPath == null) {
       return Collections.emptyList();
     }
-    Path serverIssuesPath = storagePaths.getServerIssuesPath(projectBinding.projectKey());
-    IssueStore issueStore = issueStoreFactory.apply(serverIssuesPath);
 
     List<Sonarlint.ServerIssue> loadedIssues = issueStore.load(sqPath);
 
@@ -87,6 +87,7 @@ public class StorageContainer extends ComponentContainer {
 
       // storage readers
       AllProjectReader.class,
+      ComponentPathTreeReader.class,
       IssueStoreReader.class,
       GlobalUpdateStatusReader.class,
       ProjectStorageStatusReader.class,
@@ -19,8 +19,6 @@
  */
 package org.sonarsource.sonarlint.core.container.storage;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -46,7 +44,6 @@ import org.sonarsource.sonarlint.core.container.storage.partialupdate.PartialUpd
 import org.sonarsource.sonarlint.core.plugin.PluginRepository;
 import org.sonarsource.sonarlint.core.proto.Sonarlint;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
-import org.sonarsource.sonarlint.core.util.ReversePathTree;
 
 public class StorageContainerHandler {
   private final StorageAnalyzer storageAnalyzer;
@@ -60,10 +57,12 @@ public class StorageContainerHandler {
   private final StorageFileExclusions storageExclusions;
   private final IssueStoreReader issueStoreReader;
   private final PartialUpdaterFactory partialUpdaterFactory;
+  private final ComponentPathTreeReader componentPathTreeReader;
 
   public StorageContainerHandler(StorageAnalyzer storageAnalyzer, StorageRuleDetailsReader storageRuleDetailsReader, GlobalUpdateStatusReader globalUpdateStatusReader,
     PluginRepository pluginRepository, ProjectStorageStatusReader projectStorageStatusReader, AllProjectReader allProjectReader, StoragePaths storagePaths,
-    StorageReader storageReader, StorageFileExclusions storageExclusions, IssueStoreReader issueStoreReader, PartialUpdaterFactory partialUpdaterFactory) {
+    StorageReader storageReader, StorageFileExclusions storageExclusions, IssueStoreReader issueStoreReader, PartialUpdaterFactory partialUpdaterFactory,
+    ComponentPathTreeReader componentPathTreeReader) {
     this.storageAnalyzer = storageAnalyzer;
     this.storageRuleDetailsReader = storageRuleDetailsReader;
     this.globalUpdateStatusReader = globalUpdateStatusReader;
@@ -75,6 +74,7 @@ public class StorageContainerHandler {
     this.storageExclusions = storageExclusions;
     this.issueStoreReader = issueStoreReader;
     this.partialUpdaterFactory = partialUpdaterFactory;
+    this.componentPathTreeReader = componentPathTreeReader;
   }
 
   public AnalysisResults analyze(GlobalExtensionContainer globalExtensionContainer, ConnectedAnalysisConfiguration configuration, IssueListener issueListener,
@@ -106,6 +106,10 @@ public class StorageContainerHandler {
     return issueStoreReader.getServerIssues(projectBinding, filePath);
   }
 
+  public Map<String, List<ServerIssue>> getServerIssuesForFiles(ProjectBinding projectBinding, Collection<String> filePaths) {
+    return issueStoreReader.getServerIssues(projectBinding, filePaths);
+  }
+
   public <G> List<G> getExcludedFiles(ProjectBinding projectBinding, Collection<G> files, Function<G, String> filePathExtractor, Predicate<G> testFilePredicate) {
     return storageExclusions.getExcludedFiles(projectBinding, files, filePathExtractor, testFilePredicate);
   }
@@ -124,18 +128,13 @@ public class StorageContainerHandler {
   }
 
   public ProjectBinding calculatePathPrefixes(String projectKey, Collection<String> localFilePaths) {
-    List<Path> localPathList = localFilePaths.stream()
-      .map(Paths::get)
-      .collect(Collectors.toList());
-    List<Path> sqPathList = storageReader.readProjectComponents(projectKey)
-      .getComponentList().stream()
-      .map(Paths::get)
+    List<String> localPathList = localFilePaths.stream()
+      .map(FilenameUtils::separatorsToUnix)
       .collect(Collectors.toList());
 
-    FileMatcher fileMatcher = new FileMatcher(new ReversePathTree());
-    FileMatcher.Result match = fileMatcher.match(sqPathList, localPathList);
-    return new ProjectBinding(projectKey, FilenameUtils.separatorsToUnix(match.mostCommonSqPrefix().toString()),
-      FilenameUtils.separatorsToUnix(match.mostCommonLocalPrefix().toString()));
+    FileMatcher fileMatcher = new FileMatcher(componentPathTreeReader.apply(projectKey));
+    FileMatcher.Result match = fileMatcher.match(localPathList);
+    return new ProjectBinding(projectKey, match.mostCommonSqPrefix(), match.mostCommonLocalPrefix());
 
   }
 
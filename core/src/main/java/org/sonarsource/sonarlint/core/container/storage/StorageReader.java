@@ -19,9 +19,18 @@
  */
 package org.sonarsource.sonarlint.core.container.storage;
 
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.CheckForNull;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -29,12 +38,18 @@ import org.sonarsource.sonarlint.core.client.api.connected.GlobalStorageStatus;
 import org.sonarsource.sonarlint.core.container.model.DefaultGlobalStorageStatus;
 import org.sonarsource.sonarlint.core.proto.Sonarlint;
 
+/**
+ * Reads messages from the storage. Parsed messages are immutable, so they are kept in memory and returned again as long as their file
+ * keeps the same modification time, size and file key, and {@link #invalidate()} was not called since they were read.
+ */
 public class StorageReader {
 
   private static final Logger LOG = Loggers.get(StorageReader.class);
 
   private final StoragePaths storagePaths;
   private final GlobalStorageStatus storageStatus;
+  private final Map<Path, Snapshot> snapshotsByPath = new ConcurrentHashMap<>();
+  private final AtomicLong generation = new AtomicLong();
 
   public StorageReader(StoragePaths storagePaths) {
     this.storagePaths = storagePaths;
@@ -65,17 +80,17 @@ public class StorageReader {
   }
 
   public Sonarlint.ServerInfos readServerInfos() {
-    return ProtobufUtil.readFile(storagePaths.getServerInfosPath(), Sonarlint.ServerInfos.parser());
+    return read(storagePaths.getServerInfosPath(), Sonarlint.ServerInfos.parser());
   }
 
   public Sonarlint.Rules readRules() {
-    return ProtobufUtil.readFile(storagePaths.getRulesPath(), Sonarlint.Rules.parser());
+    return read(storagePaths.getRulesPath(), Sonarlint.Rules.parser());
   }
 
   public Sonarlint.ActiveRules readActiveRules(String qProfileKey) {
     Path activeRulesPath = storagePaths.getActiveRulesPath(qProfileKey);
     if (Files.exists(activeRulesPath)) {
-      return ProtobufUtil.readFile(activeRulesPath, Sonarlint.ActiveRules.parser());
+      return read(activeRulesPath, Sonarlint.ActiveRules.parser());
     } else {
       LOG.info("Unable to find the quality profile {} in the SonarLint storage. You should update the storage, or ignore this message if the profile is empty.", qProfileKey);
       return Sonarlint.ActiveRules.newBuilder().build();
@@ -83,26 +98,86 @@ public class StorageReader {
   }
 
   public Sonarlint.QProfiles readQProfiles() {
-    return ProtobufUtil.readFile(storagePaths.getQProfilesPath(), Sonarlint.QProfiles.parser());
+    return read(storagePaths.getQProfilesPath(), Sonarlint.QProfiles.parser());
   }
 
   public Sonarlint.GlobalProperties readGlobalProperties() {
-    return ProtobufUtil.readFile(storagePaths.getGlobalPropertiesPath(), Sonarlint.GlobalProperties.parser());
+    return read(storagePaths.getGlobalPropertiesPath(), Sonarlint.GlobalProperties.parser());
   }
 
   public Sonarlint.PluginReferences readPluginReferences() {
-    return ProtobufUtil.readFile(storagePaths.getPluginReferencesPath(), Sonarlint.PluginReferences.parser());
+    return read(storagePaths.getPluginReferencesPath(), Sonarlint.PluginReferences.parser());
   }
 
   public Sonarlint.ProjectConfiguration readProjectConfig(String projectKey) {
-    return ProtobufUtil.readFile(storagePaths.getProjectConfigurationPath(projectKey), Sonarlint.ProjectConfiguration.parser());
+    return read(storagePaths.getProjectConfigurationPath(projectKey), Sonarlint.ProjectConfiguration.parser());
   }
 
   public Sonarlint.ProjectList readProjectList() {
-    return ProtobufUtil.readFile(storagePaths.getProjectListPath(), Sonarlint.ProjectList.parser());
+    return read(storagePaths.getProjectListPath(), Sonarlint.ProjectList.parser());
   }
 
   public Sonarlint.ProjectComponents readProjectComponents(String projectKey) {
-    return ProtobufUtil.readFile(storagePaths.getComponentListPath(projectKey), Sonarlint.ProjectComponents.parser());
+    return read(storagePaths.getComponentListPath(projectKey), Sonarlint.ProjectComponents.parser());
+  }
+
+  /**
+   * Forgets all the messages read so far, for example because the storage was updated. Messages being read concurrently
+   * are not kept either.
+   */
+  public void invalidate() {
+    generation.incrementAndGet();
+    snapshotsByPath.clear();
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T extends Message> T read(Path path, Parser<T> parser) {
+    long currentGeneration = generation.get();
+    BasicFileAttributes attributes = readAttributes(path);
+    if (attributes == null) {
+      // fail with the usual error
+      return ProtobufUtil.readFile(path, parser);
+    }
+    Snapshot snapshot = snapshotsByPath.get(path);
+    if (snapshot != null && snapshot.isValid(currentGeneration, attributes)) {
+      return (T) snapshot.message;
+    }
+    T message = ProtobufUtil.readFile(path, parser);
+    if (generation.get() == currentGeneration) {
+      snapshotsByPath.put(path, new Snapshot(currentGeneration, attributes, message));
+    }
+    return message;
+  }
+
+  @CheckForNull
+  private static BasicFileAttributes readAttributes(Path path) {
+    try {
+      return Files.readAttributes(path, BasicFileAttributes.class);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static class Snapshot {
+    private final long generation;
+    private final FileTime lastModifiedTime;
+    private final long size;
+    private final Object fileKey;
+    private final Message message;
+
+    private Snapshot(long generation, BasicFileAttributes attributes, Message message) {
+      this.generation = generation;
+      this.lastModifiedTime = attributes.lastModifiedTime();
+      this.size = attributes.size();
+      this.fileKey = attributes.fileKey();
+      this.message = message;
+    }
+
+    private boolean isValid(long currentGeneration, BasicFileAttributes attributes) {
+      return generation == currentGeneration
+        && size == attributes.size()
+        && lastModifiedTime.equals(attributes.lastModifiedTime())
+        && Objects.equals(fileKey, attributes.fileKey());
+    }
   }
 }
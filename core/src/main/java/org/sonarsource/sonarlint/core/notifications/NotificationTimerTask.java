@@ -23,9 +23,16 @@ import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BinaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -35,19 +42,39 @@ import org.sonarsource.sonarlint.core.client.api.common.NotificationConfiguratio
 import org.sonarsource.sonarlint.core.client.api.connected.ServerConfiguration;
 import org.sonarsource.sonarlint.core.client.api.notifications.SonarQubeNotification;
 
+/**
+ * Polls each server on its own thread of a small pool, so that a slow or unreachable server doesn't delay notifications of the others.
+ * A server is not polled again while its previous request is in flight, and is polled less often after consecutive failures.
+ */
 class NotificationTimerTask extends TimerTask {
   // merge with most recent time
   private static final BinaryOperator<ZonedDateTime> MERGE_TIMES = (t1, t2) -> t1.toInstant().compareTo(t2.toInstant()) > 0 ? t1 : t2;
   private static final Logger LOG = Loggers.get(NotificationTimerTask.class);
+  private static final int POLLING_THREADS = 4;
+  // project keys and timestamps are passed in the URL
+  static final int MAX_PROJECTS_PER_REQUEST = 50;
+  static final long MAX_JITTER_MS = 5_000;
+  static final long MAX_BACKOFF_MS = TimeUnit.MINUTES.toMillis(30);
+
   private final NotificationCheckerFactory checkerFactory;
-  private Collection<NotificationConfiguration> configuredProjects = Collections.emptyList();
+  private final ScheduledExecutorService executor;
+  private final long maxJitterMs;
+  private final Map<ServerConfiguration, ServerPolling> pollingPerServer = new ConcurrentHashMap<>();
+  private final Object dispatchLock = new Object();
+  private volatile Collection<NotificationConfiguration> configuredProjects = Collections.emptyList();
 
   public NotificationTimerTask() {
-    this(new NotificationCheckerFactory());
+    this(new NotificationCheckerFactory(), Executors.newScheduledThreadPool(POLLING_THREADS, r -> {
+      Thread thread = new Thread(r, "Notifications poller");
+      thread.setDaemon(true);
+      return thread;
+    }), MAX_JITTER_MS);
   }
 
-  public NotificationTimerTask(NotificationCheckerFactory checkerFactory) {
+  public NotificationTimerTask(NotificationCheckerFactory checkerFactory, ScheduledExecutorService executor, long maxJitterMs) {
     this.checkerFactory = checkerFactory;
+    this.executor = executor;
+    this.maxJitterMs = maxJitterMs;
   }
 
   public void setProjects(Collection<NotificationConfiguration> configurations) {
@@ -57,26 +84,52 @@ class NotificationTimerTask extends TimerTask {
   @Override
   public void run() {
     Map<ServerConfiguration, List<NotificationConfiguration>> mapByServer = groupByServer();
+    pollingPerServer.keySet().retainAll(mapByServer.keySet());
 
+    long now = System.currentTimeMillis();
     for (Map.Entry<ServerConfiguration, List<NotificationConfiguration>> entry : mapByServer.entrySet()) {
-      requestForServer(entry.getKey(), entry.getValue());
+      ServerPolling polling = pollingPerServer.computeIfAbsent(entry.getKey(), ServerPolling::new);
+      if (polling.tryStart(now)) {
+        executor.schedule(() -> polling.poll(entry.getValue()), jitter(), TimeUnit.MILLISECONDS);
+      }
     }
   }
 
+  @Override
+  public boolean cancel() {
+    executor.shutdownNow();
+    return super.cancel();
+  }
+
+  private long jitter() {
+    return maxJitterMs > 0 ? ThreadLocalRandom.current().nextLong(maxJitterMs) : 0;
+  }
+
   private static ZonedDateTime getLastNotificationTime(NotificationConfiguration config) {
     ZonedDateTime lastTime = config.lastNotificationTime().get();
     ZonedDateTime oneDayAgo = ZonedDateTime.now().minusDays(1);
     return lastTime.isAfter(oneDayAgo) ? lastTime : oneDayAgo;
   }
 
-  private void requestForServer(ServerConfiguration serverConfiguration, List<NotificationConfiguration> configs) {
-    try {
-      Map<String, ZonedDateTime> request = configs.stream()
-        .collect(Collectors.toMap(NotificationConfiguration::projectKey, NotificationTimerTask::getLastNotificationTime, MERGE_TIMES));
-
-      NotificationChecker notificationChecker = checkerFactory.create(serverConfiguration);
-      List<SonarQubeNotification> notifications = notificationChecker.request(request);
+  private static List<Map<String, ZonedDateTime>> splitRequest(List<NotificationConfiguration> configs) {
+    Map<String, ZonedDateTime> timestamps = configs.stream()
+      .collect(Collectors.toMap(NotificationConfiguration::projectKey, NotificationTimerTask::getLastNotificationTime, MERGE_TIMES, LinkedHashMap::new));
+    List<Map<String, ZonedDateTime>> requests = new ArrayList<>();
+    Map<String, ZonedDateTime> request = new LinkedHashMap<>();
+    for (Map.Entry<String, ZonedDateTime> entry : timestamps.entrySet()) {
+      if (request.size() == MAX_PROJECTS_PER_REQUEST) {
+        requests.add(request);
+        request = new LinkedHashMap<>();
+      }
+      request.put(entry.getKey(), entry.getValue());
+    }
+    requests.add(request);
+    return requests;
+  }
 
+  private void dispatch(List<NotificationConfiguration> configs, List<SonarQubeNotification> notifications) {
+    // listeners used to be called from the single timer thread, keep them from being called concurrently
+    synchronized (dispatchLock) {
       for (SonarQubeNotification n : notifications) {
         Stream<NotificationConfiguration> matchingConfStream = configs.stream();
         if (n.projectKey() != null) {
@@ -88,8 +141,6 @@ class NotificationTimerTask extends TimerTask {
           c.lastNotificationTime().set(n.time());
         });
       }
-    } catch (Exception e) {
-      LOG.warn("Failed to request SonarQube events to " + serverConfiguration.getUrl(), e);
     }
   }
 
@@ -97,4 +148,43 @@ class NotificationTimerTask extends TimerTask {
     return configuredProjects.stream().collect(Collectors.groupingBy(NotificationConfiguration::serverConfiguration));
   }
 
+  /**
+   * Polling state of a server. The checker, and so the WS client, is reused between polls. Fields other than the flags are only accessed by
+   * the poll in flight.
+   */
+  private class ServerPolling {
+    private final ServerConfiguration serverConfiguration;
+    private final AtomicBoolean inFlight = new AtomicBoolean();
+    private volatile long nextPollTime;
+    private NotificationChecker checker;
+    private int consecutiveFailures;
+
+    ServerPolling(ServerConfiguration serverConfiguration) {
+      this.serverConfiguration = serverConfiguration;
+    }
+
+    boolean tryStart(long now) {
+      return now >= nextPollTime && inFlight.compareAndSet(false, true);
+    }
+
+    void poll(List<NotificationConfiguration> configs) {
+      try {
+        if (checker == null) {
+          checker = checkerFactory.create(serverConfiguration);
+        }
+        for (Map<String, ZonedDateTime> request : splitRequest(configs)) {
+          dispatch(configs, checker.request(request));
+        }
+        consecutiveFailures = 0;
+      } catch (Exception e) {
+        consecutiveFailures++;
+        long backoff = Math.min((long) SonarQubeNotifications.DELAY << Math.min(consecutiveFailures, 10), MAX_BACKOFF_MS);
+        nextPollTime = System.currentTimeMillis() + backoff;
+        LOG.warn("Failed to request SonarQube events to " + serverConfiguration.getUrl() + ", next attempt in " + (backoff / 1000) + "s", e);
+      } finally {
+        inFlight.set(false);
+      }
+    }
+  }
+
 }
@@ -85,6 +85,7 @@ public class SonarQubeNotifications {
    * Stops notifications.
    */
   public void stop() {
+    task.cancel();
     timer.cancel();
     timer = null;
     task = null;
@@ -74,14 +74,16 @@ public class PluginCacheLoader {
 
     Profiler profiler = Profiler.create(LOG).startDebug("Load plugins");
 
+    PluginManifestIndex manifestIndex = new PluginManifestIndex(fileCache.getCacheDir());
     for (PluginReference ref : pluginReferences) {
       Path jarFilePath = getFromCache(ref);
-      PluginInfo info = PluginInfo.create(jarFilePath);
+      PluginInfo info = PluginInfo.create(jarFilePath, manifestIndex.get(jarFilePath));
 
       if (!shouldSkip(info)) {
         infosByKey.put(info.getKey(), info);
       }
     }
+    manifestIndex.save();
 
     profiler.stopDebug();
     return infosByKey;
@@ -28,11 +28,18 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.SystemUtils;
 import org.sonar.api.Plugin;
-import org.sonar.api.utils.TempFolder;
 import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.plugin.cache.PluginCache;
+import org.sonarsource.sonarlint.core.plugin.cache.PluginHashes;
 
 /**
  * Loads the plugin JAR files by creating the appropriate classloaders and by instantiating
@@ -46,24 +53,42 @@ import org.sonar.api.utils.log.Loggers;
  * Plugins have their own isolated classloader, inheriting only from API classes.
  * Some plugins can extend a "base" plugin, sharing the same classloader.
  * <p/>
- * This class is stateless. It does not keep pointers to classloaders and {@link org.sonar.api.Plugin}.
+ * Classloaders and {@link org.sonar.api.Plugin} instances are not kept by this class but in the {@link PluginRuntimeCache},
+ * so that they are shared by all the engines of the JVM that load the same plugins.
  */
 public class PluginLoader {
 
   private static final String[] DEFAULT_SHARED_RESOURCES = {"org/sonar/plugins", "com/sonar/plugins", "com/sonarsource/plugins"};
   private static final String SLF4J_ADAPTER_JAR_NAME = "sonarlint-slf4j-sonar-log";
-  
+  private static final int EXPLODER_THREADS = Runtime.getRuntime().availableProcessors();
+  /**
+   * Shared by the loaders of all engines of the JVM. Idle threads are released.
+   */
+  private static final ExecutorService EXPLODER_EXECUTOR = createExploderExecutor();
+
   private final PluginJarExploder jarExploder;
   private final PluginClassloaderFactory classloaderFactory;
-  private final TempFolder tempFolder;
+  private String slf4jAdapterHash;
+
+  private final PluginCache fileCache;
+  private final PluginRuntimeCache runtimeCache;
 
-  public PluginLoader(PluginJarExploder jarExploder, PluginClassloaderFactory classloaderFactory, TempFolder tempFolder) {
+  public PluginLoader(PluginJarExploder jarExploder, PluginClassloaderFactory classloaderFactory, PluginCache fileCache) {
+    this(jarExploder, classloaderFactory, fileCache, PluginRuntimeCache.getInstance());
+  }
+
+  public PluginLoader(PluginJarExploder jarExploder, PluginClassloaderFactory classloaderFactory, PluginCache fileCache, PluginRuntimeCache runtimeCache) {
     this.jarExploder = jarExploder;
     this.classloaderFactory = classloaderFactory;
-    this.tempFolder = tempFolder;
+    this.fileCache = fileCache;
+    this.runtimeCache = runtimeCache;
   }
 
   public Map<String, Plugin> load(Map<String, PluginInfo> infoByKeys) {
+    return runtimeCache.acquire(infoByKeys, this::loadNew);
+  }
+
+  private Map<String, Plugin> loadNew(Map<String, PluginInfo> infoByKeys) {
     File slf4jAdapter = extractSlf4jAdapterJar();
     Collection<PluginClassLoaderDef> defs = defineClassloaders(infoByKeys, slf4jAdapter);
     Map<PluginClassLoaderDef, ClassLoader> classloaders = classloaderFactory.create(defs);
@@ -77,6 +102,7 @@ public class PluginLoader {
   @VisibleForTesting
   Collection<PluginClassLoaderDef> defineClassloaders(Map<String, PluginInfo> infoByKeys, File slf4jAdapter) {
     Map<String, PluginClassLoaderDef> classloadersByBasePlugin = new HashMap<>();
+    Map<String, ExplodedPlugin> explodedPluginsByKey = explode(infoByKeys.values());
 
     for (PluginInfo info : infoByKeys.values()) {
       String baseKey = basePluginKey(info, infoByKeys);
@@ -85,7 +111,7 @@ public class PluginLoader {
         def = new PluginClassLoaderDef(baseKey);
         classloadersByBasePlugin.put(baseKey, def);
       }
-      ExplodedPlugin explodedPlugin = jarExploder.explode(info);
+      ExplodedPlugin explodedPlugin = explodedPluginsByKey.get(info.getKey());
       def.addFiles(Collections.singletonList(slf4jAdapter));
       def.addFiles(Collections.singletonList(explodedPlugin.getMain()));
       def.addFiles(explodedPlugin.getLibs());
@@ -104,15 +130,67 @@ public class PluginLoader {
     return classloadersByBasePlugin.values();
   }
 
+  /**
+   * Plugins are exploded in parallel, the first time they are loaded from the cache
+   */
+  private Map<String, ExplodedPlugin> explode(Collection<PluginInfo> infos) {
+    Map<String, ExplodedPlugin> explodedPluginsByKey = new HashMap<>();
+    if (infos.size() <= 1) {
+      infos.forEach(info -> explodedPluginsByKey.put(info.getKey(), jarExploder.explode(info)));
+      return explodedPluginsByKey;
+    }
+    Map<String, Future<ExplodedPlugin>> futuresByKey = new HashMap<>();
+    try {
+      for (PluginInfo info : infos) {
+        futuresByKey.put(info.getKey(), EXPLODER_EXECUTOR.submit(() -> jarExploder.explode(info)));
+      }
+      for (Map.Entry<String, Future<ExplodedPlugin>> entry : futuresByKey.entrySet()) {
+        explodedPluginsByKey.put(entry.getKey(), entry.getValue().get());
+      }
+      return explodedPluginsByKey;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while exploding plugins", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      futuresByKey.values().forEach(f -> f.cancel(true));
+    }
+  }
+
+  private static ExecutorService createExploderExecutor() {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(EXPLODER_THREADS, EXPLODER_THREADS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+      Thread thread = new Thread(r, "Plugin exploder");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * The adapter is stored in the plugin cache like other jars, so that it is extracted only once
+   */
   private File extractSlf4jAdapterJar() {
-    InputStream jarInputStream = PluginLoader.class.getResourceAsStream("/" + SLF4J_ADAPTER_JAR_NAME + ".jar");
     try {
-      File extractedJar = tempFolder.newFile(SLF4J_ADAPTER_JAR_NAME, ".jar");
-      FileUtils.copyInputStreamToFile(jarInputStream, extractedJar);
-      return extractedJar;
+      return fileCache.get(SLF4J_ADAPTER_JAR_NAME + ".jar", slf4jAdapterHash(), (filename, toFile) -> {
+        try (InputStream jarInputStream = PluginLoader.class.getResourceAsStream("/" + filename)) {
+          FileUtils.copyInputStreamToFile(jarInputStream, toFile.toFile());
+        }
+      }).toFile();
     } catch (Exception e) {
-      throw new IllegalStateException("Failed to extract the jar '" + SLF4J_ADAPTER_JAR_NAME + ".jar'");
+      throw new IllegalStateException("Failed to extract the jar '" + SLF4J_ADAPTER_JAR_NAME + ".jar'", e);
+    }
+  }
+
+  private synchronized String slf4jAdapterHash() {
+    if (slf4jAdapterHash == null) {
+      slf4jAdapterHash = new PluginHashes().of(PluginLoader.class.getResourceAsStream("/" + SLF4J_ADAPTER_JAR_NAME + ".jar"));
     }
+    return slf4jAdapterHash;
   }
 
   /**
@@ -148,6 +226,10 @@ public class PluginLoader {
   }
 
   public void unload(Collection<Plugin> plugins) {
+    if (!runtimeCache.release(plugins)) {
+      // still used by another engine
+      return;
+    }
     for (Plugin plugin : plugins) {
       ClassLoader classLoader = plugin.getClass().getClassLoader();
       if (classLoader instanceof Closeable && classLoader != classloaderFactory.baseClassLoader()) {
@@ -0,0 +1,122 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.plugin;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Keeps the manifest attributes of the plugins stored in the plugin cache in a single index file,
+ * so that plugin metadata can be read on startup without opening every jar.
+ * Jars of the cache are stored in a directory named after their hash, so entries never become stale.
+ */
+public class PluginManifestIndex {
+
+  private static final Logger LOG = Loggers.get(PluginManifestIndex.class);
+  static final String INDEX_FILENAME = "plugin_manifests.mf";
+  private static final String[] INDEXED_ATTRIBUTES = {PluginManifest.KEY_ATTRIBUTE, PluginManifest.MAIN_CLASS_ATTRIBUTE, PluginManifest.NAME_ATTRIBUTE,
+    PluginManifest.VERSION_ATTRIBUTE, PluginManifest.SONAR_VERSION_ATTRIBUTE, PluginManifest.DEPENDENCIES_ATTRIBUTE, PluginManifest.REQUIRE_PLUGINS_ATTRIBUTE,
+    PluginManifest.USE_CHILD_FIRST_CLASSLOADER, PluginManifest.BASE_PLUGIN, PluginManifest.IMPLEMENTATION_BUILD, PluginManifest.SONARLINT_SUPPORTED};
+
+  private final Path indexFile;
+  private final Manifest index;
+  private boolean modified = false;
+
+  public PluginManifestIndex(Path cacheDir) {
+    this.indexFile = cacheDir.resolve(INDEX_FILENAME);
+    this.index = read(indexFile);
+  }
+
+  private static Manifest read(Path indexFile) {
+    if (Files.exists(indexFile)) {
+      try (InputStream in = Files.newInputStream(indexFile)) {
+        return new Manifest(in);
+      } catch (Exception e) {
+        LOG.debug("Unable to read plugin manifest index, it will be rebuilt", e);
+      }
+    }
+    Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    return manifest;
+  }
+
+  public synchronized PluginManifest get(Path jarPath) {
+    String entryName = entryName(jarPath);
+    Attributes indexed = index.getAttributes(entryName);
+    if (indexed != null) {
+      Manifest manifest = new Manifest();
+      manifest.getMainAttributes().putAll(indexed);
+      return new PluginManifest(manifest);
+    }
+
+    Manifest manifest = readFromJar(jarPath);
+    Attributes attributes = new Attributes();
+    for (String name : INDEXED_ATTRIBUTES) {
+      String value = manifest.getMainAttributes().getValue(name);
+      if (value != null) {
+        attributes.putValue(name, value);
+      }
+    }
+    index.getEntries().put(entryName, attributes);
+    modified = true;
+    return new PluginManifest(manifest);
+  }
+
+  /**
+   * Writes the index if new plugins were added to it. Failures are ignored, the index will be rebuilt next time.
+   */
+  public synchronized void save() {
+    if (!modified) {
+      return;
+    }
+    try {
+      Path tmpFile = Files.createTempFile(indexFile.getParent(), INDEX_FILENAME, null);
+      try (OutputStream out = Files.newOutputStream(tmpFile)) {
+        index.write(out);
+      }
+      Files.move(tmpFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      modified = false;
+    } catch (Exception e) {
+      LOG.debug("Unable to write plugin manifest index", e);
+    }
+  }
+
+  private static Manifest readFromJar(Path jarPath) {
+    try (JarFile jar = new JarFile(jarPath.toFile())) {
+      Manifest manifest = jar.getManifest();
+      return manifest != null ? manifest : new Manifest();
+    } catch (Exception e) {
+      throw new IllegalStateException("Unable to read plugin manifest from jar : " + jarPath.toAbsolutePath(), e);
+    }
+  }
+
+  private static String entryName(Path jarPath) {
+    Path parent = jarPath.getParent();
+    return (parent != null && parent.getFileName() != null ? parent.getFileName().toString() : "") + "/" + jarPath.getFileName();
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.plugin;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import javax.annotation.concurrent.ThreadSafe;
+import org.sonar.api.Plugin;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Process-wide cache of loaded plugins. Engines running in the same JVM with the same set of plugin jars
+ * (for example a standalone engine and several connected engines in an IDE) share the plugin classloaders and
+ * {@link Plugin} instances instead of loading the same analyzers several times.
+ * <p/>
+ * Entries are reference counted: classloaders must only be closed when the last engine using them releases them.
+ * Plugins are loaded outside of the lock, so that engines using other plugins don't wait. Engines requesting plugins that are
+ * being loaded wait for them.
+ */
+@ThreadSafe
+public class PluginRuntimeCache {
+
+  private static final Logger LOG = Loggers.get(PluginRuntimeCache.class);
+  private static final PluginRuntimeCache INSTANCE = new PluginRuntimeCache();
+
+  private final Map<Set<String>, Entry> entries = new HashMap<>();
+
+  public static PluginRuntimeCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the plugin instances already loaded for the same plugin jars, or loads them with the given loader.
+   */
+  public Map<String, Plugin> acquire(Map<String, PluginInfo> infosByKey, Function<Map<String, PluginInfo>, Map<String, Plugin>> loader) {
+    Set<String> key = key(infosByKey.values());
+    Entry entry;
+    boolean load;
+    synchronized (this) {
+      entry = entries.get(key);
+      load = entry == null;
+      if (load) {
+        entry = new Entry();
+        entries.put(key, entry);
+      } else {
+        LOG.debug("Reusing plugins already loaded by another engine");
+      }
+      entry.refCount++;
+    }
+    if (load) {
+      try {
+        entry.instancesByKey.complete(loader.apply(infosByKey));
+      } catch (RuntimeException e) {
+        synchronized (this) {
+          entries.remove(key, entry);
+        }
+        entry.instancesByKey.completeExceptionally(e);
+        throw e;
+      }
+    }
+    try {
+      return entry.instancesByKey.join();
+    } catch (CompletionException e) {
+      // loading failed in another engine
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+    }
+  }
+
+  /**
+   * @return true if the plugins are no longer used by any engine, meaning that their classloaders can be closed.
+   * Plugins that were not acquired through this cache are always considered as unused.
+   */
+  public synchronized boolean release(Collection<Plugin> plugins) {
+    if (plugins.isEmpty()) {
+      return true;
+    }
+    Plugin anyPlugin = plugins.iterator().next();
+    Iterator<Entry> it = entries.values().iterator();
+    while (it.hasNext()) {
+      Entry entry = it.next();
+      // plugins still being loaded can't be released
+      Map<String, Plugin> instancesByKey = entry.instancesByKey.getNow(null);
+      if (instancesByKey != null && instancesByKey.values().stream().anyMatch(p -> p == anyPlugin)) {
+        entry.refCount--;
+        if (entry.refCount > 0) {
+          return false;
+        }
+        it.remove();
+        return true;
+      }
+    }
+    return true;
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Jars stored in the plugin cache are located in a directory named after their hash,
+   * so the key identifies the content of the jars.
+   */
+  private static Set<String> key(Collection<PluginInfo> infos) {
+    Set<String> key = new TreeSet<>();
+    for (PluginInfo info : infos) {
+      File jar = info.getNonNullJarFile();
+      File parent = jar.getParentFile();
+      key.add(info.getKey() + ":" + (parent != null ? parent.getName() : "") + "/" + jar.getName());
+    }
+    return key;
+  }
+
+  private static class Entry {
+    private final CompletableFuture<Map<String, Plugin>> instancesByKey = new CompletableFuture<>();
+    private int refCount;
+  }
+}
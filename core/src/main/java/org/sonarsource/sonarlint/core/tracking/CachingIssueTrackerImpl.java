@@ -24,10 +24,17 @@ import java.util.Collections;
 
 public class CachingIssueTrackerImpl extends IssueTrackerImpl implements CachingIssueTracker {
 
+  private static final int LOCK_STRIPES = 64;
+
   private final IssueTrackerCache cache;
+  // matching of a file must not interleave with another matching of the same file, but different files can be matched concurrently
+  private final Object[] locks = new Object[LOCK_STRIPES];
 
   public CachingIssueTrackerImpl(IssueTrackerCache cache) {
     this.cache = cache;
+    for (int i = 0; i < locks.length; i++) {
+      locks[i] = new Object();
+    }
   }
 
   /**
@@ -36,32 +43,40 @@ public class CachingIssueTrackerImpl extends IssueTrackerImpl implements Caching
    * If this is the first analysis, leave creation date as null.
    */
   @Override
-  public synchronized Collection<Trackable> matchAndTrackAsNew(String file, Collection<Trackable> trackables) {
-    Collection<Trackable> tracked;
-    if (cache.isFirstAnalysis(file)) {
-      tracked = trackables;
-    } else {
-      tracked = apply(cache.getCurrentTrackables(file), trackables, false);
+  public Collection<Trackable> matchAndTrackAsNew(String file, Collection<Trackable> trackables) {
+    synchronized (lockFor(file)) {
+      Collection<Trackable> tracked;
+      if (cache.isFirstAnalysis(file)) {
+        tracked = trackables;
+      } else {
+        tracked = apply(cache.getCurrentTrackables(file), trackables, false);
+      }
+      cache.put(file, tracked);
+      return tracked;
     }
-    cache.put(file, tracked);
-    return tracked;
   }
 
   /**
    * {@inheritDoc}
    */
   @Override
-  public synchronized Collection<Trackable> matchAndTrackAsBase(String file, Collection<Trackable> trackables) {
-    // store issues (ProtobufIssueTrackable) are of no use since they can't be used in markers. There should have been
-    // an analysis before that set the live issues for the file (even if it is empty)
-    Collection<Trackable> current = cache.getLiveOrFail(file);
-    if (current.isEmpty()) {
-      // whatever is the base, if current is empty, then nothing to do
-      return Collections.emptyList();
+  public Collection<Trackable> matchAndTrackAsBase(String file, Collection<Trackable> trackables) {
+    synchronized (lockFor(file)) {
+      // store issues (ProtobufIssueTrackable) are of no use since they can't be used in markers. There should have been
+      // an analysis before that set the live issues for the file (even if it is empty)
+      Collection<Trackable> current = cache.getLiveOrFail(file);
+      if (current.isEmpty()) {
+        // whatever is the base, if current is empty, then nothing to do
+        return Collections.emptyList();
+      }
+      Collection<Trackable> tracked = apply(trackables, current, true);
+      cache.put(file, tracked);
+      return tracked;
     }
-    Collection<Trackable> tracked = apply(trackables, current, true);
-    cache.put(file, tracked);
-    return tracked;
+  }
+
+  private Object lockFor(String file) {
+    return locks[(file.hashCode() & Integer.MAX_VALUE) % locks.length];
   }
 
   public void clear() {
@@ -52,6 +52,13 @@ public class InMemoryIssueTrackerCache implements IssueTrackerCache {
     cache.put(file, trackables);
   }
 
+  /**
+   * Forget the trackables of the given file.
+   */
+  public void remove(String file) {
+    cache.remove(file);
+  }
+
   @Override
   public void clear() {
     cache.clear();
@@ -21,6 +21,7 @@ package org.sonarsource.sonarlint.core.tracking;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedSonarLintEngine;
@@ -40,19 +41,42 @@ public class ServerIssueTracker {
   }
 
   public void update(ServerConfiguration serverConfiguration, ConnectedSonarLintEngine engine, ProjectBinding projectBinding, Collection<String> fileKeys) {
-    update(fileKeys, fileKey -> fetchServerIssues(serverConfiguration, engine, projectBinding, fileKey));
+    updateWithServerTrackables(fileKeys, fileKey -> toTrackables(fetchServerIssues(serverConfiguration, engine, projectBinding, fileKey)));
   }
 
   public void update(ConnectedSonarLintEngine engine, ProjectBinding projectBinding, Collection<String> fileKeys) {
-    update(fileKeys, fileKey -> engine.getServerIssues(projectBinding, fileKey));
+    updateWithServerTrackables(fileKeys, fileKey -> toTrackables(engine.getServerIssues(projectBinding, fileKey)));
   }
 
-  private void update(Collection<String> fileKeys, Function<String, List<ServerIssue>> issueGetter) {
+  /**
+   * Match many files at once, for example after a project-wide synchronization. Server issues of all files are read from the
+   * storage in a single pass, then files are matched in parallel.
+   */
+  public void updateAll(ConnectedSonarLintEngine engine, ProjectBinding projectBinding, Collection<String> fileKeys) {
+    Map<String, List<ServerIssue>> serverIssuesByFile;
+    try {
+      serverIssuesByFile = engine.getServerIssuesForFiles(projectBinding, fileKeys);
+    } catch (Exception e) {
+      logger.error("error while fetching server issues", e);
+      return;
+    }
+    serverIssuesByFile.entrySet().parallelStream().forEach(entry -> {
+      try {
+        issueTracker.matchAndTrackAsBase(entry.getKey(), toTrackables(entry.getValue()));
+      } catch (Exception e) {
+        logger.error("error while matching server issues of " + entry.getKey(), e);
+      }
+    });
+  }
+
+  /**
+   * Match the current trackables of the given files against server trackables supplied by the caller, which may have
+   * been read once and kept in memory.
+   */
+  public void updateWithServerTrackables(Collection<String> fileKeys, Function<String, Collection<Trackable>> serverTrackablesGetter) {
     try {
       for (String fileKey : fileKeys) {
-        List<ServerIssue> serverIssues = issueGetter.apply(fileKey);
-        Collection<Trackable> serverIssuesTrackable = serverIssues.stream().map(ServerIssueTrackable::new).collect(Collectors.toList());
-        issueTracker.matchAndTrackAsBase(fileKey, serverIssuesTrackable);
+        issueTracker.matchAndTrackAsBase(fileKey, serverTrackablesGetter.apply(fileKey));
       }
     } catch (Exception e) {
       String message = "error while fetching and matching server issues";
@@ -60,7 +84,11 @@ public class ServerIssueTracker {
     }
   }
 
-  private List<ServerIssue> fetchServerIssues(ServerConfiguration serverConfiguration, ConnectedSonarLintEngine engine,
+  public static Collection<Trackable> toTrackables(List<ServerIssue> serverIssues) {
+    return serverIssues.stream().map(ServerIssueTrackable::new).collect(Collectors.toList());
+  }
+
+  public List<ServerIssue> fetchServerIssues(ServerConfiguration serverConfiguration, ConnectedSonarLintEngine engine,
     ProjectBinding projectBinding, String fileKey) {
     try {
       logger.debug("fetchServerIssues projectKey=" + projectBinding.projectKey() + ", fileKey=" + fileKey);
@@ -19,76 +19,245 @@
  */
 package org.sonarsource.sonarlint.core.util;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Trie of '/'-separated paths indexed from their last segment, used to find which indexed paths share the longest suffix with a given path.
+ * Segments are interned, and nodes are stored in arrays: node 0 is the root, children are chained in insertion order and found
+ * through a hash table keyed by parent node and segment. Prefixes collected for a node are cached until the next call to {@link #index(String)}.
+ */
 public class ReversePathTree {
-  private Node root = new Node();
+  private static final int[] NO_SEGMENTS = new int[0];
+
+  private final Map<String, Integer> segmentIds = new HashMap<>();
+  private final List<String> segments = new ArrayList<>();
+
+  private int nodeCount = 1;
+  private int[] nodeSegment = new int[16];
+  private int[] firstChild = new int[16];
+  private int[] lastChild = new int[16];
+  private int[] nextSibling = new int[16];
+  private final BitSet terminal = new BitSet();
+  private final ChildTable childTable = new ChildTable();
 
-  public void index(Path path) {
-    Node currentNode = root;
+  private List<String>[] prefixCache = newPrefixCache(16);
+  private boolean hasCachedPrefixes = false;
 
-    for (int i = path.getNameCount() - 1; i >= 0; i--) {
-      currentNode = currentNode.children.computeIfAbsent(path.getName(i).toString(), e -> new Node());
+  public ReversePathTree() {
+    Arrays.fill(firstChild, -1);
+    Arrays.fill(lastChild, -1);
+    Arrays.fill(nextSibling, -1);
+  }
+
+  public synchronized void index(String path) {
+    int currentNode = 0;
+    int end = path.length();
+    while (end > 0) {
+      int start = path.lastIndexOf('/', end - 1) + 1;
+      if (start < end) {
+        int segment = internSegment(path.substring(start, end));
+        int child = childTable.get(currentNode, segment);
+        currentNode = child >= 0 ? child : addChild(currentNode, segment);
+      }
+      end = start - 1;
+    }
+    terminal.set(currentNode);
+    if (hasCachedPrefixes) {
+      Arrays.fill(prefixCache, null);
+      hasCachedPrefixes = false;
     }
-    currentNode.terminal = true;
   }
 
-  public Match findLongestSuffixMatches(Path path) {
-    Node currentNode = root;
+  public synchronized Match findLongestSuffixMatches(String path) {
+    int[] pathSegments = segmentIdsOf(path);
+    int currentNode = 0;
     int matchLen = 0;
 
-    while (matchLen < path.getNameCount()) {
-      String nextEl = path.getName(path.getNameCount() - matchLen - 1).toString();
-      Node nextNode = currentNode.children.get(nextEl);
-      if (nextNode == null) {
+    while (matchLen < pathSegments.length) {
+      int segment = pathSegments[pathSegments.length - matchLen - 1];
+      int nextNode = segment < 0 ? -1 : childTable.get(currentNode, segment);
+      if (nextNode < 0) {
         break;
       }
       matchLen++;
       currentNode = nextNode;
     }
 
-    return collectAllPrefixes(currentNode, matchLen);
+    return new Match(matchLen > 0 ? prefixes(currentNode) : Collections.emptyList(), matchLen);
   }
 
-  private static Match collectAllPrefixes(Node node, int matchLen) {
-    List<Path> paths = new ArrayList<>();
-    if (matchLen > 0) {
-      collectPrefixes(node, Paths.get(""), paths);
+  /**
+   * Ids of the segments of the given path, or -1 for segments never indexed: such a segment can't be part of a match.
+   */
+  private int[] segmentIdsOf(String path) {
+    List<String> names = new ArrayList<>();
+    int start = 0;
+    while (start <= path.length()) {
+      int end = path.indexOf('/', start);
+      if (end < 0) {
+        end = path.length();
+      }
+      if (start < end) {
+        names.add(path.substring(start, end));
+      }
+      start = end + 1;
+    }
+    if (names.isEmpty()) {
+      return NO_SEGMENTS;
+    }
+    int[] ids = new int[names.size()];
+    for (int i = 0; i < ids.length; i++) {
+      Integer id = segmentIds.get(names.get(i));
+      ids[i] = id != null ? id : -1;
     }
-    return new Match(paths, matchLen);
+    return ids;
   }
 
-  private static void collectPrefixes(Node node, Path currentPath, List<Path> paths) {
-    if (node.children.isEmpty() || node.terminal) {
-      paths.add(currentPath);
+  private List<String> prefixes(int node) {
+    List<String> cached = prefixCache[node];
+    if (cached != null) {
+      return cached;
     }
+    List<String> paths = new ArrayList<>();
+    if (firstChild[node] < 0 || terminal.get(node)) {
+      paths.add("");
+    }
+    for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+      String childSegment = segments.get(nodeSegment[child]);
+      for (String childPrefix : prefixes(child)) {
+        paths.add(childPrefix.isEmpty() ? childSegment : (childPrefix + "/" + childSegment));
+      }
+    }
+    List<String> result = Collections.unmodifiableList(paths);
+    prefixCache[node] = result;
+    hasCachedPrefixes = true;
+    return result;
+  }
+
+  private int internSegment(String segment) {
+    return segmentIds.computeIfAbsent(segment, s -> {
+      segments.add(s);
+      return segments.size() - 1;
+    });
+  }
 
-    for (Map.Entry<String, Node> child : node.children.entrySet()) {
-      Path childPath = Paths.get(child.getKey()).resolve(currentPath);
-      collectPrefixes(child.getValue(), childPath, paths);
+  private int addChild(int parent, int segment) {
+    int node = nodeCount++;
+    if (node == nodeSegment.length) {
+      grow();
+    }
+    nodeSegment[node] = segment;
+    if (lastChild[parent] < 0) {
+      firstChild[parent] = node;
+    } else {
+      nextSibling[lastChild[parent]] = node;
     }
+    lastChild[parent] = node;
+    childTable.put(parent, segment, node);
+    return node;
+  }
+
+  private void grow() {
+    int oldLength = nodeSegment.length;
+    int newLength = oldLength * 2;
+    nodeSegment = Arrays.copyOf(nodeSegment, newLength);
+    firstChild = grow(firstChild, newLength);
+    lastChild = grow(lastChild, newLength);
+    nextSibling = grow(nextSibling, newLength);
+    prefixCache = Arrays.copyOf(prefixCache, newLength);
+  }
+
+  private static int[] grow(int[] array, int newLength) {
+    int[] grown = Arrays.copyOf(array, newLength);
+    Arrays.fill(grown, array.length, newLength, -1);
+    return grown;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<String>[] newPrefixCache(int size) {
+    return new List[size];
   }
 
-  private static class Node {
-    boolean terminal = false;
-    Map<String, Node> children = new LinkedHashMap<>();
+  /**
+   * Open addressing table from (parent node, segment) to child node.
+   */
+  private static class ChildTable {
+    private long[] keys = new long[32];
+    private int[] values = new int[32];
+    private int size = 0;
+
+    ChildTable() {
+      Arrays.fill(keys, -1L);
+    }
+
+    int get(int parent, int segment) {
+      long key = key(parent, segment);
+      int mask = keys.length - 1;
+      for (int slot = hash(key) & mask; keys[slot] != -1L; slot = (slot + 1) & mask) {
+        if (keys[slot] == key) {
+          return values[slot];
+        }
+      }
+      return -1;
+    }
+
+    void put(int parent, int segment, int child) {
+      if ((size + 1) * 2 > keys.length) {
+        rehash(keys.length * 2);
+      }
+      insert(key(parent, segment), child);
+      size++;
+    }
+
+    private void insert(long key, int value) {
+      int mask = keys.length - 1;
+      int slot = hash(key) & mask;
+      while (keys[slot] != -1L) {
+        slot = (slot + 1) & mask;
+      }
+      keys[slot] = key;
+      values[slot] = value;
+    }
+
+    private void rehash(int newCapacity) {
+      long[] oldKeys = keys;
+      int[] oldValues = values;
+      keys = new long[newCapacity];
+      values = new int[newCapacity];
+      Arrays.fill(keys, -1L);
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != -1L) {
+          insert(oldKeys[i], oldValues[i]);
+        }
+      }
+    }
+
+    private static long key(int parent, int segment) {
+      return ((long) parent << 32) | (segment & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long key) {
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32));
+    }
   }
 
   public static class Match {
-    private List<Path> paths;
+    private List<String> paths;
     private int matchLen;
 
-    private Match(List<Path> paths, int matchLen) {
+    private Match(List<String> paths, int matchLen) {
       this.paths = paths;
       this.matchLen = matchLen;
     }
 
-    public List<Path> matchPrefixes() {
+    public List<String> matchPrefixes() {
       return paths;
     }
 
@@ -19,22 +19,205 @@
  */
 package org.sonarsource.sonarlint.core.analyzer.sensor;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.batch.fs.InputComponent;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.Rules;
+import org.sonar.api.batch.rule.internal.DefaultRule;
 import org.sonar.api.batch.sensor.code.internal.DefaultSignificantCode;
 import org.sonar.api.batch.sensor.coverage.internal.DefaultCoverage;
 import org.sonar.api.batch.sensor.cpd.internal.DefaultCpdTokens;
 import org.sonar.api.batch.sensor.highlighting.internal.DefaultHighlighting;
 import org.sonar.api.batch.sensor.issue.ExternalIssue;
+import org.sonar.api.batch.sensor.issue.Issue;
+import org.sonar.api.batch.sensor.issue.IssueLocation;
 import org.sonar.api.batch.sensor.measure.Measure;
 import org.sonar.api.batch.sensor.symbol.internal.DefaultSymbolTable;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.MessageException;
+import org.sonarsource.sonarlint.core.analyzer.issue.IssueFilters;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
 
 public class DefaultSensorStorageTest {
 
   private final DefaultSensorStorage underTest = new DefaultSensorStorage(null, null, null, null, null);
 
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void store_Issue_resolves_rules_once_and_notifies_listener() {
+    RuleKey active = RuleKey.of("repo", "active");
+    RuleKey inactive = RuleKey.of("repo", "inactive");
+    DefaultRule activeRuleDefinition = rule("Active rule");
+    DefaultRule inactiveRuleDefinition = rule("Inactive rule");
+    Rules rules = mock(Rules.class);
+    when(rules.find(active)).thenReturn(activeRuleDefinition);
+    when(rules.find(inactive)).thenReturn(inactiveRuleDefinition);
+    ActiveRules activeRules = mock(ActiveRules.class);
+    ActiveRule activeRule = mock(ActiveRule.class);
+    when(activeRule.severity()).thenReturn("MAJOR");
+    when(activeRules.find(active)).thenReturn(activeRule);
+    List<org.sonarsource.sonarlint.core.client.api.common.analysis.Issue> issues = new ArrayList<>();
+    DefaultSensorStorage storage = new DefaultSensorStorage(activeRules, rules, new IssueFilters(), issues::add, new DefaultAnalysisResult());
+
+    storage.store(issue(active, "msg"));
+    storage.store(issue(active, null));
+    storage.store(issue(inactive, "msg"));
+
+    assertThat(issues).extracting("message", "severity").containsExactly(tuple("msg", "MAJOR"), tuple("Active rule", "MAJOR"));
+    verify(rules, times(1)).find(active);
+    verify(activeRules, times(1)).find(active);
+  }
+
+  @Test
+  public void store_Issue_fails_on_unknown_rule() {
+    DefaultSensorStorage storage = new DefaultSensorStorage(mock(ActiveRules.class), mock(Rules.class), new IssueFilters(), i -> {
+    }, new DefaultAnalysisResult());
+
+    thrown.expect(MessageException.class);
+    thrown.expectMessage("The rule 'repo:unknown' does not exist.");
+    storage.store(issue(RuleKey.of("repo", "unknown"), "msg"));
+  }
+
+  @Test
+  public void store_Issue_from_concurrent_sensors_notifies_listener_serially() throws Exception {
+    RuleKey key = RuleKey.of("repo", "active");
+    DefaultRule rule = rule("Active rule");
+    ActiveRule activeRule = mock(ActiveRule.class);
+    Rules rules = mock(Rules.class);
+    when(rules.find(key)).thenReturn(rule);
+    ActiveRules activeRules = mock(ActiveRules.class);
+    when(activeRules.find(key)).thenReturn(activeRule);
+    AtomicInteger inListener = new AtomicInteger();
+    AtomicInteger maxInListener = new AtomicInteger();
+    AtomicInteger received = new AtomicInteger();
+    DefaultSensorStorage storage = new DefaultSensorStorage(activeRules, rules, new IssueFilters(), i -> {
+      maxInListener.accumulateAndGet(inListener.incrementAndGet(), Math::max);
+      received.incrementAndGet();
+      inListener.decrementAndGet();
+    }, new DefaultAnalysisResult());
+    Issue issue = issue(key, "msg");
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    for (int i = 0; i < 1000; i++) {
+      executor.submit(() -> storage.store(issue));
+    }
+    executor.shutdown();
+    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(received.get()).isEqualTo(1000);
+    assertThat(maxInListener.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void store_Issue_keeps_notifying_listener_after_failure_and_reports_it_to_the_storing_thread() throws Exception {
+    RuleKey key = RuleKey.of("repo", "active");
+    DefaultRule rule = rule("Active rule");
+    Rules rules = mock(Rules.class);
+    when(rules.find(key)).thenReturn(rule);
+    ActiveRules activeRules = mock(ActiveRules.class);
+    when(activeRules.find(key)).thenReturn(mock(ActiveRule.class));
+    Queue<String> received = new ConcurrentLinkedQueue<>();
+    DefaultSensorStorage storage = new DefaultSensorStorage(activeRules, rules, new IssueFilters(), i -> {
+      if ("fail".equals(i.getMessage())) {
+        throw new IllegalStateException("listener failure");
+      }
+      received.add(i.getMessage());
+    }, new DefaultAnalysisResult());
+    Issue failing = issue(key, "fail");
+    Issue ok = issue(key, "ok");
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    Future<List<Exception>> failingThread = executor.submit(() -> storeAll(storage, failing, ok));
+    Future<List<Exception>> otherThread = executor.submit(() -> storeAll(storage, ok, ok));
+    executor.shutdown();
+    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    List<Exception> failures = new ArrayList<>(failingThread.get());
+    try {
+      storage.flush();
+    } catch (IllegalStateException e) {
+      failures.add(e);
+    }
+
+    assertThat(received).hasSize(999);
+    assertThat(failures).extracting(Exception::getMessage).containsExactly("listener failure");
+    assertThat(otherThread.get()).isEmpty();
+  }
+
+  private static List<Exception> storeAll(DefaultSensorStorage storage, Issue first, Issue others) {
+    List<Exception> failures = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      try {
+        storage.store(i == 0 ? first : others);
+      } catch (IllegalStateException e) {
+        failures.add(e);
+      }
+    }
+    return failures;
+  }
+
+  @Test
+  public void store_Issue_does_not_notify_listener_once_cancelled() {
+    RuleKey key = RuleKey.of("repo", "active");
+    DefaultRule rule = rule("Active rule");
+    Rules rules = mock(Rules.class);
+    when(rules.find(key)).thenReturn(rule);
+    ActiveRules activeRules = mock(ActiveRules.class);
+    when(activeRules.find(key)).thenReturn(mock(ActiveRule.class));
+    ProgressMonitor monitor = mock(ProgressMonitor.class);
+    List<org.sonarsource.sonarlint.core.client.api.common.analysis.Issue> issues = new ArrayList<>();
+    DefaultSensorStorage storage = new DefaultSensorStorage(activeRules, rules, new IssueFilters(), issues::add, new DefaultAnalysisResult(),
+      new ProgressWrapper(monitor));
+
+    storage.store(issue(key, "before"));
+    when(monitor.isCanceled()).thenReturn(true);
+    storage.store(issue(key, "after"));
+
+    assertThat(issues).extracting("message").containsExactly("before");
+  }
+
+  private static DefaultRule rule(String name) {
+    DefaultRule rule = mock(DefaultRule.class);
+    when(rule.name()).thenReturn(name);
+    return rule;
+  }
+
+  private static Issue issue(RuleKey ruleKey, @Nullable String message) {
+    IssueLocation location = mock(IssueLocation.class);
+    when(location.message()).thenReturn(message);
+    when(location.inputComponent()).thenReturn(mock(InputComponent.class));
+    Issue issue = mock(Issue.class);
+    when(issue.ruleKey()).thenReturn(ruleKey);
+    when(issue.primaryLocation()).thenReturn(location);
+    when(issue.flows()).thenReturn(Collections.emptyList());
+    return issue;
+  }
+
   @Test
   public void store_Measure_doesnt_interact_with_its_param() {
     Measure measure = mock(Measure.class);
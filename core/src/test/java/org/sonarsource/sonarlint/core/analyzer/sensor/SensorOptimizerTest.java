@@ -23,35 +23,31 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
-import org.junit.rules.TemporaryFolder;
 import org.sonar.api.batch.fs.InputFile;
-import org.sonar.api.batch.fs.internal.DefaultFileSystem;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.rule.ActiveRules;
 import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
 import org.sonar.api.batch.sensor.internal.DefaultSensorDescriptor;
 import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.rule.RuleKey;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.InputPathCache;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class SensorOptimizerTest {
 
-  @Rule
-  public TemporaryFolder temp = new TemporaryFolder();
-
   @Rule
   public ExpectedException thrown = ExpectedException.none();
 
-  private DefaultFileSystem fs;
+  private InputPathCache cache;
   private SensorOptimizer optimizer;
   private MapSettings settings;
 
   @Before
-  public void prepare() throws Exception {
-    fs = new DefaultFileSystem(temp.newFolder().toPath());
+  public void prepare() {
+    cache = new InputPathCache();
     settings = new MapSettings();
-    optimizer = new SensorOptimizer(fs, new ActiveRulesBuilder().build(), settings.asConfig());
+    optimizer = new SensorOptimizer(new ActiveRulesBuilder().build(), settings.asConfig(), cache);
   }
 
   @Test
@@ -67,7 +63,7 @@ public class SensorOptimizerTest {
       .onlyOnLanguages("java", "php");
     assertThat(optimizer.shouldExecute(descriptor)).isFalse();
 
-    fs.add(new TestInputFileBuilder("foo", "src/Foo.java").setLanguage("java").build());
+    cache.doAdd(new TestInputFileBuilder("foo", "src/Foo.java").setLanguage("java").build());
     assertThat(optimizer.shouldExecute(descriptor)).isTrue();
   }
 
@@ -77,10 +73,10 @@ public class SensorOptimizerTest {
       .onlyOnFileType(InputFile.Type.MAIN);
     assertThat(optimizer.shouldExecute(descriptor)).isFalse();
 
-    fs.add(new TestInputFileBuilder("foo", "tests/FooTest.java").setType(InputFile.Type.TEST).build());
+    cache.doAdd(new TestInputFileBuilder("foo", "tests/FooTest.java").setType(InputFile.Type.TEST).build());
     assertThat(optimizer.shouldExecute(descriptor)).isFalse();
 
-    fs.add(new TestInputFileBuilder("foo", "src/Foo.java").setType(InputFile.Type.MAIN).build());
+    cache.doAdd(new TestInputFileBuilder("foo", "src/Foo.java").setType(InputFile.Type.MAIN).build());
     assertThat(optimizer.shouldExecute(descriptor)).isTrue();
   }
 
@@ -91,11 +87,11 @@ public class SensorOptimizerTest {
       .onlyOnFileType(InputFile.Type.MAIN);
     assertThat(optimizer.shouldExecute(descriptor)).isFalse();
 
-    fs.add(new TestInputFileBuilder("foo", "tests/FooTest.java").setLanguage("java").setType(InputFile.Type.TEST).build());
-    fs.add(new TestInputFileBuilder("foo", "src/Foo.cbl").setLanguage("cobol").setType(InputFile.Type.MAIN).build());
+    cache.doAdd(new TestInputFileBuilder("foo", "tests/FooTest.java").setLanguage("java").setType(InputFile.Type.TEST).build());
+    cache.doAdd(new TestInputFileBuilder("foo", "src/Foo.cbl").setLanguage("cobol").setType(InputFile.Type.MAIN).build());
     assertThat(optimizer.shouldExecute(descriptor)).isFalse();
 
-    fs.add(new TestInputFileBuilder("foo", "src/Foo.java").setLanguage("java").setType(InputFile.Type.MAIN).build());
+    cache.doAdd(new TestInputFileBuilder("foo", "src/Foo.java").setLanguage("java").setType(InputFile.Type.MAIN).build());
     assertThat(optimizer.shouldExecute(descriptor)).isTrue();
   }
 
@@ -109,7 +105,7 @@ public class SensorOptimizerTest {
       .create(RuleKey.of("repo1", "foo"))
       .activate()
       .build();
-    optimizer = new SensorOptimizer(fs, activeRules, settings.asConfig());
+    optimizer = new SensorOptimizer(activeRules, settings.asConfig(), cache);
 
     assertThat(optimizer.shouldExecute(descriptor)).isFalse();
 
@@ -119,7 +115,7 @@ public class SensorOptimizerTest {
       .create(RuleKey.of("squid", "rule"))
       .activate()
       .build();
-    optimizer = new SensorOptimizer(fs, activeRules, settings.asConfig());
+    optimizer = new SensorOptimizer(activeRules, settings.asConfig(), cache);
     assertThat(optimizer.shouldExecute(descriptor)).isTrue();
   }
 
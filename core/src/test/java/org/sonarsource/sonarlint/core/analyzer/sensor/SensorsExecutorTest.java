@@ -0,0 +1,138 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.analyzer.sensor;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.batch.Phase;
+import org.sonar.api.batch.sensor.Sensor;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.SensorDescriptor;
+import org.sonar.api.batch.sensor.internal.DefaultSensorDescriptor;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisMetrics;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SensorsExecutorTest {
+
+  private final List<String> executed = new ArrayList<>();
+  private final SensorExecutionPlanCache planCache = new SensorExecutionPlanCache();
+  private final DefaultAnalysisResult analysisResult = new DefaultAnalysisResult();
+  private SensorOptimizer optimizer;
+
+  @Before
+  public void prepare() {
+    optimizer = mock(SensorOptimizer.class);
+    when(optimizer.shouldExecute(any(DefaultSensorDescriptor.class))).thenReturn(true);
+  }
+
+  @Test
+  public void execute_sensors_by_phase() {
+    newExecutor(new DefaultSensor(), new PostSensor(), new PreSensor()).execute();
+
+    assertThat(executed).containsExactly("pre", "default", "post");
+    assertThat(analysisResult.metrics().sensorMetrics()).containsOnlyKeys("pre", "default", "post");
+  }
+
+  @Test
+  public void record_sensor_metrics() {
+    newExecutor(new DefaultSensor()).execute();
+    newExecutor(new DefaultSensor()).execute();
+
+    AnalysisMetrics.SensorMetrics metrics = analysisResult.metrics().sensorMetrics().get("default");
+    assertThat(metrics.wallTime()).isNotNegative();
+    assertThat(metrics.cpuTime()).isGreaterThanOrEqualTo(-1);
+    assertThat(metrics.allocatedBytes()).isGreaterThanOrEqualTo(-1);
+  }
+
+  @Test
+  public void reuse_plan_for_new_instances_of_same_sensors() {
+    DefaultSensor first = new DefaultSensor();
+    newExecutor(first, new PreSensor()).execute();
+    DefaultSensor second = new DefaultSensor();
+    newExecutor(second, new PreSensor()).execute();
+
+    assertThat(first.describeCount).isEqualTo(1);
+    assertThat(second.describeCount).isZero();
+    assertThat(second.executeCount).isEqualTo(1);
+    assertThat(planCache.size()).isEqualTo(1);
+    assertThat(executed).containsExactly("pre", "default", "pre", "default");
+
+    newExecutor(new DefaultSensor()).execute();
+    assertThat(planCache.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void skip_sensors_rejected_by_optimizer() {
+    when(optimizer.shouldExecute(any(DefaultSensorDescriptor.class))).thenReturn(false);
+    newExecutor(new DefaultSensor()).execute();
+
+    assertThat(executed).isEmpty();
+    assertThat(analysisResult.metrics().sensorMetrics()).isEmpty();
+  }
+
+  private SensorsExecutor newExecutor(Sensor... sensors) {
+    return new SensorsExecutor(mock(DefaultSensorContext.class), optimizer, new ProgressWrapper(null), planCache, analysisResult, sensors);
+  }
+
+  private class DefaultSensor implements Sensor {
+    int describeCount;
+    int executeCount;
+
+    String name() {
+      return "default";
+    }
+
+    @Override
+    public void describe(SensorDescriptor descriptor) {
+      describeCount++;
+      descriptor.name(name());
+    }
+
+    @Override
+    public void execute(SensorContext context) {
+      executeCount++;
+      executed.add(name());
+    }
+  }
+
+  @Phase(name = Phase.Name.PRE)
+  private class PreSensor extends DefaultSensor {
+    @Override
+    String name() {
+      return "pre";
+    }
+  }
+
+  @Phase(name = Phase.Name.POST)
+  private class PostSensor extends DefaultSensor {
+    @Override
+    String name() {
+      return "post";
+    }
+  }
+}
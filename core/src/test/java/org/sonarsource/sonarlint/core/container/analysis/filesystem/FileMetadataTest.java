@@ -19,9 +19,11 @@
  */
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.commons.io.FileUtils;
 import org.junit.AfterClass;
 import org.junit.Rule;
@@ -30,6 +32,9 @@ import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -175,6 +180,40 @@ public class FileMetadataTest {
     assertThat(metadata.originalLineOffsets).containsOnly(0, 4, 9);
   }
 
+  @Test
+  public void in_memory_content() {
+    String content = "föo\nbar\r\n\u1D11Ebaz";
+
+    FileMetadata.Metadata metadata = new FileMetadata().readMetadata(content, StandardCharsets.UTF_8, "foo.txt");
+    FileMetadata.Metadata fromStream = new FileMetadata().readMetadata(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8,
+      "foo.txt");
+    assertThat(metadata.lines).isEqualTo(3).isEqualTo(fromStream.lines);
+    assertThat(metadata.originalLineOffsets).containsExactly(0, 4, 9).containsExactly(fromStream.originalLineOffsets);
+    assertThat(metadata.lastValidOffset).isEqualTo(14).isEqualTo(fromStream.lastValidOffset);
+  }
+
+  @Test
+  public void stop_reading_when_cancelled() {
+    AtomicInteger checks = new AtomicInteger();
+    ProgressMonitor cancelAfterFirstCheck = new ProgressMonitor() {
+      @Override
+      public boolean isCanceled() {
+        return checks.incrementAndGet() > 1;
+      }
+    };
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 100_000; i++) {
+      content.append("line\n");
+    }
+
+    thrown.expect(CanceledException.class);
+    try {
+      new FileMetadata(new ProgressWrapper(cancelAfterFirstCheck)).readMetadata(content, StandardCharsets.UTF_8, "foo.txt");
+    } finally {
+      assertThat(checks.get()).isEqualTo(2);
+    }
+  }
+
   @Test
   public void start_with_newline() throws Exception {
     File tempFile = temp.newFile();
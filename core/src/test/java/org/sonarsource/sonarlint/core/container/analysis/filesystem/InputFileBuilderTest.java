@@ -20,6 +20,7 @@
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -31,6 +32,8 @@ import org.junit.rules.TemporaryFolder;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonarsource.sonarlint.core.TestClientInputFile;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.InMemoryClientInputFile;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -56,7 +59,7 @@ public class InputFileBuilderTest {
     Files.write(path, "test".getBytes(StandardCharsets.ISO_8859_1));
     ClientInputFile file = new TestClientInputFile(path, "file", true, StandardCharsets.ISO_8859_1);
 
-    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata);
+    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata, new DefaultAnalysisResult());
     SonarLintInputFile inputFile = builder.create(file);
 
     assertThat(inputFile.type()).isEqualTo(InputFile.Type.TEST);
@@ -75,19 +78,55 @@ public class InputFileBuilderTest {
     Files.write(path, "test".getBytes(StandardCharsets.ISO_8859_1));
     ClientInputFile file = new TestClientInputFile(path, "file", true, StandardCharsets.ISO_8859_1, "cpp");
 
-    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata);
+    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata, new DefaultAnalysisResult());
     SonarLintInputFile inputFile = builder.create(file);
 
     assertThat(inputFile.language()).isEqualTo("cpp");
     verifyZeroInteractions(langDetection);
   }
 
+  @Test
+  public void testCreateInMemory() {
+    when(langDetection.language(any(InputFile.class))).thenReturn("java");
+    ClientInputFile file = new InMemoryClientInputFile("foo\nbar", StandardCharsets.UTF_8) {
+      @Override
+      public String getPath() {
+        return "INVALID";
+      }
+
+      @Override
+      public boolean isTest() {
+        return false;
+      }
+
+      @Override
+      public <G> G getClientObject() {
+        return null;
+      }
+
+      @Override
+      public String relativePath() {
+        return "INVALID";
+      }
+
+      @Override
+      public InputStream inputStream() {
+        throw new UnsupportedOperationException("content should be read without encoding");
+      }
+    };
+
+    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata, new DefaultAnalysisResult());
+    SonarLintInputFile inputFile = builder.create(file);
+
+    assertThat(inputFile.lines()).isEqualTo(2);
+  }
+
   @Test
   public void testCreate_lazy_error() throws IOException {
     when(langDetection.language(any(InputFile.class))).thenReturn("java");
     ClientInputFile file = new TestClientInputFile(Paths.get("INVALID"), "INVALID", true, StandardCharsets.ISO_8859_1);
 
-    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata);
+    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata, new DefaultAnalysisResult());
     SonarLintInputFile slFile = builder.create(file);
 
     exception.expect(IllegalStateException.class);
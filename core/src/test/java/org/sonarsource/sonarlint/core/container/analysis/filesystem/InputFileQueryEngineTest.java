@@ -0,0 +1,115 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.FilePredicates;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.InputFile.Status;
+import org.sonar.api.batch.fs.InputFile.Type;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class InputFileQueryEngineTest {
+
+  private final FilePredicates p = new DefaultFilePredicates();
+  private final InputPathCache cache = new InputPathCache();
+  private final InputFileQueryEngine engine = new InputFileQueryEngine(cache);
+  private final List<InputFile> files = new ArrayList<>();
+
+  private InputFile javaMain;
+  private InputFile javaTest;
+  private InputFile jsMain;
+  private InputFile readme;
+
+  @Before
+  public void setUp() {
+    javaMain = add("src/Foo.java", "java", Type.MAIN);
+    javaTest = add("test/FooTest.java", "java", Type.TEST);
+    jsMain = add("src/foo.js", "js", Type.MAIN);
+    readme = add("README", null, Type.MAIN);
+  }
+
+  @Test
+  public void evaluate_indexed_predicates() {
+    assertMatches(p.all(), javaMain, javaTest, jsMain, readme);
+    assertMatches(p.none());
+    assertMatches(p.hasLanguage("java"), javaMain, javaTest);
+    assertMatches(p.hasLanguages("java", "js"), javaMain, javaTest, jsMain);
+    assertMatches(p.hasLanguage("cobol"));
+    assertMatches(p.hasType(Type.MAIN), javaMain, jsMain, readme);
+    assertMatches(p.hasType(Type.TEST), javaTest);
+    assertMatches(p.hasStatus(Status.ADDED), javaMain, javaTest, jsMain, readme);
+    assertMatches(p.hasStatus(Status.CHANGED));
+    assertMatches(p.hasAnyStatus(), javaMain, javaTest, jsMain, readme);
+    assertMatches(p.hasExtension("java"), javaMain, javaTest);
+    assertMatches(p.hasFilename("foo.js"), jsMain);
+    assertMatches(p.not(p.hasLanguage("java")), jsMain, readme);
+    assertMatches(p.and(p.hasLanguage("java"), p.hasType(Type.MAIN)), javaMain);
+    assertMatches(p.or(p.hasType(Type.TEST), p.hasLanguage("js")), javaTest, jsMain);
+  }
+
+  @Test
+  public void evaluate_other_predicates_file_by_file() {
+    List<InputFile> applied = new ArrayList<>();
+    FilePredicate custom = f -> {
+      applied.add(f);
+      return f.filename().startsWith("Foo");
+    };
+
+    assertThat(cache.files(engine.evaluate(p.and(custom, p.hasType(Type.MAIN))))).containsExactly(javaMain);
+    // only applied on files matching the indexed part of the predicate
+    assertThat(applied).containsExactly(javaMain, jsMain, readme);
+
+    applied.clear();
+    assertThat(engine.evaluate(p.and(p.hasLanguage("cobol"), custom)).isEmpty()).isTrue();
+    assertThat(applied).isEmpty();
+
+    assertMatches(custom, javaMain, javaTest);
+    assertMatches(p.or(custom, p.hasLanguage("js")), javaMain, javaTest, jsMain);
+    assertMatches(p.not(custom), jsMain, readme);
+  }
+
+  private void assertMatches(FilePredicate predicate, InputFile... expected) {
+    assertThat(cache.files(engine.evaluate(predicate))).containsExactly(expected);
+    // same result as applying the predicate on every file
+    assertThat(files.stream().filter(predicate::apply)).containsExactly(expected);
+  }
+
+  private InputFile add(String path, @Nullable String language, Type type) {
+    InputFile file = mock(InputFile.class);
+    when(file.path()).thenReturn(Paths.get(path));
+    when(file.filename()).thenReturn(Paths.get(path).getFileName().toString());
+    when(file.language()).thenReturn(language);
+    when(file.type()).thenReturn(type);
+    when(file.status()).thenReturn(Status.ADDED);
+    cache.doAdd(file);
+    files.add(file);
+    return file;
+  }
+}
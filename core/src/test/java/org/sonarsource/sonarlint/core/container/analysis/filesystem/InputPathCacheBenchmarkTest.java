@@ -0,0 +1,153 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.FilePredicates;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.FileExtensionPredicate;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compares the footprint of the file index, and the cost of the file condition of sensors, with the multimap based index
+ * and predicate evaluation used before. Only run on demand, since results depend on the machine:
+ * <pre>mvn test -pl core -Dtest=InputPathCacheBenchmarkTest -Dsonarlint.benchmark=true</pre>
+ */
+public class InputPathCacheBenchmarkTest {
+  private static final Logger LOG = Loggers.get(InputPathCacheBenchmarkTest.class);
+
+  private static final int FILES = 100_000;
+  private static final String[] LANGUAGES = {"java", "js", "php", "py", "xml"};
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private List<InputFile> files;
+
+  @Before
+  public void prepare() {
+    assumeTrue(Boolean.getBoolean("sonarlint.benchmark"));
+    files = new ArrayList<>(FILES);
+    for (int i = 0; i < FILES; i++) {
+      String language = LANGUAGES[i % LANGUAGES.length];
+      files.add(new TestInputFileBuilder("foo", "src/dir" + (i % 1000) + "/File" + i + "." + language)
+        .setLanguage(language)
+        .setType(i % 3 == 0 ? InputFile.Type.TEST : InputFile.Type.MAIN)
+        .build());
+    }
+  }
+
+  @Test
+  public void index_footprint() {
+    long baseline = usedHeap();
+    LegacyIndex legacy = new LegacyIndex();
+    files.forEach(legacy::add);
+    long legacyBytes = usedHeap() - baseline;
+    assertThat(legacy.size()).isEqualTo(FILES);
+    legacy = null;
+
+    baseline = usedHeap();
+    InputPathCache cache = new InputPathCache();
+    files.forEach(cache::doAdd);
+    long cacheBytes = usedHeap() - baseline;
+    assertThat(cache.size()).isEqualTo(FILES);
+
+    LOG.info("Retained index: {} bytes/file before, {} bytes/file after", legacyBytes / FILES, cacheBytes / FILES);
+    assertThat(cacheBytes).isLessThan(legacyBytes);
+  }
+
+  @Test
+  public void sensor_file_condition() throws Exception {
+    DefaultFileSystem fs = new DefaultFileSystem(temp.newFolder().toPath());
+    InputPathCache cache = new InputPathCache();
+    for (InputFile file : files) {
+      fs.add(file);
+      cache.doAdd(file);
+    }
+    FilePredicates p = fs.predicates();
+
+    // no file matches, so that predicates are evaluated over all files
+    long predicatesNanos = averageNanos(() -> fs.hasFiles(p.and(p.hasLanguages("cobol"), p.hasType(InputFile.Type.MAIN))));
+    long cacheNanos = averageNanos(() -> cache.hasFiles(Collections.singleton("cobol"), InputFile.Type.MAIN));
+
+    LOG.info("Sensor file condition (language + type): {} us before, {} us after", predicatesNanos / 1000, cacheNanos / 1000);
+    assertThat(cacheNanos).isLessThan(predicatesNanos);
+  }
+
+  private static long averageNanos(BooleanSupplier condition) {
+    for (int i = 0; i < 20; i++) {
+      assertThat(condition.getAsBoolean()).isFalse();
+    }
+    int iterations = 100;
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      assertThat(condition.getAsBoolean()).isFalse();
+    }
+    return (System.nanoTime() - start) / iterations;
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * Same structures as the index before it was array backed, including the set of paths used by the indexer to detect duplicates
+   */
+  private static class LegacyIndex {
+    private final Set<InputFile> inputFileCache = new LinkedHashSet<>();
+    private final SetMultimap<String, InputFile> filesByNameCache = LinkedHashMultimap.create();
+    private final SetMultimap<String, InputFile> filesByExtensionCache = LinkedHashMultimap.create();
+    private final Set<Path> indexedPaths = new HashSet<>();
+
+    void add(InputFile inputFile) {
+      indexedPaths.add(inputFile.path());
+      inputFileCache.add(inputFile);
+      filesByNameCache.put(inputFile.filename(), inputFile);
+      filesByExtensionCache.put(FileExtensionPredicate.getExtension(inputFile), inputFile);
+    }
+
+    int size() {
+      return inputFileCache.size();
+    }
+  }
+}
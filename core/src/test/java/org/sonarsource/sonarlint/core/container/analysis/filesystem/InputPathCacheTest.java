@@ -20,6 +20,9 @@
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import javax.annotation.Nullable;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonar.api.batch.fs.InputDir;
@@ -57,9 +60,11 @@ public class InputPathCacheTest {
   @Test
   public void testFiles() {
     InputFile file1 = mock(InputFile.class);
+    when(file1.path()).thenReturn(Paths.get("file1.java"));
     when(file1.filename()).thenReturn("file1.java");
     when(file1.language()).thenReturn("lang1");
     InputFile file2 = mock(InputFile.class);
+    when(file2.path()).thenReturn(Paths.get("file2"));
     when(file2.filename()).thenReturn("file2");
     when(file2.language()).thenReturn("lang2");
 
@@ -76,5 +81,51 @@ public class InputPathCacheTest {
 
     assertThat(cache.languages()).containsExactly("lang1", "lang2");
 
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.inputFile(Paths.get("file1.java"))).isEqualTo(file1);
+    assertThat(cache.inputFile(Paths.get("unknown"))).isNull();
+  }
+
+  @Test
+  public void testFilesWithSameNameAndExtension() {
+    InputFile file1 = file("a/Foo.java", "java", InputFile.Type.MAIN);
+    InputFile file2 = file("b/Bar.js", "js", InputFile.Type.MAIN);
+    InputFile file3 = file("b/Foo.java", "java", InputFile.Type.TEST);
+
+    cache.doAdd(file1);
+    cache.doAdd(file2);
+    cache.doAdd(file3);
+
+    assertThat(cache.getFilesByName("Foo.java")).containsExactly(file1, file3);
+    assertThat(cache.getFilesByExtension("java")).containsExactly(file1, file3);
+    assertThat(cache.getFilesByExtension("js")).containsExactly(file2);
+    assertThat(cache.getFilesByName("Baz.java")).isEmpty();
+    assertThat(cache.inputFiles()).containsExactly(file1, file2, file3);
+  }
+
+  @Test
+  public void testHasFiles() {
+    assertThat(cache.hasFiles(Collections.emptyList(), null)).isFalse();
+
+    cache.doAdd(file("src/Foo.java", "java", InputFile.Type.MAIN));
+    cache.doAdd(file("test/BarTest.js", "js", InputFile.Type.TEST));
+    cache.doAdd(file("README", null, InputFile.Type.MAIN));
+
+    assertThat(cache.hasFiles(Collections.emptyList(), null)).isTrue();
+    assertThat(cache.hasFiles(Arrays.asList("java"), null)).isTrue();
+    assertThat(cache.hasFiles(Arrays.asList("java"), InputFile.Type.MAIN)).isTrue();
+    assertThat(cache.hasFiles(Arrays.asList("java"), InputFile.Type.TEST)).isFalse();
+    assertThat(cache.hasFiles(Arrays.asList("java", "js"), InputFile.Type.TEST)).isTrue();
+    assertThat(cache.hasFiles(Arrays.asList("cobol"), null)).isFalse();
+    assertThat(cache.hasFiles(Collections.emptyList(), InputFile.Type.TEST)).isTrue();
+  }
+
+  private static InputFile file(String path, @Nullable String language, InputFile.Type type) {
+    InputFile file = mock(InputFile.class);
+    when(file.path()).thenReturn(Paths.get(path));
+    when(file.filename()).thenReturn(Paths.get(path).getFileName().toString());
+    when(file.language()).thenReturn(language);
+    when(file.type()).thenReturn(type);
+    return file;
   }
 }
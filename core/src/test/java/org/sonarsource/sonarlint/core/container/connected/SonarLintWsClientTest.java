@@ -0,0 +1,125 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.connected;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.sonarqube.ws.Common.Paging;
+import org.sonarqube.ws.WsComponents.Component;
+import org.sonarqube.ws.WsComponents.TreeWsResponse;
+import org.sonarsource.sonarlint.core.WsClientTestUtils;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
+import org.sonarsource.sonarlint.core.util.ws.WsResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyFloat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SonarLintWsClientTest {
+  private static final String URL = "api/components/tree.protobuf?qualifiers=FIL";
+
+  private SonarLintWsClient wsClient = WsClientTestUtils.createMock();
+  private ProgressWrapper progress = mock(ProgressWrapper.class);
+
+  @Test
+  public void get_paginated_consumes_pages_in_order_while_requesting_next_ones() throws IOException {
+    int total = 2 * SonarLintWsClient.PAGE_SIZE + 1;
+    for (int page = 1; page <= 3; page++) {
+      WsClientTestUtils.addResponse(wsClient, URL + "&ps=500&p=" + page, page(page, total, page == 3 ? 1 : SonarLintWsClient.PAGE_SIZE));
+    }
+
+    List<String> keys = getPaginated(3);
+
+    assertThat(keys).hasSize(total);
+    assertThat(keys.get(0)).isEqualTo("1-0");
+    assertThat(keys.get(SonarLintWsClient.PAGE_SIZE)).isEqualTo("2-0");
+    assertThat(keys.get(total - 1)).isEqualTo("3-0");
+    // no page requested beyond the total
+    verify(wsClient, never()).get(URL + "&ps=500&p=4");
+    verify(progress, times(3)).setProgressAndCheckCancel(anyString(), anyFloat());
+  }
+
+  @Test
+  public void get_paginated_without_total_stops_at_empty_page() throws IOException {
+    WsClientTestUtils.addResponse(wsClient, URL + "&ps=500&p=1", page(1, 0, 2));
+    WsClientTestUtils.addResponse(wsClient, URL + "&ps=500&p=2", page(2, 0, 0));
+
+    List<String> keys = getPaginated(2);
+
+    assertThat(keys).containsExactly("1-0", "1-1");
+  }
+
+  @Test
+  public void get_paginated_closes_pages_requested_in_advance_but_not_needed() throws IOException {
+    WsClientTestUtils.addResponse(wsClient, URL + "&ps=500&p=1", page(1, 0, 2));
+    WsClientTestUtils.addResponse(wsClient, URL + "&ps=500&p=2", page(2, 0, 0));
+    List<WsResponse> notNeeded = new ArrayList<>();
+    for (int page = 3; page <= 5; page++) {
+      WsResponse response = mock(WsResponse.class);
+      when(wsClient.get(URL + "&ps=500&p=" + page)).thenAnswer(invocation -> {
+        // still running when the empty page is consumed
+        Thread.sleep(200);
+        return response;
+      });
+      notNeeded.add(response);
+    }
+
+    List<String> keys = getPaginated(4);
+
+    assertThat(keys).containsExactly("1-0", "1-1");
+    for (WsResponse response : notNeeded) {
+      verify(response, timeout(5000)).close();
+    }
+  }
+
+  @Test
+  public void get_paginated_without_window() throws IOException {
+    WsClientTestUtils.addResponse(wsClient, URL + "&ps=500&p=1", page(1, 2, 2));
+
+    assertThat(getPaginated(1)).containsExactly("1-0", "1-1");
+  }
+
+  private List<String> getPaginated(int pageWindow) {
+    List<String> keys = new ArrayList<>();
+    SonarLintWsClient.getPaginated(wsClient, URL,
+      TreeWsResponse::parseFrom,
+      TreeWsResponse::getPaging,
+      TreeWsResponse::getComponentsList,
+      component -> keys.add(component.getKey()), false, pageWindow, progress);
+    return keys;
+  }
+
+  private static TreeWsResponse page(int page, int total, int size) {
+    TreeWsResponse.Builder response = TreeWsResponse.newBuilder()
+      .setPaging(Paging.newBuilder().setPageIndex(page).setPageSize(SonarLintWsClient.PAGE_SIZE).setTotal(total));
+    for (int i = 0; i < size; i++) {
+      response.addComponents(Component.newBuilder().setKey(page + "-" + i));
+    }
+    return response.build();
+  }
+}
@@ -60,6 +60,39 @@ public class IssueStorePathsTest {
     assertThat(fileKey).isEqualTo("projectKey:unknown/path1");
   }
 
+  @Test
+  public void sq_path_to_fileKey_matches_whole_segments() {
+    Sonarlint.ProjectConfiguration projectConfiguration = Sonarlint.ProjectConfiguration.newBuilder()
+      .putModulePathByKey("root", "")
+      .putModulePathByKey("module1", "module1")
+      .putModulePathByKey("module12", "module12")
+      .putModulePathByKey("nested", "module1/sub/nested")
+      .build();
+
+    assertThat(issueStorePaths.sqPathToFileKey(projectConfiguration, "projectKey", "module12/path1")).isEqualTo("module12:path1");
+    assertThat(issueStorePaths.sqPathToFileKey(projectConfiguration, "projectKey", "module1/path1")).isEqualTo("module1:path1");
+    assertThat(issueStorePaths.sqPathToFileKey(projectConfiguration, "projectKey", "module1/sub/path1")).isEqualTo("module1:sub/path1");
+    assertThat(issueStorePaths.sqPathToFileKey(projectConfiguration, "projectKey", "module1/sub/nested/path1")).isEqualTo("nested:path1");
+    assertThat(issueStorePaths.sqPathToFileKey(projectConfiguration, "projectKey", "module123/path1")).isEqualTo("projectKey:module123/path1");
+  }
+
+  @Test
+  public void file_key_to_sq_path_uses_module_path() {
+    Sonarlint.ProjectConfiguration projectConfiguration = Sonarlint.ProjectConfiguration.newBuilder()
+      .putModulePathByKey("root", "")
+      .putModulePathByKey("moduleA", "project/A")
+      .build();
+
+    assertThat(issueStorePaths.fileKeyToSqPath(projectConfiguration, "moduleA", "path1")).isEqualTo("project/A/path1");
+    assertThat(issueStorePaths.fileKeyToSqPath(projectConfiguration, "root", "path1")).isEqualTo("path1");
+    assertThat(issueStorePaths.fileKeyToSqPath(projectConfiguration, "unknown", "path1")).isEqualTo("path1");
+
+    Sonarlint.ProjectConfiguration otherConfiguration = Sonarlint.ProjectConfiguration.newBuilder()
+      .putModulePathByKey("moduleA", "other/A")
+      .build();
+    assertThat(issueStorePaths.fileKeyToSqPath(otherConfiguration, "moduleA", "path1")).isEqualTo("other/A/path1");
+  }
+
   @Test
   public void local_path_to_fileKey_uses_modules_and_prefixes() {
     ProjectBinding projectBinding = new ProjectBinding("project", "project", "ide");
@@ -63,10 +63,10 @@ public class RulesDownloaderTest {
   @Test
   public void rules_update_protobuf() throws Exception {
     SonarLintWsClient wsClient = WsClientTestUtils.createMockWithStreamResponse(
-      RULES_SEARCH_URL + "&p=1&ps=500",
+      RULES_SEARCH_URL + "&ps=500&p=1",
       "/update/rulesp1.pb");
     WsClientTestUtils.addStreamResponse(wsClient,
-      RULES_SEARCH_URL + "&p=2&ps=500",
+      RULES_SEARCH_URL + "&ps=500&p=2",
       "/update/rulesp2.pb");
 
     RulesDownloader rulesUpdate = new RulesDownloader(wsClient);
@@ -84,7 +84,7 @@ public class RulesDownloaderTest {
       .setTotal(10001)
       .build();
     SonarLintWsClient wsClient = WsClientTestUtils.createMock();
-    WsClientTestUtils.addResponse(wsClient, RULES_SEARCH_URL + "&p=1&ps=500", response);
+    WsClientTestUtils.addResponse(wsClient, RULES_SEARCH_URL + "&ps=500&p=1", response);
 
     exception.expect(IllegalStateException.class);
     exception.expectMessage("Found more than 10000 rules in the SonarQube server, which is not supported by SonarLint.");
@@ -96,10 +96,10 @@ public class RulesDownloaderTest {
   @Test
   public void rules_update_protobuf_with_org() throws Exception {
     SonarLintWsClient wsClient = WsClientTestUtils.createMockWithStreamResponse(
-      RULES_SEARCH_URL + "&organization=myOrg&p=1&ps=500",
+      RULES_SEARCH_URL + "&organization=myOrg&ps=500&p=1",
       "/update/rulesp1.pb");
     WsClientTestUtils.addStreamResponse(wsClient,
-      RULES_SEARCH_URL + "&organization=myOrg&p=2&ps=500",
+      RULES_SEARCH_URL + "&organization=myOrg&ps=500&p=2",
       "/update/rulesp2.pb");
     when(wsClient.getOrganizationKey()).thenReturn("myOrg");
 
@@ -112,13 +112,59 @@ public class RulesDownloaderTest {
     assertThat(jsActiveRules.getActiveRulesByKeyMap()).hasSize(85);
   }
 
+  @Test
+  public void fetch_remaining_pages_concurrently_and_append_them() throws IOException {
+    int total = 4 * 500 + 1;
+    SonarLintWsClient wsClient = WsClientTestUtils.createMock();
+    for (int page = 1; page <= 5; page++) {
+      WsClientTestUtils.addResponse(wsClient, RULES_SEARCH_URL + "&ps=500&p=" + page, rulesPage(page, total));
+    }
+
+    RulesDownloader rulesUpdate = new RulesDownloader(wsClient);
+    rulesUpdate.fetchRulesTo(tempDir.toPath(), new ProgressWrapper(null));
+
+    Rules rules = ProtobufUtil.readFile(tempDir.toPath().resolve(StoragePaths.RULES_PB), Rules.parser());
+    assertThat(rules.getRulesByKeyMap()).hasSize(total);
+    ActiveRules activeRules = ProtobufUtil.readFile(tempDir.toPath().resolve(StoragePaths.ACTIVE_RULES_FOLDER).resolve("qp.pb"), ActiveRules.parser());
+    assertThat(activeRules.getActiveRulesByKeyMap()).hasSize(5).containsKeys("repo:rule0", "repo:rule2000");
+  }
+
+  @Test
+  public void fail_if_a_later_page_fails() throws IOException {
+    SonarLintWsClient wsClient = WsClientTestUtils.createMock();
+    WsClientTestUtils.addResponse(wsClient, RULES_SEARCH_URL + "&ps=500&p=1", rulesPage(1, 1500));
+    WsClientTestUtils.addResponse(wsClient, RULES_SEARCH_URL + "&ps=500&p=2", rulesPage(2, 1500));
+    WsClientTestUtils.addResponse(wsClient, RULES_SEARCH_URL + "&ps=500&p=3", new ByteArrayInputStream("trash".getBytes(StandardCharsets.UTF_8)));
+
+    exception.expect(IllegalStateException.class);
+    exception.expectMessage("Failed to load rules");
+
+    new RulesDownloader(wsClient).fetchRulesTo(tempDir.toPath(), new ProgressWrapper(null));
+  }
+
+  private static SearchResponse rulesPage(int page, int total) {
+    SearchResponse.Builder response = SearchResponse.newBuilder()
+      .setTotal(total)
+      .setP(page)
+      .setPs(500);
+    int first = (page - 1) * 500;
+    for (int i = first; i < Math.min(first + 500, total); i++) {
+      response.addRules(org.sonarqube.ws.Rules.Rule.newBuilder().setKey("repo:rule" + i).build());
+    }
+    response.getActivesBuilder().getMutableActives().put("repo:rule" + first, org.sonarqube.ws.Rules.ActiveList.newBuilder()
+      .addActiveList(org.sonarqube.ws.Rules.Active.newBuilder().setQProfile("qp").setSeverity("MAJOR"))
+      .build());
+    return response.build();
+  }
+
   @Test
   public void unknown_type() throws IOException {
     org.sonarqube.ws.Rules.SearchResponse response = org.sonarqube.ws.Rules.SearchResponse.newBuilder()
+      .setTotal(1)
       .addRules(org.sonarqube.ws.Rules.Rule.newBuilder().setKey("S:101").build())
       .build();
     SonarLintWsClient wsClient = WsClientTestUtils.createMock();
-    WsClientTestUtils.addResponse(wsClient, RULES_SEARCH_URL + "&p=1&ps=500", response);
+    WsClientTestUtils.addResponse(wsClient, RULES_SEARCH_URL + "&ps=500&p=1", response);
 
     RulesDownloader rulesUpdate = new RulesDownloader(wsClient);
     rulesUpdate.fetchRulesTo(tempDir.toPath(), new ProgressWrapper(null));
@@ -132,7 +178,7 @@ public class RulesDownloaderTest {
   public void errorReadingStream() throws IOException {
     SonarLintWsClient wsClient = WsClientTestUtils.createMock();
     InputStream stream = new ByteArrayInputStream("trash".getBytes(StandardCharsets.UTF_8));
-    WsClientTestUtils.addResponse(wsClient, RULES_SEARCH_URL + "&p=1&ps=500", stream);
+    WsClientTestUtils.addResponse(wsClient, RULES_SEARCH_URL + "&ps=500&p=1", stream);
 
     RulesDownloader rulesUpdate = new RulesDownloader(wsClient);
 
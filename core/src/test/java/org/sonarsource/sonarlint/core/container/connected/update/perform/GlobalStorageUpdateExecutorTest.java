@@ -39,6 +39,7 @@ import org.sonarsource.sonarlint.core.container.connected.update.SettingsDownloa
 import org.sonarsource.sonarlint.core.container.connected.validate.ServerVersionAndStatusChecker;
 import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
 import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
+import org.sonarsource.sonarlint.core.container.storage.StorageReader;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerInfos;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.StorageStatus;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
@@ -49,6 +50,7 @@ import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class GlobalStorageUpdateExecutorTest {
@@ -57,6 +59,7 @@ public class GlobalStorageUpdateExecutorTest {
   private SonarLintWsClient wsClient;
   private GlobalStorageUpdateExecutor globalUpdate;
   private RulesDownloader rulesDownloader;
+  private StorageReader storageReader = mock(StorageReader.class);
 
   private File destDir;
   private File tempDir;
@@ -80,12 +83,13 @@ public class GlobalStorageUpdateExecutorTest {
     when(storageManager.getGlobalStorageRoot()).thenReturn(destDir.toPath());
     globalUpdate = new GlobalStorageUpdateExecutor(storageManager, wsClient, new ServerVersionAndStatusChecker(wsClient),
       mock(PluginReferencesDownloader.class), mock(SettingsDownloader.class), rulesDownloader, mock(ProjectListDownloader.class),
-      mock(QualityProfilesDownloader.class), mock(PluginListDownloader.class), tempFolder);
+      mock(QualityProfilesDownloader.class), mock(PluginListDownloader.class), tempFolder, storageReader);
   }
 
   @Test
   public void testUpdate() throws Exception {
     globalUpdate.update(new ProgressWrapper(null));
+    verify(storageReader).invalidate();
 
     StorageStatus updateStatus = ProtobufUtil.readFile(destDir.toPath().resolve(StoragePaths.STORAGE_STATUS_PB), StorageStatus.parser());
     assertThat(updateStatus.getClientUserAgent()).isEqualTo("UT");
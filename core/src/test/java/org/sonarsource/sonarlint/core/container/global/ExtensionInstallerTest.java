@@ -0,0 +1,153 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.global;
+
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.picocontainer.Startable;
+import org.sonar.api.Plugin;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.internal.SonarRuntimeImpl;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.Version;
+import org.sonarsource.api.sonarlint.SonarLintSide;
+import org.sonarsource.sonarlint.core.container.ComponentContainer;
+import org.sonarsource.sonarlint.core.plugin.PluginInfo;
+import org.sonarsource.sonarlint.core.plugin.PluginRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ExtensionInstallerTest {
+
+  private PluginRepository pluginRepository = mock(PluginRepository.class);
+  private PluginInfo pluginInfo = new PluginInfo("foo").setSonarLintSupported(true);
+  private Plugin plugin = mock(Plugin.class);
+  private ExtensionInstaller underTest;
+
+  @Before
+  public void prepare() {
+    when(pluginRepository.getPluginInfos()).thenReturn(Collections.singletonList(pluginInfo));
+    when(pluginRepository.getPluginInstance("foo")).thenReturn(plugin);
+    doDefine(plugin);
+    underTest = new ExtensionInstaller(SonarRuntimeImpl.forSonarLint(Version.create(7, 3)), pluginRepository, mock(Configuration.class));
+  }
+
+  private static void doDefine(Plugin plugin) {
+    doAnswer(invocation -> {
+      Plugin.Context context = invocation.getArgument(0);
+      context.addExtensions(AnalysisService.class, MultipleAnalysesService.class, ServerService.class);
+      return null;
+    }).when(plugin).define(any(Plugin.Context.class));
+  }
+
+  @Test
+  public void install_analysis_extensions() {
+    ComponentContainer container = mock(ComponentContainer.class);
+
+    underTest.install(container, false);
+
+    verify(container).addExtension(pluginInfo, AnalysisService.class);
+    verify(container, never()).addExtension(pluginInfo, MultipleAnalysesService.class);
+    verify(container, never()).addExtension(pluginInfo, ServerService.class);
+  }
+
+  @Test
+  public void install_global_extensions() {
+    ComponentContainer container = mock(ComponentContainer.class);
+
+    underTest.install(container, true);
+
+    verify(container).addExtension(pluginInfo, MultipleAnalysesService.class);
+    verify(container, never()).addExtension(pluginInfo, AnalysisService.class);
+  }
+
+  @Test
+  public void define_plugins_once_per_scope() {
+    ComponentContainer container1 = mock(ComponentContainer.class);
+    ComponentContainer container2 = mock(ComponentContainer.class);
+
+    underTest.install(container1, false);
+    underTest.install(container2, false);
+    underTest.install(mock(ComponentContainer.class), true);
+
+    verify(plugin, times(2)).define(any(Plugin.Context.class));
+    verify(container1).addExtension(pluginInfo, AnalysisService.class);
+    verify(container2).addExtension(pluginInfo, AnalysisService.class);
+  }
+
+  @Test
+  public void do_not_share_extension_instances_between_analysis_containers() {
+    doAnswer(invocation -> {
+      Plugin.Context context = invocation.getArgument(0);
+      context.addExtensions(AnalysisService.class, new StartableService());
+      return null;
+    }).when(plugin).define(any(Plugin.Context.class));
+    ComponentContainer container1 = new ComponentContainer();
+    ComponentContainer container2 = new ComponentContainer();
+
+    underTest.install(container1, false);
+    underTest.install(container2, false);
+    container1.startComponents();
+    container2.startComponents();
+    StartableService service1 = container1.getComponentByType(StartableService.class);
+    StartableService service2 = container2.getComponentByType(StartableService.class);
+    container1.stopComponents();
+
+    assertThat(service1).isNotSameAs(service2);
+    assertThat(service1.started).isFalse();
+    assertThat(service2.started).isTrue();
+    verify(plugin, times(2)).define(any(Plugin.Context.class));
+  }
+
+  @SonarLintSide
+  public static class AnalysisService {
+  }
+
+  @SonarLintSide(lifespan = SonarLintSide.MULTIPLE_ANALYSES)
+  public static class MultipleAnalysesService {
+  }
+
+  @ServerSide
+  public static class ServerService {
+  }
+
+  @SonarLintSide
+  public static class StartableService implements Startable {
+    private boolean started;
+
+    @Override
+    public void start() {
+      started = true;
+    }
+
+    @Override
+    public void stop() {
+      started = false;
+    }
+  }
+}
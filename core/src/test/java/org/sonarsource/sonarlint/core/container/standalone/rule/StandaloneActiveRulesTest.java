@@ -22,6 +22,7 @@ package org.sonarsource.sonarlint.core.container.standalone.rule;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import javax.annotation.CheckForNull;
@@ -44,12 +45,13 @@ public class StandaloneActiveRulesTest {
   private static final String ACTIVE_RULE = "ACTIVE_RULE";
   private static final String ACTIVE_EXCLUDED_RULE = "ACTIVE_EXCLUDED_RULE";
 
+  private final StandaloneActiveRules standaloneActiveRules;
   private final ActiveRules underTest;
 
   public StandaloneActiveRulesTest() {
     ActiveRules activeRules = new FakeActiveRules(ACTIVE_RULE, ACTIVE_EXCLUDED_RULE);
     ActiveRules inactiveRules = new FakeActiveRules(INACTIVE_RULE, INACTIVE_INCLUDED_RULE);
-    StandaloneActiveRules standaloneActiveRules = new StandaloneActiveRules(activeRules, inactiveRules, Collections.emptyMap());
+    standaloneActiveRules = new StandaloneActiveRules(activeRules, inactiveRules, Collections.emptyMap());
 
     Set<String> excluded = Collections.singleton(new RuleKey(REPOSITORY, ACTIVE_EXCLUDED_RULE).toString());
     Set<String> included = Collections.singleton(new RuleKey(REPOSITORY, INACTIVE_INCLUDED_RULE).toString());
@@ -93,6 +95,33 @@ public class StandaloneActiveRulesTest {
     assertThat(underTest.findByInternalKey(REPOSITORY, INACTIVE_INCLUDED_RULE)).isNotNull();
   }
 
+  @Test
+  public void filtered_rules_are_reused_for_same_configuration() {
+    Set<String> excluded = new HashSet<>(Collections.singleton(new RuleKey(REPOSITORY, ACTIVE_EXCLUDED_RULE).toString()));
+    Set<String> included = new HashSet<>(Collections.singleton(new RuleKey(REPOSITORY, INACTIVE_INCLUDED_RULE).toString()));
+    assertThat(standaloneActiveRules.filtered(excluded, included)).isSameAs(underTest);
+
+    ActiveRules other = standaloneActiveRules.filtered(Collections.emptySet(), Collections.emptySet());
+    assertThat(other).isNotSameAs(underTest);
+    assertThat(other.findAll().stream().map(r -> r.ruleKey().rule())).containsExactlyInAnyOrder(ACTIVE_RULE, ACTIVE_EXCLUDED_RULE);
+
+    // modifying the sets used as key doesn't corrupt the cache
+    excluded.clear();
+    assertThat(standaloneActiveRules.filtered(Collections.singleton(new RuleKey(REPOSITORY, ACTIVE_EXCLUDED_RULE).toString()), included)).isSameAs(underTest);
+  }
+
+  @Test
+  public void cache_of_filtered_rules_is_bounded() {
+    for (int i = 0; i < 20; i++) {
+      standaloneActiveRules.filtered(Collections.singleton("rule" + i), Collections.emptySet());
+    }
+    Set<String> excluded = Collections.singleton(new RuleKey(REPOSITORY, ACTIVE_EXCLUDED_RULE).toString());
+    Set<String> included = Collections.singleton(new RuleKey(REPOSITORY, INACTIVE_INCLUDED_RULE).toString());
+    ActiveRules recomputed = standaloneActiveRules.filtered(excluded, included);
+    assertThat(recomputed).isNotSameAs(underTest);
+    assertThat(recomputed.findAll().stream().map(r -> r.ruleKey().rule())).containsExactlyInAnyOrder(ACTIVE_RULE, INACTIVE_INCLUDED_RULE);
+  }
+
   private static class FakeActiveRules implements ActiveRules {
     private final Map<org.sonar.api.rule.RuleKey, ActiveRule> map = new HashMap<>();
 
@@ -0,0 +1,66 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.storage;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ProjectComponents;
+import org.sonarsource.sonarlint.core.util.ReversePathTree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ComponentPathTreeReaderTest {
+  private static final String PROJECT_KEY = "project";
+
+  private StorageReader storageReader = mock(StorageReader.class);
+  private ComponentPathTreeReader reader = new ComponentPathTreeReader(storageReader);
+
+  @Before
+  public void setUp() {
+    when(storageReader.readProjectComponents(PROJECT_KEY)).thenReturn(components("sq/src/File.java"));
+  }
+
+  @Test
+  public void should_build_tree_once_while_components_are_unchanged() {
+    ReversePathTree tree = reader.apply(PROJECT_KEY);
+    assertThat(tree.findLongestSuffixMatches("src/File.java").matchPrefixes()).containsExactly("sq");
+    assertThat(reader.apply(PROJECT_KEY)).isSameAs(tree);
+  }
+
+  @Test
+  public void should_build_tree_again_when_components_are_read_again() {
+    ReversePathTree tree = reader.apply(PROJECT_KEY);
+
+    // storage reader was invalidated, components are read again from disk
+    when(storageReader.readProjectComponents(PROJECT_KEY)).thenReturn(components("sq2/src/File.java"));
+
+    ReversePathTree newTree = reader.apply(PROJECT_KEY);
+    assertThat(newTree).isNotSameAs(tree);
+    assertThat(newTree.findLongestSuffixMatches("src/File.java").matchPrefixes()).containsExactly("sq2");
+  }
+
+  private static ProjectComponents components(String path) {
+    return ProjectComponents.newBuilder()
+      .addComponent(path)
+      .build();
+  }
+}
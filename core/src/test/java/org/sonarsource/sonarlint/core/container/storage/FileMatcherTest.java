@@ -19,8 +19,6 @@
  */
 package org.sonarsource.sonarlint.core.container.storage;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -34,52 +32,62 @@ public class FileMatcherTest {
 
   @Test
   public void simple_case_without_prefixes() {
-    List<Path> paths = Collections.singletonList(Paths.get("project1/src/main/java/File.java"));
+    List<String> paths = Collections.singletonList("project1/src/main/java/File.java");
     FileMatcher.Result match = fileMatcher.match(paths, paths);
-    assertThat(match.mostCommonLocalPrefix()).isEqualTo(Paths.get(""));
-    assertThat(match.mostCommonSqPrefix()).isEqualTo(Paths.get(""));
+    assertThat(match.mostCommonLocalPrefix()).isEqualTo("");
+    assertThat(match.mostCommonSqPrefix()).isEqualTo("");
   }
 
   @Test
   public void simple_case_with_prefixes() {
-    List<Path> localPaths = Collections.singletonList(Paths.get("local/src/main/java/File.java"));
-    List<Path> sqPaths = Collections.singletonList(Paths.get("sq/src/main/java/File.java"));
+    List<String> localPaths = Collections.singletonList("local/src/main/java/File.java");
+    List<String> sqPaths = Collections.singletonList("sq/src/main/java/File.java");
     FileMatcher.Result match = fileMatcher.match(sqPaths, localPaths);
-    assertThat(match.mostCommonLocalPrefix()).isEqualTo(Paths.get("local"));
-    assertThat(match.mostCommonSqPrefix()).isEqualTo(Paths.get("sq"));
+    assertThat(match.mostCommonLocalPrefix()).isEqualTo("local");
+    assertThat(match.mostCommonSqPrefix()).isEqualTo("sq");
   }
 
   @Test
   public void should_return_shortest_prefix_if_there_are_ties() {
-    List<Path> localPaths = Arrays.asList(
-      Paths.get("pom.xml")
+    List<String> localPaths = Arrays.asList(
+      "pom.xml"
     );
 
-    List<Path> sqPaths = Arrays.asList(
-      Paths.get("sq1/module2/pom.xml"),
-      Paths.get("pom.xml"),
-      Paths.get("sq1/module1/pom.xml")
+    List<String> sqPaths = Arrays.asList(
+      "sq1/module2/pom.xml",
+      "pom.xml",
+      "sq1/module1/pom.xml"
     );
     FileMatcher.Result match = fileMatcher.match(sqPaths, localPaths);
-    assertThat(match.mostCommonLocalPrefix()).isEqualTo(Paths.get(""));
-    assertThat(match.mostCommonSqPrefix()).isEqualTo(Paths.get(""));
+    assertThat(match.mostCommonLocalPrefix()).isEqualTo("");
+    assertThat(match.mostCommonSqPrefix()).isEqualTo("");
   }
   @Test
   public void should_return_most_common_prefixes() {
-    List<Path> localPaths = Arrays.asList(
-      Paths.get("local1/src/main/java/A.java"),
-      Paths.get("local1/src/main/java/B.java"),
-      Paths.get("local2/src/main/java/B.java")
+    List<String> localPaths = Arrays.asList(
+      "local1/src/main/java/A.java",
+      "local1/src/main/java/B.java",
+      "local2/src/main/java/B.java"
     );
 
-    List<Path> sqPaths = Arrays.asList(
-      Paths.get("sq1/src/main/java/A.java"),
-      Paths.get("sq2/src/main/java/A.java"),
-      Paths.get("sq1/src/main/java/B.java")
+    List<String> sqPaths = Arrays.asList(
+      "sq1/src/main/java/A.java",
+      "sq2/src/main/java/A.java",
+      "sq1/src/main/java/B.java"
 
     );
     FileMatcher.Result match = fileMatcher.match(sqPaths, localPaths);
-    assertThat(match.mostCommonLocalPrefix()).isEqualTo(Paths.get("local1"));
-    assertThat(match.mostCommonSqPrefix()).isEqualTo(Paths.get("sq1"));
+    assertThat(match.mostCommonLocalPrefix()).isEqualTo("local1");
+    assertThat(match.mostCommonSqPrefix()).isEqualTo("sq1");
+  }
+
+  @Test
+  public void should_match_against_already_indexed_tree() {
+    ReversePathTree tree = new ReversePathTree();
+    tree.index("sq/module/src/File.java");
+
+    FileMatcher.Result match = new FileMatcher(tree).match(Collections.singletonList("local/dir/module/src/File.java"));
+    assertThat(match.mostCommonLocalPrefix()).isEqualTo("local/dir");
+    assertThat(match.mostCommonSqPrefix()).isEqualTo("sq");
   }
 }
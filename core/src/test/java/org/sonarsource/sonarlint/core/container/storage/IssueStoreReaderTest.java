@@ -25,6 +25,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.junit.Before;
 import org.junit.Rule;
@@ -114,6 +115,24 @@ public class IssueStoreReaderTest {
       .containsOnly(createApiIssue("module1", "path2"));
   }
 
+  @Test
+  public void testMultipleFiles() {
+    setModulePaths(Collections.singletonMap(PROJECT_KEY, ""));
+
+    issueStore.save(Arrays.asList(
+      createServerIssue(PROJECT_KEY, "path1"),
+      createServerIssue(PROJECT_KEY, "path2")));
+
+    Map<String, List<ServerIssue>> issuesByFile = issueStoreReader.getServerIssues(projectBinding, Arrays.asList("path2", "path3", "path1"));
+
+    assertThat(issuesByFile).containsOnlyKeys("path2", "path3", "path1");
+    assertThat(issuesByFile.keySet()).containsExactly("path2", "path3", "path1");
+    assertThat(issuesByFile.get("path1"))
+      .usingElementComparator(simpleComparator)
+      .containsOnly(createApiIssue(PROJECT_KEY, "path1"));
+    assertThat(issuesByFile.get("path3")).isEmpty();
+  }
+
   @Test
   public void testMultiModule2() {
     // setup module hierarchy
@@ -0,0 +1,105 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.sonarsource.sonarlint.core.client.api.connected.ConnectedGlobalConfiguration;
+import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
+import org.sonarsource.sonarlint.core.proto.Sonarlint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StorageReaderTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Rule
+  public ExpectedException exception = ExpectedException.none();
+
+  private StoragePaths storagePaths;
+  private StorageReader underTest;
+
+  @Before
+  public void prepare() throws Exception {
+    storagePaths = new StoragePaths(ConnectedGlobalConfiguration.builder()
+      .setSonarLintUserHome(temp.newFolder().toPath())
+      .setServerId("server")
+      .build());
+    underTest = new StorageReader(storagePaths);
+  }
+
+  @Test
+  public void read_unchanged_file_once() throws IOException {
+    writeServerInfos("7.3");
+
+    Sonarlint.ServerInfos first = underTest.readServerInfos();
+
+    assertThat(first.getVersion()).isEqualTo("7.3");
+    assertThat(underTest.readServerInfos()).isSameAs(first);
+  }
+
+  @Test
+  public void read_again_when_file_changes() throws IOException {
+    writeServerInfos("7.3");
+    Sonarlint.ServerInfos first = underTest.readServerInfos();
+
+    writeServerInfos("7.4.1");
+
+    assertThat(underTest.readServerInfos()).isNotSameAs(first);
+    assertThat(underTest.readServerInfos().getVersion()).isEqualTo("7.4.1");
+  }
+
+  @Test
+  public void read_again_when_invalidated() throws IOException {
+    writeServerInfos("7.3");
+    Sonarlint.ServerInfos first = underTest.readServerInfos();
+
+    underTest.invalidate();
+
+    Sonarlint.ServerInfos second = underTest.readServerInfos();
+    assertThat(second).isNotSameAs(first).isEqualTo(first);
+    assertThat(underTest.readServerInfos()).isSameAs(second);
+  }
+
+  @Test
+  public void fail_when_file_is_missing() {
+    exception.expect(StorageException.class);
+    underTest.readServerInfos();
+  }
+
+  @Test
+  public void missing_active_rules_are_empty() {
+    assertThat(underTest.readActiveRules("unknown").getActiveRulesByKeyMap()).isEmpty();
+  }
+
+  private void writeServerInfos(String version) throws IOException {
+    Path path = storagePaths.getServerInfosPath();
+    Files.createDirectories(path.getParent());
+    ProtobufUtil.writeToFile(Sonarlint.ServerInfos.newBuilder().setVersion(version).build(), path);
+  }
+}
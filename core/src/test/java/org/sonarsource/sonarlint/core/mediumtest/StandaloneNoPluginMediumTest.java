@@ -24,7 +24,12 @@ import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Multimap;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Before;
@@ -32,16 +37,21 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.sonarsource.sonarlint.core.StandaloneSonarLintEngineImpl;
+import org.sonarsource.sonarlint.core.TestClientInputFile;
 import org.sonarsource.sonarlint.core.TestUtils;
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput.Level;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisMetrics;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneSonarLintEngine;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 
 public class StandaloneNoPluginMediumTest {
 
@@ -50,12 +60,15 @@ public class StandaloneNoPluginMediumTest {
   private StandaloneSonarLintEngine sonarlint;
   private File baseDir;
   private Multimap<LogOutput.Level, String> logs = LinkedListMultimap.create();
+  private List<AnalysisMetrics> reportedMetrics = new ArrayList<>();
 
   @Before
   public void prepare() throws IOException {
     LogOutput logOutput = (msg, level) -> logs.put(level, msg);
     sonarlint = new StandaloneSonarLintEngineImpl(StandaloneGlobalConfiguration.builder()
-      .setLogOutput(logOutput).build());
+      .setLogOutput(logOutput)
+      .setAnalysisMetricsListener(reportedMetrics::add)
+      .build());
 
     baseDir = temp.newFolder();
   }
@@ -77,6 +90,48 @@ public class StandaloneNoPluginMediumTest {
 
     assertThat(results.indexedFileCount()).isEqualTo(1);
     assertThat(logs.get(Level.WARN)).contains("No analyzers installed");
+    assertThat(reportedMetrics).containsExactly(results.metrics());
+    assertThat(results.metrics().sensorMetrics()).isEmpty();
+  }
+
+  @Test
+  public void stop_indexing_as_soon_as_cancelled() throws Exception {
+    AtomicInteger touchedFiles = new AtomicInteger();
+    AtomicBoolean canceled = new AtomicBoolean();
+    List<ClientInputFile> inputFiles = new ArrayList<>();
+    for (int i = 0; i < 20_000; i++) {
+      inputFiles.add(new TestClientInputFile(baseDir.toPath().resolve("file" + i + ".js"), "file" + i + ".js", false, StandardCharsets.UTF_8) {
+        @Override
+        public String language() {
+          if (touchedFiles.incrementAndGet() == 1000) {
+            canceled.set(true);
+          }
+          return super.language();
+        }
+      });
+    }
+    StandaloneAnalysisConfiguration configuration = new StandaloneAnalysisConfiguration(baseDir.toPath(), temp.newFolder().toPath(), inputFiles,
+      ImmutableMap.<String, String>of());
+    // the configuration already visited all files to build its description
+    touchedFiles.set(0);
+    canceled.set(false);
+    ProgressMonitor monitor = new ProgressMonitor() {
+      @Override
+      public boolean isCanceled() {
+        return canceled.get();
+      }
+    };
+
+    try {
+      sonarlint.analyze(configuration, i -> {
+      }, null, monitor);
+      fail("Expected analysis to be cancelled");
+    } catch (CanceledException e) {
+      // expected
+    }
+
+    // no file is visited once the analysis is cancelled
+    assertThat(touchedFiles.get()).isEqualTo(1000);
   }
 
   private ClientInputFile prepareInputFile(String relativePath, String content, final boolean isTest) throws IOException {
@@ -19,7 +19,9 @@
  */
 package org.sonarsource.sonarlint.core.notifications;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -28,10 +30,19 @@ import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -50,6 +61,8 @@ public class NotificationTimerTaskTest {
   private NotificationCheckerFactory notificationCheckerFactory;
   @Mock
   private LastNotificationTime notificationTime;
+  @Mock
+  private ScheduledExecutorService executor;
 
   private ZonedDateTime time = ZonedDateTime.now();
   private NotificationTimerTask timerTask;
@@ -59,7 +72,11 @@ public class NotificationTimerTaskTest {
     MockitoAnnotations.initMocks(this);
     when(notificationTime.get()).thenReturn(time);
     when(notificationCheckerFactory.create(any())).thenReturn(notificationChecker);
-    timerTask = new NotificationTimerTask(notificationCheckerFactory);
+    when(executor.schedule(any(Runnable.class), anyLong(), any())).thenAnswer(invocation -> {
+      invocation.<Runnable>getArgument(0).run();
+      return null;
+    });
+    timerTask = new NotificationTimerTask(notificationCheckerFactory, executor, 0);
   }
 
   @Test
@@ -160,6 +177,76 @@ public class NotificationTimerTaskTest {
     verify(listener).handle(notif);
   }
 
+  @Test
+  public void testCheckerReusedBetweenRuns() {
+    NotificationConfiguration project = createProject("myproject");
+    timerTask.setProjects(Collections.singleton(project));
+    timerTask.run();
+    timerTask.run();
+
+    verify(notificationCheckerFactory, times(1)).create(any(ServerConfiguration.class));
+    verify(notificationChecker, times(2)).request(Collections.singletonMap("myproject", time));
+  }
+
+  @Test
+  public void testBackoffAfterFailure() {
+    when(notificationChecker.request(anyMap())).thenThrow(new IllegalStateException());
+    NotificationConfiguration project = createProject("myproject");
+    timerTask.setProjects(Collections.singleton(project));
+    timerTask.run();
+    timerTask.run();
+
+    verify(notificationChecker, times(1)).request(anyMap());
+  }
+
+  @Test
+  public void testLargeProjectSetIsSplit() {
+    ServerConfiguration server = mock(ServerConfiguration.class);
+    List<NotificationConfiguration> projects = new ArrayList<>();
+    for (int i = 0; i < 120; i++) {
+      projects.add(createProject("project" + i, server));
+    }
+    timerTask.setProjects(projects);
+    timerTask.run();
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Map<String, ZonedDateTime>> requests = ArgumentCaptor.forClass(Map.class);
+    verify(notificationChecker, times(3)).request(requests.capture());
+    assertThat(requests.getAllValues()).extracting(Map::size).containsExactly(50, 50, 20);
+    assertThat(requests.getAllValues().get(2)).containsKey("project119");
+  }
+
+  @Test
+  public void testSlowServerDoesNotDelayOthers() throws Exception {
+    CountDownLatch slowServerReleased = new CountDownLatch(1);
+    CountDownLatch fastServerPolled = new CountDownLatch(1);
+    ServerConfiguration slowServer = mock(ServerConfiguration.class);
+    ServerConfiguration fastServer = mock(ServerConfiguration.class);
+    NotificationChecker slowChecker = mock(NotificationChecker.class);
+    NotificationChecker fastChecker = mock(NotificationChecker.class);
+    when(notificationCheckerFactory.create(slowServer)).thenReturn(slowChecker);
+    when(notificationCheckerFactory.create(fastServer)).thenReturn(fastChecker);
+    when(slowChecker.request(anyMap())).thenAnswer(invocation -> {
+      slowServerReleased.await();
+      return Collections.emptyList();
+    });
+    when(fastChecker.request(anyMap())).thenAnswer(invocation -> {
+      fastServerPolled.countDown();
+      return Collections.emptyList();
+    });
+    ScheduledExecutorService realExecutor = Executors.newScheduledThreadPool(2);
+    timerTask = new NotificationTimerTask(notificationCheckerFactory, realExecutor, 0);
+    timerTask.setProjects(Arrays.asList(createProject("slow", slowServer), createProject("fast", fastServer)));
+
+    try {
+      timerTask.run();
+      assertThat(fastServerPolled.await(5, TimeUnit.SECONDS)).isTrue();
+    } finally {
+      slowServerReleased.countDown();
+      timerTask.cancel();
+    }
+  }
+
   private NotificationConfiguration createProject(String key) {
     return createProject(key, mock(ServerConfiguration.class));
   }
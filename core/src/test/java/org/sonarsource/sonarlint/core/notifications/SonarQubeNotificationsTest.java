@@ -76,6 +76,7 @@ public class SonarQubeNotificationsTest {
   public void testStop() {
     SonarQubeNotifications notifications = new SonarQubeNotifications(timer, timerTask, checkerFactory);
     notifications.stop();
+    verify(timerTask).cancel();
     verify(timer).cancel();
   }
 
@@ -31,7 +31,7 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.api.Plugin;
 import org.sonar.api.SonarPlugin;
-import org.sonar.api.utils.internal.JUnitTempFolder;
+import org.sonarsource.sonarlint.core.plugin.cache.PluginCache;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.entry;
@@ -43,11 +43,8 @@ public class PluginLoaderTest {
   @Rule
   public TemporaryFolder temp = new TemporaryFolder();
 
-  @Rule
-  public JUnitTempFolder tempFolder = new JUnitTempFolder();
-
   PluginClassloaderFactory classloaderFactory = mock(PluginClassloaderFactory.class);
-  PluginLoader loader = new PluginLoader(new FakePluginExploder(), classloaderFactory, tempFolder);
+  PluginLoader loader = new PluginLoader(new FakePluginExploder(), classloaderFactory, mock(PluginCache.class));
 
   @Test
   public void instantiate_plugin_entry_point() {
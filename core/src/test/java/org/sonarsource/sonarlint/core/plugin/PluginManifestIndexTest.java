@@ -0,0 +1,105 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.plugin;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PluginManifestIndexTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void read_manifest_from_index_once_saved() throws IOException {
+    Path cacheDir = temp.newFolder().toPath();
+    Path jar = createPluginJar(cacheDir.resolve("abcdef"), "java", "5.7");
+
+    PluginManifestIndex index = new PluginManifestIndex(cacheDir);
+    PluginManifest manifest = index.get(jar);
+    assertThat(manifest.getKey()).isEqualTo("java");
+    assertThat(manifest.getVersion()).isEqualTo("5.7");
+    assertThat(manifest.isSonarLintSupported()).isTrue();
+    index.save();
+    assertThat(cacheDir.resolve(PluginManifestIndex.INDEX_FILENAME)).exists();
+
+    // the jar is not read anymore
+    Files.delete(jar);
+    manifest = new PluginManifestIndex(cacheDir).get(jar);
+    assertThat(manifest.getKey()).isEqualTo("java");
+    assertThat(manifest.getName()).isEqualTo("java name");
+    assertThat(manifest.getVersion()).isEqualTo("5.7");
+    assertThat(manifest.getMainClass()).isEqualTo("org.Main");
+    assertThat(manifest.isSonarLintSupported()).isTrue();
+  }
+
+  @Test
+  public void entries_are_identified_by_hash_directory() throws IOException {
+    Path cacheDir = temp.newFolder().toPath();
+    Path jar1 = createPluginJar(cacheDir.resolve("hash1"), "java", "1.0");
+    Path jar2 = createPluginJar(cacheDir.resolve("hash2"), "java", "2.0");
+
+    PluginManifestIndex index = new PluginManifestIndex(cacheDir);
+    index.get(jar1);
+    index.get(jar2);
+    index.save();
+
+    index = new PluginManifestIndex(cacheDir);
+    assertThat(index.get(jar1).getVersion()).isEqualTo("1.0");
+    assertThat(index.get(jar2).getVersion()).isEqualTo("2.0");
+  }
+
+  @Test
+  public void rebuild_corrupted_index() throws IOException {
+    Path cacheDir = temp.newFolder().toPath();
+    Files.write(cacheDir.resolve(PluginManifestIndex.INDEX_FILENAME), new byte[] {0, 1, 2});
+    Path jar = createPluginJar(cacheDir.resolve("hash"), "java", "1.0");
+
+    assertThat(new PluginManifestIndex(cacheDir).get(jar).getKey()).isEqualTo("java");
+  }
+
+  private static Path createPluginJar(Path dir, String key, String version) throws IOException {
+    Files.createDirectories(dir);
+    Path jar = dir.resolve("sonar-" + key + "-plugin.jar");
+    Manifest manifest = new Manifest();
+    Attributes attributes = manifest.getMainAttributes();
+    attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    attributes.putValue(PluginManifest.KEY_ATTRIBUTE, key);
+    attributes.putValue(PluginManifest.NAME_ATTRIBUTE, key + " name");
+    attributes.putValue(PluginManifest.VERSION_ATTRIBUTE, version);
+    attributes.putValue(PluginManifest.MAIN_CLASS_ATTRIBUTE, "org.Main");
+    attributes.putValue(PluginManifest.SONARLINT_SUPPORTED, "true");
+    attributes.putValue("Other-Attribute", "ignored");
+    try (OutputStream out = Files.newOutputStream(jar); JarOutputStream jarOut = new JarOutputStream(out, manifest)) {
+      // only the manifest
+    }
+    return jar;
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.plugin;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.Test;
+import org.sonar.api.Plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class PluginRuntimeCacheTest {
+
+  private final PluginRuntimeCache cache = new PluginRuntimeCache();
+  private final AtomicInteger loadCount = new AtomicInteger();
+  private final Function<Map<String, PluginInfo>, Map<String, Plugin>> loader = infos -> {
+    loadCount.incrementAndGet();
+    return Collections.singletonMap("java", mock(Plugin.class));
+  };
+
+  @Test
+  public void share_plugins_loaded_from_same_jars() {
+    Map<String, Plugin> first = cache.acquire(infos("hash1"), loader);
+    Map<String, Plugin> second = cache.acquire(infos("hash1"), loader);
+
+    assertThat(loadCount.get()).isEqualTo(1);
+    assertThat(second.get("java")).isSameAs(first.get("java"));
+
+    assertThat(cache.release(first.values())).isFalse();
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cache.release(second.values())).isTrue();
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  public void dont_share_plugins_loaded_from_different_jars() {
+    Map<String, Plugin> first = cache.acquire(infos("hash1"), loader);
+    Map<String, Plugin> second = cache.acquire(infos("hash2"), loader);
+
+    assertThat(loadCount.get()).isEqualTo(2);
+    assertThat(second.get("java")).isNotSameAs(first.get("java"));
+    assertThat(cache.release(first.values())).isTrue();
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void release_unknown_plugins() {
+    assertThat(cache.release(Collections.singletonList(mock(Plugin.class)))).isTrue();
+    assertThat(cache.release(Collections.emptyList())).isTrue();
+  }
+
+  @Test
+  public void load_plugins_outside_of_the_lock() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Plugin slowPlugin = mock(Plugin.class);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Map<String, Plugin>> slow = executor.submit(() -> cache.acquire(infos("hash1"), infos -> {
+        loading.countDown();
+        await(release);
+        return Collections.singletonMap("java", slowPlugin);
+      }));
+      assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+      Future<Map<String, Plugin>> waiting = executor.submit(() -> cache.acquire(infos("hash1"), loader));
+
+      // other plugins are loaded while the first ones are being loaded
+      cache.acquire(infos("hash2"), loader);
+      assertThat(loadCount.get()).isEqualTo(1);
+      assertThat(waiting.isDone()).isFalse();
+
+      release.countDown();
+      assertThat(slow.get(5, TimeUnit.SECONDS).get("java")).isSameAs(slowPlugin);
+      assertThat(waiting.get(5, TimeUnit.SECONDS).get("java")).isSameAs(slowPlugin);
+      assertThat(loadCount.get()).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void load_again_after_failure() {
+    assertThatThrownBy(() -> cache.acquire(infos("hash1"), infos -> {
+      throw new IllegalStateException("failure");
+    })).hasMessage("failure");
+    assertThat(cache.size()).isZero();
+
+    cache.acquire(infos("hash1"), loader);
+    assertThat(loadCount.get()).isEqualTo(1);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static Map<String, PluginInfo> infos(String hash) {
+    PluginInfo info = new PluginInfo("java").setJarFile(new File(new File("cache", hash), "sonar-java-plugin.jar"));
+    return Collections.singletonMap("java", info);
+  }
+}
@@ -20,12 +20,20 @@
 package org.sonarsource.sonarlint.core.tracking;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.Test;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedSonarLintEngine;
 import org.sonarsource.sonarlint.core.client.api.connected.ProjectBinding;
 import org.sonarsource.sonarlint.core.client.api.connected.ServerConfiguration;
+import org.sonarsource.sonarlint.core.client.api.connected.ServerIssue;
 import org.sonarsource.sonarlint.core.client.api.exceptions.DownloadException;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -62,4 +70,23 @@ public class ServerIssueTrackerTest {
     verify(engine).getServerIssues(projectBinding, filePath);
     verifyNoMoreInteractions(engine);
   }
+
+  @Test
+  public void should_match_many_files_with_a_single_storage_read() {
+    List<String> files = IntStream.range(0, 100).mapToObj(i -> "file" + i).collect(Collectors.toList());
+    Map<String, List<ServerIssue>> issuesByFile = new LinkedHashMap<>();
+    files.forEach(f -> issuesByFile.put(f, Collections.emptyList()));
+    when(engine.getServerIssuesForFiles(projectBinding, files)).thenReturn(issuesByFile);
+    InMemoryIssueTrackerCache cache = new InMemoryIssueTrackerCache();
+    Logger logger = mock(Logger.class);
+    files.stream().skip(1).forEach(f -> cache.put(f, Collections.emptyList()));
+
+    new ServerIssueTracker(logger, new CachingIssueTrackerImpl(cache)).updateAll(engine, projectBinding, files);
+
+    verify(engine).getServerIssuesForFiles(projectBinding, files);
+    verifyNoMoreInteractions(engine);
+    // file0 was never analyzed, other files are still matched
+    verify(logger).error(eq("error while matching server issues of file0"), any(IllegalStateException.class));
+    verifyNoMoreInteractions(logger);
+  }
 }
@@ -19,7 +19,6 @@
  */
 package org.sonarsource.sonarlint.core.util;
 
-import java.nio.file.Paths;
 import org.junit.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -29,35 +28,35 @@ public class ReversePathTreeTest {
 
   @Test
   public void should_return_matching_prefixes() {
-    tree.index(Paths.get("project1/src/main/java/File.java"));
-    tree.index(Paths.get("project2/src/main/java/File.java"));
-    tree.index(Paths.get("project2/src/test/java/File.java"));
+    tree.index("project1/src/main/java/File.java");
+    tree.index("project2/src/main/java/File.java");
+    tree.index("project2/src/test/java/File.java");
 
-    ReversePathTree.Match match = tree.findLongestSuffixMatches(Paths.get("src/main/java/File.java"));
+    ReversePathTree.Match match = tree.findLongestSuffixMatches("src/main/java/File.java");
 
     assertThat(match.matchLen()).isEqualTo(4);
-    assertThat(match.matchPrefixes()).containsExactly(Paths.get("project1"), Paths.get("project2"));
+    assertThat(match.matchPrefixes()).containsExactly("project1", "project2");
   }
 
   @Test
   public void should_return_empty_prefix_if_full_match() {
-    tree.index(Paths.get("project1/src/main/java/File.java"));
-    tree.index(Paths.get("project2/src/main/java/File.java"));
-    tree.index(Paths.get("project2/src/test/java/File.java"));
+    tree.index("project1/src/main/java/File.java");
+    tree.index("project2/src/main/java/File.java");
+    tree.index("project2/src/test/java/File.java");
 
-    ReversePathTree.Match match = tree.findLongestSuffixMatches(Paths.get("project2/src/main/java/File.java"));
+    ReversePathTree.Match match = tree.findLongestSuffixMatches("project2/src/main/java/File.java");
 
     assertThat(match.matchLen()).isEqualTo(5);
-    assertThat(match.matchPrefixes()).containsExactly(Paths.get(""));
+    assertThat(match.matchPrefixes()).containsExactly("");
   }
 
   @Test
   public void should_return_empty_if_no_match() {
-    tree.index(Paths.get("project1/src/main/java/File.java"));
-    tree.index(Paths.get("project2/src/main/java/File.java"));
-    tree.index(Paths.get("project2/src/test/java/File.java"));
+    tree.index("project1/src/main/java/File.java");
+    tree.index("project2/src/main/java/File.java");
+    tree.index("project2/src/test/java/File.java");
 
-    ReversePathTree.Match match = tree.findLongestSuffixMatches(Paths.get("File2.java"));
+    ReversePathTree.Match match = tree.findLongestSuffixMatches("File2.java");
 
     assertThat(match.matchLen()).isEqualTo(0);
     assertThat(match.matchPrefixes()).isEmpty();
@@ -65,13 +64,43 @@ public class ReversePathTreeTest {
 
   @Test
   public void should_return_matches_that_are_part_of_other_matches() {
-    tree.index(Paths.get("project1/A/pom.xml"));
-    tree.index(Paths.get("project1/pom.xml"));
-    tree.index(Paths.get("pom.xml"));
-    ReversePathTree.Match match = tree.findLongestSuffixMatches(Paths.get("pom.xml"));
+    tree.index("project1/A/pom.xml");
+    tree.index("project1/pom.xml");
+    tree.index("pom.xml");
+    ReversePathTree.Match match = tree.findLongestSuffixMatches("pom.xml");
     assertThat(match.matchLen()).isEqualTo(1);
-    assertThat(match.matchPrefixes()).containsOnly(Paths.get(""), Paths.get("project1"), Paths.get("project1/A"));
+    assertThat(match.matchPrefixes()).containsOnly("", "project1", "project1/A");
 
   }
 
+  @Test
+  public void should_refresh_prefixes_after_indexing() {
+    tree.index("project1/pom.xml");
+    assertThat(tree.findLongestSuffixMatches("pom.xml").matchPrefixes()).containsExactly("project1");
+
+    tree.index("project2/pom.xml");
+    assertThat(tree.findLongestSuffixMatches("pom.xml").matchPrefixes()).containsExactly("project1", "project2");
+  }
+
+  @Test
+  public void should_ignore_empty_segments() {
+    tree.index("/project1//src/File.java");
+
+    ReversePathTree.Match match = tree.findLongestSuffixMatches("src//File.java/");
+
+    assertThat(match.matchLen()).isEqualTo(2);
+    assertThat(match.matchPrefixes()).containsExactly("project1");
+  }
+
+  @Test
+  public void should_index_many_paths() {
+    for (int i = 0; i < 1000; i++) {
+      tree.index("module" + i + "/src/File" + (i % 10) + ".java");
+    }
+
+    ReversePathTree.Match match = tree.findLongestSuffixMatches("src/File3.java");
+
+    assertThat(match.matchLen()).isEqualTo(2);
+    assertThat(match.matchPrefixes()).hasSize(100).startsWith("module3", "module13");
+  }
 }
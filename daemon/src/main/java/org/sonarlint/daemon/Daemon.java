@@ -30,6 +30,7 @@ import java.nio.file.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonarlint.daemon.interceptors.ExceptionInterceptor;
+import org.sonarlint.daemon.services.AnalysisScheduler;
 import org.sonarlint.daemon.services.ConnectedSonarLintImpl;
 import org.sonarlint.daemon.services.StandaloneSonarLintImpl;
 
@@ -42,6 +43,7 @@ public class Daemon {
     setUpNettyLogging();
 
     int port;
+    AnalysisScheduler scheduler;
     try {
       Options options = Options.parse(args);
 
@@ -51,13 +53,17 @@ public class Daemon {
       }
 
       port = options.getPort() != null ? options.getPort() : DEFAULT_PORT;
+      scheduler = new AnalysisScheduler(
+        options.getAnalysisThreads() != null ? options.getAnalysisThreads() : AnalysisScheduler.DEFAULT_THREADS,
+        options.getAnalysisQueueSize() != null ? options.getAnalysisQueueSize() : AnalysisScheduler.DEFAULT_MAX_QUEUED,
+        options.getSessionConcurrency() != null ? options.getSessionConcurrency() : AnalysisScheduler.DEFAULT_MAX_CONCURRENT_PER_SESSION);
     } catch (Exception e) {
       LOGGER.error("Error parsing arguments", e);
       return;
     }
 
     Path sonarlintHome = Utils.getSonarLintInstallationHome();
-    new Daemon().start(port, sonarlintHome);
+    new Daemon().start(port, sonarlintHome, scheduler);
   }
 
   private static void setUpNettyLogging() {
@@ -70,13 +76,17 @@ public class Daemon {
   }
 
   public void start(int port, Path sonarlintHome) {
+    start(port, sonarlintHome, new AnalysisScheduler());
+  }
+
+  public void start(int port, Path sonarlintHome, AnalysisScheduler scheduler) {
     try {
       LOGGER.info("Starting server on port {}", port);
       ServerInterceptor interceptor = new ExceptionInterceptor();
 
       server = NettyServerBuilder.forAddress(new InetSocketAddress("localhost", port))
-        .addService(ServerInterceptors.intercept(new ConnectedSonarLintImpl(this), interceptor))
-        .addService(ServerInterceptors.intercept(new StandaloneSonarLintImpl(this, Utils.getAnalyzers(sonarlintHome)), interceptor))
+        .addService(ServerInterceptors.intercept(new ConnectedSonarLintImpl(this, scheduler), interceptor))
+        .addService(ServerInterceptors.intercept(new StandaloneSonarLintImpl(this, Utils.getAnalyzers(sonarlintHome), scheduler), interceptor))
         .build()
         .start();
       LOGGER.info("Server started, listening on {}", port);
@@ -90,6 +100,7 @@ public class Daemon {
         }
       });
       server.awaitTermination();
+      scheduler.shutdown();
     } catch (Exception e) {
       // grpc threads are daemon, so should not hang process
       LOGGER.error("Error running daemon", e);
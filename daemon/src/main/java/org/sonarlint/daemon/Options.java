@@ -30,6 +30,9 @@ public class Options {
   private static final Logger LOGGER = LoggerFactory.getLogger(Options.class);
   private boolean help = false;
   private String port = null;
+  private String analysisThreads = null;
+  private String analysisQueueSize = null;
+  private String sessionConcurrency = null;
 
   public static Options parse(String[] args) throws ParseException {
     Options options = new Options();
@@ -43,6 +46,18 @@ public class Options {
         i++;
         checkAdditionalArg(i, args.length, arg);
         options.port = args[i];
+      } else if ("--analysis-threads".equals(arg)) {
+        i++;
+        checkAdditionalArg(i, args.length, arg);
+        options.analysisThreads = args[i];
+      } else if ("--analysis-queue".equals(arg)) {
+        i++;
+        checkAdditionalArg(i, args.length, arg);
+        options.analysisQueueSize = args[i];
+      } else if ("--session-concurrency".equals(arg)) {
+        i++;
+        checkAdditionalArg(i, args.length, arg);
+        options.sessionConcurrency = args[i];
       } else {
         throw new ParseException("Unrecognized option: " + arg, i);
       }
@@ -66,13 +81,31 @@ public class Options {
     return port == null ? null : Integer.parseInt(port);
   }
 
+  @CheckForNull
+  public Integer getAnalysisThreads() {
+    return analysisThreads == null ? null : Integer.parseInt(analysisThreads);
+  }
+
+  @CheckForNull
+  public Integer getAnalysisQueueSize() {
+    return analysisQueueSize == null ? null : Integer.parseInt(analysisQueueSize);
+  }
+
+  @CheckForNull
+  public Integer getSessionConcurrency() {
+    return sessionConcurrency == null ? null : Integer.parseInt(sessionConcurrency);
+  }
+
   public static void printUsage() {
     LOGGER.info("");
     LOGGER.info("usage: sonarlint-daemon [options]");
     LOGGER.info("");
     LOGGER.info("Options:");
-    LOGGER.info(" -h,--help              Display help information");
-    LOGGER.info(" --port <port>          Network port to listen to");
+    LOGGER.info(" -h,--help                   Display help information");
+    LOGGER.info(" --port <port>               Network port to listen to");
+    LOGGER.info(" --analysis-threads <n>      Number of analyses that can run at the same time");
+    LOGGER.info(" --analysis-queue <n>        Number of analyses that can wait before new ones are rejected");
+    LOGGER.info(" --session-concurrency <n>   Number of analyses of a given storage that can run at the same time");
   }
 
 }
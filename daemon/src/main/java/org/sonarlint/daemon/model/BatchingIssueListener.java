@@ -0,0 +1,244 @@
+/*
+ * SonarLint Daemon
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.daemon.model;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.BatchedIssue;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.IssueBatch;
+
+/**
+ * Streams issues in batches of at most {@link #maxBatchSize} issues. A batch is also sent {@link #maxDelayMs} after its first issue,
+ * even if no other issue is received. {@link #flush()} must be called at the end of the analysis, then {@link #close()}.
+ * Before sending a batch, the analysis thread waits for the transport to be ready (gRPC flow control) so that the analysis is slowed down
+ * instead of buffering an unbounded number of messages. Timed flushes never wait: they are retried until the transport is ready.
+ */
+public class BatchingIssueListener implements IssueListener {
+  static final int DEFAULT_MAX_BATCH_SIZE = 200;
+  static final long DEFAULT_MAX_DELAY_MS = 100;
+  private static final long READY_POLL_MS = 10;
+  private static final ScheduledExecutorService FLUSH_SCHEDULER = createFlushScheduler();
+
+  private final StreamObserver<IssueBatch> observer;
+  private final int maxBatchSize;
+  private final long maxDelayMs;
+  private final Map<String, Integer> dictionary = new HashMap<>();
+  private final Object readyLock = new Object();
+  private final ReentrantLock lock = new ReentrantLock();
+  private IssueBatch.Builder batch = IssueBatch.newBuilder();
+  private long batchStartTime;
+  private long batchNumber;
+  private ScheduledFuture<?> scheduledFlush;
+  private volatile boolean closed;
+
+  public BatchingIssueListener(StreamObserver<IssueBatch> observer) {
+    this(observer, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_DELAY_MS);
+  }
+
+  BatchingIssueListener(StreamObserver<IssueBatch> observer, int maxBatchSize, long maxDelayMs) {
+    this.observer = observer;
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayMs = maxDelayMs;
+    dictionary.put("", 0);
+    if (observer instanceof ServerCallStreamObserver) {
+      ((ServerCallStreamObserver<IssueBatch>) observer).setOnReadyHandler(this::signalReady);
+    }
+  }
+
+  @Override
+  public void handle(Issue issue) {
+    lock.lock();
+    try {
+      add(issue);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void add(Issue issue) {
+    if (batch.getIssueCount() == 0) {
+      batchStartTime = System.currentTimeMillis();
+      long number = batchNumber;
+      scheduledFlush = FLUSH_SCHEDULER.schedule(() -> timedFlush(number), maxDelayMs, TimeUnit.MILLISECONDS);
+    }
+    ClientInputFile inputFile = issue.getInputFile();
+    BatchedIssue.Builder builder = BatchedIssue.newBuilder()
+      .setRuleKeyRef(ref(issue.getRuleKey()))
+      .setRuleNameRef(ref(issue.getRuleName()))
+      .setMessage(issue.getMessage())
+      .setSeverity(ProxyIssueListener.toSeverity(issue.getSeverity()))
+      .setType(ProxyIssueListener.toType(issue.getType()))
+      .setStartLine(issue.getStartLine() != null ? issue.getStartLine() : 0)
+      .setStartLineOffset(issue.getStartLineOffset() != null ? issue.getStartLineOffset() : 0)
+      .setEndLine(issue.getEndLine() != null ? issue.getEndLine() : 0)
+      .setEndLineOffset(issue.getEndLineOffset() != null ? issue.getEndLineOffset() : 0);
+
+    if (inputFile != null) {
+      builder.setFilePathRef(ref(inputFile.getPath()));
+      if (inputFile.getClientObject() != null) {
+        builder.setUserObjectRef(ref((String) inputFile.getClientObject()));
+      }
+    }
+    batch.addIssue(builder);
+
+    if (batch.getIssueCount() >= maxBatchSize || System.currentTimeMillis() - batchStartTime >= maxDelayMs) {
+      send();
+    }
+  }
+
+  /**
+   * Sends the pending issues, if any.
+   */
+  public void flush() {
+    lock.lock();
+    try {
+      send();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Stops timed flushes, that must not use the call once it is completed. Issues not flushed yet are discarded.
+   * Must be called when the analysis ends, including on failure.
+   */
+  public void close() {
+    lock.lock();
+    try {
+      closed = true;
+      if (scheduledFlush != null) {
+        scheduledFlush.cancel(false);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void send() {
+    if (batch.getIssueCount() == 0) {
+      return;
+    }
+    scheduledFlush.cancel(false);
+    awaitReady();
+    sendReady();
+  }
+
+  private void sendReady() {
+    observer.onNext(batch.build());
+    batch = IssueBatch.newBuilder();
+    batchNumber++;
+  }
+
+  /**
+   * Runs on the scheduler thread. Retried later if the analysis thread is using the listener, since it then either sends the batch
+   * or checks the delay itself, or if the transport is not ready.
+   */
+  private void timedFlush(long number) {
+    if (closed) {
+      return;
+    }
+    if (!lock.tryLock()) {
+      FLUSH_SCHEDULER.schedule(() -> timedFlush(number), READY_POLL_MS, TimeUnit.MILLISECONDS);
+      return;
+    }
+    try {
+      if (closed || number != batchNumber || batch.getIssueCount() == 0) {
+        // already sent, or the call is completed
+        return;
+      }
+      if (isReady()) {
+        sendReady();
+      } else if (!isCancelled()) {
+        scheduledFlush = FLUSH_SCHEDULER.schedule(() -> timedFlush(number), READY_POLL_MS, TimeUnit.MILLISECONDS);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private int ref(@Nullable String value) {
+    if (value == null) {
+      return 0;
+    }
+    Integer index = dictionary.get(value);
+    if (index == null) {
+      index = dictionary.size();
+      dictionary.put(value, index);
+      batch.addNewString(value);
+    }
+    return index;
+  }
+
+  private void awaitReady() {
+    if (!(observer instanceof ServerCallStreamObserver)) {
+      return;
+    }
+    ServerCallStreamObserver<IssueBatch> call = (ServerCallStreamObserver<IssueBatch>) observer;
+    // the ready handler may not be called while the analysis runs on the call's thread, so also poll
+    while (!call.isReady()) {
+      if (call.isCancelled()) {
+        throw new IllegalStateException("Analysis cancelled by the client");
+      }
+      synchronized (readyLock) {
+        try {
+          readyLock.wait(READY_POLL_MS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Interrupted while waiting for the client to consume issues", e);
+        }
+      }
+    }
+  }
+
+  private boolean isReady() {
+    return !(observer instanceof ServerCallStreamObserver) || ((ServerCallStreamObserver<IssueBatch>) observer).isReady();
+  }
+
+  private boolean isCancelled() {
+    return observer instanceof ServerCallStreamObserver && ((ServerCallStreamObserver<IssueBatch>) observer).isCancelled();
+  }
+
+  private static ScheduledExecutorService createFlushScheduler() {
+    ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+      Thread thread = new Thread(r, "sonarlint-issue-flush");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.setRemoveOnCancelPolicy(true);
+    return scheduler;
+  }
+
+  private void signalReady() {
+    synchronized (readyLock) {
+      readyLock.notifyAll();
+    }
+  }
+}
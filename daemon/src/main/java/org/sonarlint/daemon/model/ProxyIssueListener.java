@@ -20,6 +20,7 @@
 package org.sonarlint.daemon.model;
 
 import io.grpc.stub.StreamObserver;
+import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
@@ -36,50 +37,14 @@ public class ProxyIssueListener implements IssueListener {
 
   @Override
   public void handle(org.sonarsource.sonarlint.core.client.api.common.analysis.Issue issue) {
-    Severity severity;
     ClientInputFile inputFile = issue.getInputFile();
 
-    switch (issue.getSeverity()) {
-      case "MINOR":
-        severity = Severity.MINOR;
-        break;
-      case "BLOCKER":
-        severity = Severity.BLOCKER;
-        break;
-      case "INFO":
-        severity = Severity.INFO;
-        break;
-      case "CRITICAL":
-        severity = Severity.CRITICAL;
-        break;
-      case "MAJOR":
-      default:
-        severity = Severity.MAJOR;
-        break;
-    }
-
-    Type type = Type.CODE_SMELL;
-    if (issue.getType() != null) {
-      switch (StringUtils.lowerCase(issue.getType())) {
-        case "bug":
-          type = Type.BUG;
-          break;
-        case "vulnerability":
-          type = Type.VULNERABILITY;
-          break;
-        case "code_smell":
-        default:
-          type = Type.CODE_SMELL;
-          break;
-      }
-    }
-
     Issue.Builder builder = Issue.newBuilder();
     builder.setRuleKey(issue.getRuleKey())
       .setRuleName(issue.getRuleName())
       .setMessage(issue.getMessage())
-      .setSeverity(severity)
-      .setType(type)
+      .setSeverity(toSeverity(issue.getSeverity()))
+      .setType(toType(issue.getType()))
       .setStartLine(issue.getStartLine() != null ? issue.getStartLine() : 0)
       .setStartLineOffset(issue.getStartLineOffset() != null ? issue.getStartLineOffset() : 0)
       .setEndLine(issue.getEndLine() != null ? issue.getEndLine() : 0)
@@ -94,4 +59,35 @@ public class ProxyIssueListener implements IssueListener {
 
     observer.onNext(builder.build());
   }
+
+  static Severity toSeverity(String severity) {
+    switch (severity) {
+      case "MINOR":
+        return Severity.MINOR;
+      case "BLOCKER":
+        return Severity.BLOCKER;
+      case "INFO":
+        return Severity.INFO;
+      case "CRITICAL":
+        return Severity.CRITICAL;
+      case "MAJOR":
+      default:
+        return Severity.MAJOR;
+    }
+  }
+
+  static Type toType(@Nullable String type) {
+    if (type == null) {
+      return Type.CODE_SMELL;
+    }
+    switch (StringUtils.lowerCase(type)) {
+      case "bug":
+        return Type.BUG;
+      case "vulnerability":
+        return Type.VULNERABILITY;
+      case "code_smell":
+      default:
+        return Type.CODE_SMELL;
+    }
+  }
 }
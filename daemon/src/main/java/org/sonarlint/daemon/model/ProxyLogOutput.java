@@ -21,47 +21,254 @@ package org.sonarlint.daemon.model;
 
 import io.grpc.StatusRuntimeException;
 import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.slf4j.LoggerFactory;
 import org.sonarlint.daemon.Daemon;
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.LogEvent;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.LogEventBatch;
 
+/**
+ * Forwards logs to the client that called StreamLogs or StreamLogBatches.
+ * Logging threads only push events in a bounded buffer, that is drained by a dedicated thread. When the client
+ * doesn't consume logs fast enough and the buffer is full, debug/trace events are dropped and other events
+ * evict the oldest buffered debug/trace event, or else the oldest buffered event that is not an error. Error events are
+ * never evicted. Dropped events are counted and reported to the client in a single notification.
+ */
 public class ProxyLogOutput implements LogOutput {
   private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(ProxyLogOutput.class);
+  static final int DEFAULT_CAPACITY = 10_000;
+  static final int MAX_BATCH_SIZE = 500;
+
   private final Daemon daemon;
-  private StreamObserver<LogEvent> response;
+  private final BlockingQueue<LogEvent> buffer;
+  private final AtomicLong droppedEvents = new AtomicLong();
+  private final AtomicLong unreportedDroppedEvents = new AtomicLong();
+  private final Object sinkLock = new Object();
+  private volatile LogSink sink;
+  private Thread drainer;
 
   public ProxyLogOutput(Daemon daemon) {
+    this(daemon, DEFAULT_CAPACITY);
+  }
+
+  ProxyLogOutput(Daemon daemon, int capacity) {
     this.daemon = daemon;
+    this.buffer = new ArrayBlockingQueue<>(capacity);
   }
 
   public void setObserver(@Nullable StreamObserver<LogEvent> response) {
-    if (this.response != null) {
-      this.response.onCompleted();
+    setSink(response != null ? new SingleEventSink(response) : null);
+  }
+
+  public void setBatchObserver(@Nullable StreamObserver<LogEventBatch> response) {
+    setSink(response != null ? new BatchSink(response) : null);
+  }
+
+  /**
+   * Total number of log events that were dropped because the buffer was full.
+   */
+  public long getDroppedEventCount() {
+    return droppedEvents.get();
+  }
+
+  private void setSink(@Nullable LogSink newSink) {
+    LogSink previous;
+    synchronized (sinkLock) {
+      previous = this.sink;
+      this.sink = newSink;
+      if (newSink != null && drainer == null) {
+        drainer = new Thread(this::drain, "sonarlint-log-stream");
+        drainer.setDaemon(true);
+        drainer.start();
+      }
+    }
+    if (previous != null) {
+      previous.complete();
     }
-    this.response = response;
   }
 
   @Override
-  public synchronized void log(String formattedMessage, Level level) {
+  public void log(String formattedMessage, Level level) {
     if (level == Level.ERROR) {
       LOGGER.error(formattedMessage);
     }
 
-    if (response != null) {
+    if (sink != null) {
+      boolean isDebug = level == Level.DEBUG || level == Level.TRACE;
       LogEvent log = LogEvent.newBuilder()
         .setLevel(level.name())
         .setLog(formattedMessage)
-        .setIsDebug(level == Level.DEBUG || level == Level.TRACE)
+        .setIsDebug(isDebug)
         .build();
+      enqueue(log, isDebug);
+    }
+  }
+
+  private void enqueue(LogEvent log, boolean isDebug) {
+    if (buffer.offer(log)) {
+      return;
+    }
+    if (!isDebug && (evictOldest(LogEvent::getIsDebug) || evictOldest(e -> !Level.ERROR.name().equals(e.getLevel()))) && buffer.offer(log)) {
+      return;
+    }
+    countDropped();
+  }
+
+  private boolean evictOldest(Predicate<LogEvent> evictable) {
+    for (LogEvent event : buffer) {
+      // the event may have been drained in the meantime
+      if (evictable.test(event) && buffer.remove(event)) {
+        countDropped();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void countDropped() {
+    droppedEvents.incrementAndGet();
+    unreportedDroppedEvents.incrementAndGet();
+  }
+
+  private void drain() {
+    List<LogEvent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+    while (true) {
       try {
-        response.onNext(log);
-      } catch (StatusRuntimeException e) {
-        LOGGER.info("Log stream closed, stopping server: {}", e.getMessage());
-        response = null;
-        daemon.stop();
+        batch.add(buffer.take());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
       }
+      buffer.drainTo(batch, MAX_BATCH_SIZE - 1);
+      try {
+        send(batch, unreportedDroppedEvents.getAndSet(0));
+      } catch (RuntimeException e) {
+        // keep draining, otherwise the buffer would stay full
+        LOGGER.error("Failed to stream logs", e);
+      }
+      batch.clear();
+    }
+  }
+
+  private void send(List<LogEvent> events, long dropped) {
+    LogSink current;
+    do {
+      current = sink;
+      if (current == null) {
+        return;
+      }
+      // not sent if the stream was completed after being replaced: use the new one
+    } while (!trySend(current, events, dropped));
+  }
+
+  private boolean trySend(LogSink current, List<LogEvent> events, long dropped) {
+    try {
+      return current.send(events, dropped);
+    } catch (StatusRuntimeException e) {
+      synchronized (sinkLock) {
+        if (sink != current) {
+          // the stream was replaced while sending
+          return true;
+        }
+        sink = null;
+      }
+      LOGGER.info("Log stream closed, stopping server: {}", e.getMessage());
+      daemon.stop();
+      return true;
+    }
+  }
+
+  @CheckForNull
+  static LogEvent droppedEventsNotification(long dropped) {
+    if (dropped == 0) {
+      return null;
+    }
+    return LogEvent.newBuilder()
+      .setLevel(Level.WARN.name())
+      .setLog(dropped + " log event(s) were dropped because the log stream is not consumed fast enough")
+      .setIsDebug(false)
+      .build();
+  }
+
+  /**
+   * Serializes calls to the underlying observer, that is not thread safe, and never calls it once completed.
+   */
+  private abstract static class LogSink {
+    private boolean completed;
+
+    /**
+     * @return false if the stream is already completed
+     */
+    synchronized boolean send(List<LogEvent> events, long dropped) {
+      if (completed) {
+        return false;
+      }
+      doSend(events, dropped);
+      return true;
+    }
+
+    synchronized void complete() {
+      if (!completed) {
+        completed = true;
+        doComplete();
+      }
+    }
+
+    abstract void doSend(List<LogEvent> events, long dropped);
+
+    abstract void doComplete();
+  }
+
+  private static class SingleEventSink extends LogSink {
+    private final StreamObserver<LogEvent> observer;
+
+    SingleEventSink(StreamObserver<LogEvent> observer) {
+      this.observer = observer;
+    }
+
+    @Override
+    void doSend(List<LogEvent> events, long dropped) {
+      LogEvent notification = droppedEventsNotification(dropped);
+      if (notification != null) {
+        observer.onNext(notification);
+      }
+      for (LogEvent event : events) {
+        observer.onNext(event);
+      }
+    }
+
+    @Override
+    void doComplete() {
+      observer.onCompleted();
+    }
+  }
+
+  private static class BatchSink extends LogSink {
+    private final StreamObserver<LogEventBatch> observer;
+
+    BatchSink(StreamObserver<LogEventBatch> observer) {
+      this.observer = observer;
+    }
+
+    @Override
+    void doSend(List<LogEvent> events, long dropped) {
+      observer.onNext(LogEventBatch.newBuilder()
+        .addAllEvent(events)
+        .setDropped(dropped)
+        .build());
+    }
+
+    @Override
+    void doComplete() {
+      observer.onCompleted();
     }
   }
 }
@@ -0,0 +1,195 @@
+/*
+ * SonarLint Daemon
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.daemon.services;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.AnalysisMetrics;
+
+/**
+ * Runs analyses requested by clients on a bounded pool of threads.
+ * Analyses are grouped by session (a storage id, or the standalone engine): at most {@link #maxConcurrentPerSession}
+ * analyses of a session run at the same time, the others wait in the session's queue.
+ * Analyses are handed to the pool only when a thread is available, taking sessions in turn, so that waiting analyses are
+ * counted as queued. Submissions are rejected when {@link #maxQueued} analyses are already waiting.
+ */
+public class AnalysisScheduler {
+  public static final int DEFAULT_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+  public static final int DEFAULT_MAX_QUEUED = 100;
+  public static final int DEFAULT_MAX_CONCURRENT_PER_SESSION = 1;
+
+  private final ExecutorService executor;
+  private final int threads;
+  private final int maxQueued;
+  private final int maxConcurrentPerSession;
+
+  // all fields below are guarded by this
+  private final Map<String, Session> sessions = new HashMap<>();
+  // sessions that can start an analysis, in turn
+  private final Queue<Session> ready = new ArrayDeque<>();
+  private int queued;
+  private int running;
+  private long started;
+  private long completed;
+  private long rejected;
+  private long totalQueueLatencyNanos;
+  private long maxQueueLatencyNanos;
+  private long totalDurationNanos;
+
+  public AnalysisScheduler() {
+    this(DEFAULT_THREADS, DEFAULT_MAX_QUEUED, DEFAULT_MAX_CONCURRENT_PER_SESSION);
+  }
+
+  public AnalysisScheduler(int threads, int maxQueued, int maxConcurrentPerSession) {
+    this.executor = Executors.newFixedThreadPool(threads, new AnalysisThreadFactory());
+    this.threads = threads;
+    this.maxQueued = maxQueued;
+    this.maxConcurrentPerSession = maxConcurrentPerSession;
+  }
+
+  /**
+   * @throws RejectedExecutionException if too many analyses are already waiting
+   */
+  public synchronized void submit(String sessionId, Runnable analysis) {
+    if (queued >= maxQueued) {
+      rejected++;
+      throw new RejectedExecutionException("Too many pending analyses (" + queued + "), try again later");
+    }
+    Session session = sessions.computeIfAbsent(sessionId, Session::new);
+    session.pending.add(new Task(session, analysis));
+    queued++;
+    markReadyIfPossible(session);
+    dispatch();
+  }
+
+  private void markReadyIfPossible(Session session) {
+    if (!session.ready && session.running < maxConcurrentPerSession && !session.pending.isEmpty()) {
+      session.ready = true;
+      ready.add(session);
+    }
+  }
+
+  private void dispatch() {
+    while (running < threads && !ready.isEmpty()) {
+      Session session = ready.poll();
+      session.ready = false;
+      Task task = session.pending.poll();
+      session.running++;
+      queued--;
+      running++;
+      executor.execute(task);
+      markReadyIfPossible(session);
+    }
+  }
+
+  private synchronized void onStart(Task task) {
+    long queueLatency = task.startTime - task.submitTime;
+    started++;
+    totalQueueLatencyNanos += queueLatency;
+    maxQueueLatencyNanos = Math.max(maxQueueLatencyNanos, queueLatency);
+  }
+
+  private synchronized void onEnd(Task task, long endTime) {
+    task.session.running--;
+    running--;
+    completed++;
+    totalDurationNanos += endTime - task.startTime;
+    Session session = task.session;
+    if (session.running == 0 && session.pending.isEmpty()) {
+      sessions.remove(session.id);
+    } else {
+      markReadyIfPossible(session);
+    }
+    dispatch();
+  }
+
+  synchronized int sessionCount() {
+    return sessions.size();
+  }
+
+  public synchronized AnalysisMetrics getMetrics() {
+    return AnalysisMetrics.newBuilder()
+      .setQueued(queued)
+      .setRunning(running)
+      .setCompleted(completed)
+      .setRejected(rejected)
+      .setAvgQueueLatencyMs(started == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalQueueLatencyNanos / started))
+      .setMaxQueueLatencyMs(TimeUnit.NANOSECONDS.toMillis(maxQueueLatencyNanos))
+      .setAvgDurationMs(completed == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalDurationNanos / completed))
+      .build();
+  }
+
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private static class Session {
+    private final String id;
+    private final Queue<Task> pending = new ArrayDeque<>();
+    private int running;
+    private boolean ready;
+
+    Session(String id) {
+      this.id = id;
+    }
+  }
+
+  private class Task implements Runnable {
+    private final Session session;
+    private final Runnable analysis;
+    private final long submitTime = System.nanoTime();
+    private long startTime;
+
+    Task(Session session, Runnable analysis) {
+      this.session = session;
+      this.analysis = analysis;
+    }
+
+    @Override
+    public void run() {
+      startTime = System.nanoTime();
+      onStart(this);
+      try {
+        analysis.run();
+      } finally {
+        onEnd(this, System.nanoTime());
+      }
+    }
+  }
+
+  private static class AnalysisThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread t = new Thread(r, "sonarlint-analysis-" + count.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    }
+  }
+}
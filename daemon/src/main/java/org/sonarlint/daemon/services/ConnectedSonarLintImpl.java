@@ -19,6 +19,7 @@
  */
 package org.sonarlint.daemon.services;
 
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
@@ -26,29 +27,39 @@ import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
 import org.slf4j.LoggerFactory;
 import org.sonarlint.daemon.Daemon;
+import org.sonarlint.daemon.model.BatchingIssueListener;
 import org.sonarlint.daemon.model.DefaultClientInputFile;
 import org.sonarlint.daemon.model.ProxyIssueListener;
 import org.sonarlint.daemon.model.ProxyLogOutput;
 import org.sonarsource.sonarlint.core.ConnectedSonarLintEngineImpl;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedGlobalConfiguration.Builder;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedSonarLintEngine;
 import org.sonarsource.sonarlint.core.client.api.connected.ServerConfiguration;
 import org.sonarsource.sonarlint.daemon.proto.ConnectedSonarLintGrpc;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.AnalysisMetrics;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.ConnectedAnalysisReq;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.ConnectedConfiguration;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.InputFile;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.IssueBatch;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.LogEvent;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.LogEventBatch;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.ModuleUpdateReq;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.RuleDetails;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.RuleKey;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.ServerConfig;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.StorageState;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.StorageState.State;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.StorageStateReq;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.Void;
 
 import static org.apache.commons.lang.StringUtils.trimToNull;
@@ -57,20 +68,24 @@ public class ConnectedSonarLintImpl extends ConnectedSonarLintGrpc.ConnectedSona
   private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(ConnectedSonarLintImpl.class);
   private final Daemon daemon;
   private final ProxyLogOutput logOutput;
-  private ConnectedSonarLintEngine engine;
+  private final AnalysisScheduler scheduler;
+  private final Function<ConnectedGlobalConfiguration, ConnectedSonarLintEngine> engineFactory;
+  private final Map<String, EngineHandle> enginesByStorageId = new ConcurrentHashMap<>();
+  private volatile String defaultStorageId;
 
-  public ConnectedSonarLintImpl(Daemon daemon) {
+  public ConnectedSonarLintImpl(Daemon daemon, AnalysisScheduler scheduler) {
+    this(daemon, scheduler, ConnectedSonarLintEngineImpl::new);
+  }
+
+  ConnectedSonarLintImpl(Daemon daemon, AnalysisScheduler scheduler, Function<ConnectedGlobalConfiguration, ConnectedSonarLintEngine> engineFactory) {
     this.daemon = daemon;
+    this.scheduler = scheduler;
+    this.engineFactory = engineFactory;
     this.logOutput = new ProxyLogOutput(daemon);
   }
 
   @Override
   public void start(ConnectedConfiguration requestConfig, StreamObserver<Void> response) {
-    if (engine != null) {
-      engine.stop(false);
-      engine = null;
-    }
-
     try {
       Builder builder = ConnectedGlobalConfiguration.builder();
       if (requestConfig.getHomePath() != null) {
@@ -79,7 +94,12 @@ public class ConnectedSonarLintImpl extends ConnectedSonarLintGrpc.ConnectedSona
       builder.setLogOutput(logOutput)
         .setServerId(requestConfig.getStorageId());
 
-      engine = new ConnectedSonarLintEngineImpl(builder.build());
+      EngineHandle previous = enginesByStorageId.put(requestConfig.getStorageId(), new EngineHandle(engineFactory.apply(builder.build())));
+      defaultStorageId = requestConfig.getStorageId();
+      if (previous != null) {
+        // requests still using the previous engine complete before it is stopped
+        previous.retire();
+      }
       response.onNext(Void.newBuilder().build());
       response.onCompleted();
     } catch (Exception e) {
@@ -90,40 +110,79 @@ public class ConnectedSonarLintImpl extends ConnectedSonarLintGrpc.ConnectedSona
 
   @Override
   public void analyze(ConnectedAnalysisReq requestConfig, StreamObserver<org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.Issue> response) {
-    try {
-      List<ClientInputFile> files = new LinkedList<>();
-      List<InputFile> requestFiles = requestConfig.getFileList();
+    submit(requestConfig, response, () -> {
+      analyze(requestConfig, new ProxyIssueListener(response));
+      response.onCompleted();
+    });
+  }
 
-      Path baseDir = Paths.get(requestConfig.getBaseDir());
-      for (InputFile f : requestFiles) {
-        files.add(new DefaultClientInputFile(baseDir, Paths.get(f.getPath()), f.getIsTest(), Charset.forName(f.getCharset()), f.getUserObject(), trimToNull(f.getLanguage())));
+  @Override
+  public void analyzeBatched(ConnectedAnalysisReq requestConfig, StreamObserver<IssueBatch> response) {
+    submit(requestConfig, response, () -> {
+      BatchingIssueListener issueListener = new BatchingIssueListener(response);
+      try {
+        analyze(requestConfig, issueListener);
+        issueListener.flush();
+      } finally {
+        issueListener.close();
       }
-
-      ConnectedAnalysisConfiguration config = new ConnectedAnalysisConfiguration(
-        requestConfig.getModuleKey(),
-        baseDir,
-        Paths.get(requestConfig.getWorkDir()),
-        files,
-        requestConfig.getPropertiesMap());
-
-      engine.analyze(config, new ProxyIssueListener(response), logOutput, null);
       response.onCompleted();
+    });
+  }
+
+  private void submit(ConnectedAnalysisReq requestConfig, StreamObserver<?> response, Runnable analysis) {
+    try {
+      scheduler.submit(storageId(requestConfig.getStorageId()), () -> {
+        try {
+          analysis.run();
+        } catch (Exception e) {
+          LOGGER.error("Error analyzing", e);
+          response.onError(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      LOGGER.warn(e.getMessage());
+      response.onError(Status.RESOURCE_EXHAUSTED.withDescription(e.getMessage()).asRuntimeException());
     } catch (Exception e) {
       LOGGER.error("Error analyzing", e);
       response.onError(e);
     }
   }
 
+  private void analyze(ConnectedAnalysisReq requestConfig, IssueListener issueListener) {
+    List<ClientInputFile> files = new LinkedList<>();
+    List<InputFile> requestFiles = requestConfig.getFileList();
+
+    Path baseDir = Paths.get(requestConfig.getBaseDir());
+    for (InputFile f : requestFiles) {
+      files.add(new DefaultClientInputFile(baseDir, Paths.get(f.getPath()), f.getIsTest(), Charset.forName(f.getCharset()), f.getUserObject(), trimToNull(f.getLanguage())));
+    }
+
+    ConnectedAnalysisConfiguration config = new ConnectedAnalysisConfiguration(
+      requestConfig.getModuleKey(),
+      baseDir,
+      Paths.get(requestConfig.getWorkDir()),
+      files,
+      requestConfig.getPropertiesMap());
+
+    withEngine(requestConfig.getStorageId(), engine -> engine.analyze(config, issueListener, logOutput, null));
+  }
+
   @Override
   public void streamLogs(Void request, StreamObserver<LogEvent> response) {
     logOutput.setObserver(response);
   }
 
+  @Override
+  public void streamLogBatches(Void request, StreamObserver<LogEventBatch> response) {
+    logOutput.setBatchObserver(response);
+  }
+
   @Override
   public void update(ServerConfig request, StreamObserver<Void> response) {
     try {
       ServerConfiguration config = transformServerConfig(request);
-      engine.update(config, null);
+      withEngine(request.getStorageId(), engine -> engine.update(config, null));
       response.onNext(Void.newBuilder().build());
       response.onCompleted();
     } catch (Exception e) {
@@ -155,8 +214,18 @@ public class ConnectedSonarLintImpl extends ConnectedSonarLintGrpc.ConnectedSona
 
   @Override
   public void getState(Void request, StreamObserver<StorageState> response) {
+    sendState("", response);
+  }
+
+  @Override
+  public void getStorageState(StorageStateReq request, StreamObserver<StorageState> response) {
+    sendState(request.getStorageId(), response);
+  }
+
+  private void sendState(String storageId, StreamObserver<StorageState> response) {
     try {
-      org.sonarsource.sonarlint.core.client.api.connected.ConnectedSonarLintEngine.State state = engine.getState();
+      org.sonarsource.sonarlint.core.client.api.connected.ConnectedSonarLintEngine.State state = withEngine(storageId,
+        ConnectedSonarLintEngine::getState);
       State transformed;
 
       switch (state) {
@@ -188,7 +257,10 @@ public class ConnectedSonarLintImpl extends ConnectedSonarLintGrpc.ConnectedSona
   public void updateModule(ModuleUpdateReq request, StreamObserver<Void> response) {
     try {
       ServerConfiguration serverConfig = transformServerConfig(request.getServerConfig());
-      engine.updateProject(serverConfig, request.getModuleKey(), null);
+      withEngine(request.getStorageId(), engine -> {
+        engine.updateProject(serverConfig, request.getModuleKey(), null);
+        return null;
+      });
       response.onNext(Void.newBuilder().build());
       response.onCompleted();
     } catch (Exception e) {
@@ -200,7 +272,7 @@ public class ConnectedSonarLintImpl extends ConnectedSonarLintGrpc.ConnectedSona
   @Override
   public void getRuleDetails(RuleKey key, StreamObserver<RuleDetails> response) {
     try {
-      org.sonarsource.sonarlint.core.client.api.common.RuleDetails ruleDetails = engine.getRuleDetails(key.getKey());
+      org.sonarsource.sonarlint.core.client.api.common.RuleDetails ruleDetails = withEngine(key.getStorageId(), engine -> engine.getRuleDetails(key.getKey()));
       response.onNext(RuleDetails.newBuilder()
         .setKey(ruleDetails.getKey())
         .setName(ruleDetails.getName())
@@ -216,10 +288,91 @@ public class ConnectedSonarLintImpl extends ConnectedSonarLintGrpc.ConnectedSona
     }
   }
 
+  @Override
+  public void getAnalysisMetrics(Void request, StreamObserver<AnalysisMetrics> response) {
+    response.onNext(scheduler.getMetrics());
+    response.onCompleted();
+  }
+
+  private String storageId(String requestedStorageId) {
+    if (requestedStorageId.isEmpty()) {
+      String storageId = defaultStorageId;
+      if (storageId == null) {
+        throw new IllegalStateException("Not started");
+      }
+      return storageId;
+    }
+    return requestedStorageId;
+  }
+
+  /**
+   * Run an action on the engine of a storage. The engine is not stopped before the action completes, even if it is replaced meanwhile.
+   */
+  private <T> T withEngine(String requestedStorageId, Function<ConnectedSonarLintEngine, T> action) {
+    String storageId = storageId(requestedStorageId);
+    while (true) {
+      EngineHandle handle = enginesByStorageId.get(storageId);
+      if (handle == null) {
+        throw new IllegalStateException("No engine started for storage '" + storageId + "'");
+      }
+      if (handle.acquire()) {
+        try {
+          return action.apply(handle.engine);
+        } finally {
+          handle.release();
+        }
+      }
+      // replaced in the meantime, use the new one
+    }
+  }
+
   @Override
   public void shutdown(Void request, StreamObserver<Void> responseObserver) {
     LOGGER.info("Shutdown requested");
     responseObserver.onCompleted();
     daemon.stop();
   }
+
+  /**
+   * Counts the requests using an engine, so that a replaced engine is stopped once they are all completed.
+   */
+  private static class EngineHandle {
+    private final ConnectedSonarLintEngine engine;
+    private int users;
+    private boolean retired;
+
+    EngineHandle(ConnectedSonarLintEngine engine) {
+      this.engine = engine;
+    }
+
+    synchronized boolean acquire() {
+      if (retired) {
+        return false;
+      }
+      users++;
+      return true;
+    }
+
+    void release() {
+      boolean stop;
+      synchronized (this) {
+        users--;
+        stop = retired && users == 0;
+      }
+      if (stop) {
+        engine.stop(false);
+      }
+    }
+
+    void retire() {
+      boolean stop;
+      synchronized (this) {
+        retired = true;
+        stop = users == 0;
+      }
+      if (stop) {
+        engine.stop(false);
+      }
+    }
+  }
 }
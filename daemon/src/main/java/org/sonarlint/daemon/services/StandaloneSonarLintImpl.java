@@ -30,24 +30,30 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 import org.slf4j.LoggerFactory;
 import org.sonarlint.daemon.Daemon;
 import org.sonarlint.daemon.Utils;
+import org.sonarlint.daemon.model.BatchingIssueListener;
 import org.sonarlint.daemon.model.DefaultClientInputFile;
 import org.sonarlint.daemon.model.ProxyIssueListener;
 import org.sonarlint.daemon.model.ProxyLogOutput;
 import org.sonarsource.sonarlint.core.StandaloneSonarLintEngineImpl;
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput.Level;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConfiguration.Builder;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneSonarLintEngine;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.AnalysisMetrics;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.AnalysisReq;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.InputFile;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.Issue;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.IssueBatch;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.LogEvent;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.LogEventBatch;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.RuleDetails;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.RuleKey;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.Void;
@@ -57,14 +63,17 @@ import static org.apache.commons.lang.StringUtils.trimToNull;
 
 public class StandaloneSonarLintImpl extends StandaloneSonarLintGrpc.StandaloneSonarLintImplBase {
   private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(StandaloneSonarLintImpl.class);
+  private static final String SESSION_ID = "standalone";
   private final ProxyLogOutput logOutput;
   private final Collection<URL> analyzers;
   private final Daemon daemon;
+  private final AnalysisScheduler scheduler;
   private StandaloneSonarLintEngine engine;
 
-  public StandaloneSonarLintImpl(Daemon daemon, Collection<URL> analyzers) {
+  public StandaloneSonarLintImpl(Daemon daemon, Collection<URL> analyzers, AnalysisScheduler scheduler) {
     this.daemon = daemon;
     this.analyzers = analyzers;
+    this.scheduler = scheduler;
     this.logOutput = new ProxyLogOutput(daemon);
     start();
   }
@@ -83,34 +92,65 @@ public class StandaloneSonarLintImpl extends StandaloneSonarLintGrpc.StandaloneS
 
   @Override
   public void analyze(AnalysisReq requestConfig, StreamObserver<Issue> response) {
+    submit(response, () -> {
+      analyze(requestConfig, new ProxyIssueListener(response));
+      response.onCompleted();
+    });
+  }
+
+  @Override
+  public void analyzeBatched(AnalysisReq requestConfig, StreamObserver<IssueBatch> response) {
+    submit(response, () -> {
+      BatchingIssueListener issueListener = new BatchingIssueListener(response);
+      try {
+        analyze(requestConfig, issueListener);
+        issueListener.flush();
+      } finally {
+        issueListener.close();
+      }
+      response.onCompleted();
+    });
+  }
+
+  private void submit(StreamObserver<?> response, Runnable analysis) {
     if (engine == null) {
       response.onError(new IllegalStateException("Not registered"));
       return;
     }
 
     try {
-      List<ClientInputFile> files = new LinkedList<>();
-      List<InputFile> requestFiles = requestConfig.getFileList();
+      scheduler.submit(SESSION_ID, () -> {
+        try {
+          analysis.run();
+        } catch (Exception e) {
+          LOGGER.error("Error analyzing", e);
+          response.onError(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      LOGGER.warn(e.getMessage());
+      response.onError(Status.RESOURCE_EXHAUSTED.withDescription(e.getMessage()).asRuntimeException());
+    }
+  }
 
-      Path baseDir = Paths.get(requestConfig.getBaseDir());
-      for (InputFile f : requestFiles) {
-        files.add(new DefaultClientInputFile(baseDir, Paths.get(f.getPath()), f.getIsTest(), Charset.forName(f.getCharset()), f.getUserObject(), trimToNull(f.getLanguage())));
-      }
+  private void analyze(AnalysisReq requestConfig, IssueListener issueListener) {
+    List<ClientInputFile> files = new LinkedList<>();
+    List<InputFile> requestFiles = requestConfig.getFileList();
 
-      StandaloneAnalysisConfiguration config = new StandaloneAnalysisConfiguration(
-        baseDir,
-        Paths.get(requestConfig.getWorkDir()),
-        files,
-        requestConfig.getPropertiesMap());
+    Path baseDir = Paths.get(requestConfig.getBaseDir());
+    for (InputFile f : requestFiles) {
+      files.add(new DefaultClientInputFile(baseDir, Paths.get(f.getPath()), f.getIsTest(), Charset.forName(f.getCharset()), f.getUserObject(), trimToNull(f.getLanguage())));
+    }
 
-      logOutput.log("Analysis configuration:\n" + config.toString(), Level.DEBUG);
+    StandaloneAnalysisConfiguration config = new StandaloneAnalysisConfiguration(
+      baseDir,
+      Paths.get(requestConfig.getWorkDir()),
+      files,
+      requestConfig.getPropertiesMap());
 
-      engine.analyze(config, new ProxyIssueListener(response), logOutput, null);
-      response.onCompleted();
-    } catch (Exception e) {
-      LOGGER.error("Error analyzing", e);
-      response.onError(e);
-    }
+    logOutput.log("Analysis configuration:\n" + config.toString(), Level.DEBUG);
+
+    engine.analyze(config, issueListener, logOutput, null);
   }
 
   @Override
@@ -145,6 +185,11 @@ public class StandaloneSonarLintImpl extends StandaloneSonarLintGrpc.StandaloneS
     logOutput.setObserver(response);
   }
 
+  @Override
+  public void streamLogBatches(Void request, StreamObserver<LogEventBatch> response) {
+    logOutput.setBatchObserver(response);
+  }
+
   @Override
   public void getRuleDetails(RuleKey key, StreamObserver<RuleDetails> response) {
     try {
@@ -164,6 +209,12 @@ public class StandaloneSonarLintImpl extends StandaloneSonarLintGrpc.StandaloneS
     }
   }
 
+  @Override
+  public void getAnalysisMetrics(Void request, StreamObserver<AnalysisMetrics> response) {
+    response.onNext(scheduler.getMetrics());
+    response.onCompleted();
+  }
+
   @Override
   public void shutdown(Void request, StreamObserver<Void> responseObserver) {
     LOGGER.info("Shutdown requested");
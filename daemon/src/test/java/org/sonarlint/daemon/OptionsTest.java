@@ -32,6 +32,16 @@ public class OptionsTest {
     assertThat(Options.parse(args).getPort()).isEqualTo(1234);
   }
 
+  @Test
+  public void testAnalysisScheduling() throws ParseException {
+    String[] args = {"--analysis-threads", "4", "--analysis-queue", "10", "--session-concurrency", "2"};
+    Options options = Options.parse(args);
+    assertThat(options.getAnalysisThreads()).isEqualTo(4);
+    assertThat(options.getAnalysisQueueSize()).isEqualTo(10);
+    assertThat(options.getSessionConcurrency()).isEqualTo(2);
+    assertThat(Options.parse(new String[0]).getAnalysisThreads()).isNull();
+  }
+
   @Test
   public void testHelp() throws ParseException {
     String[] args = {"-h"};
@@ -0,0 +1,180 @@
+/*
+ * SonarLint Daemon
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.daemon.model;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.BatchedIssue;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.IssueBatch;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.Issue.Severity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.groups.Tuple.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BatchingIssueListenerTest {
+  private ClientInputFile inputFile;
+
+  @Before
+  public void setUp() {
+    inputFile = mock(ClientInputFile.class);
+    when(inputFile.getPath()).thenReturn("filename");
+    when(inputFile.getClientObject()).thenReturn("obj");
+  }
+
+  @Test
+  public void should_group_issues_and_intern_strings() {
+    StreamObserver<IssueBatch> observer = mock(StreamObserver.class);
+    BatchingIssueListener listener = new BatchingIssueListener(observer, 2, Long.MAX_VALUE);
+
+    listener.handle(issue("key1", "MINOR"));
+    verify(observer, never()).onNext(any(IssueBatch.class));
+    listener.handle(issue("key1", "BLOCKER"));
+    listener.handle(issue("key2", "MAJOR"));
+    listener.flush();
+    listener.flush();
+
+    ArgumentCaptor<IssueBatch> argument = ArgumentCaptor.forClass(IssueBatch.class);
+    verify(observer, times(2)).onNext(argument.capture());
+
+    IssueBatch first = argument.getAllValues().get(0);
+    assertThat(first.getNewStringList()).containsExactly("key1", "name", "filename", "obj");
+    assertThat(first.getIssueList()).extracting(BatchedIssue::getRuleKeyRef, BatchedIssue::getRuleNameRef, BatchedIssue::getFilePathRef, BatchedIssue::getUserObjectRef)
+      .containsOnly(tuple(1, 2, 3, 4));
+    assertThat(first.getIssue(0).getSeverity()).isEqualTo(Severity.MINOR);
+    assertThat(first.getIssue(0).getStartLine()).isEqualTo(11);
+    assertThat(first.getIssue(0).getMessage()).isEqualTo("msg");
+
+    IssueBatch second = argument.getAllValues().get(1);
+    assertThat(second.getNewStringList()).containsExactly("key2");
+    assertThat(second.getIssue(0).getRuleKeyRef()).isEqualTo(5);
+    assertThat(second.getIssue(0).getFilePathRef()).isEqualTo(3);
+  }
+
+  @Test
+  public void should_send_batch_after_delay() {
+    StreamObserver<IssueBatch> observer = mock(StreamObserver.class);
+    BatchingIssueListener listener = new BatchingIssueListener(observer, 100, 0);
+
+    listener.handle(issue("key1", "MINOR"));
+
+    verify(observer).onNext(any(IssueBatch.class));
+  }
+
+  @Test
+  public void should_send_batch_after_delay_without_further_issues() {
+    StreamObserver<IssueBatch> observer = mock(StreamObserver.class);
+    BatchingIssueListener listener = new BatchingIssueListener(observer, 100, 50);
+
+    long start = System.nanoTime();
+    listener.handle(issue("key1", "MINOR"));
+
+    ArgumentCaptor<IssueBatch> argument = ArgumentCaptor.forClass(IssueBatch.class);
+    verify(observer, timeout(1000)).onNext(argument.capture());
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(50);
+    assertThat(argument.getValue().getIssueCount()).isEqualTo(1);
+
+    // nothing left to send
+    listener.flush();
+    verify(observer).onNext(any(IssueBatch.class));
+  }
+
+  @Test
+  public void should_retry_delayed_batch_until_transport_is_ready() {
+    ServerCallStreamObserver<IssueBatch> observer = mock(ServerCallStreamObserver.class);
+    when(observer.isReady()).thenReturn(false, false, true);
+    BatchingIssueListener listener = new BatchingIssueListener(observer, 100, 10);
+
+    listener.handle(issue("key1", "MINOR"));
+
+    verify(observer, timeout(1000)).onNext(any(IssueBatch.class));
+    verify(observer, times(3)).isReady();
+  }
+
+  @Test
+  public void should_not_send_delayed_batch_once_closed() {
+    ServerCallStreamObserver<IssueBatch> observer = mock(ServerCallStreamObserver.class);
+    // a call closed by onError is neither ready nor cancelled
+    when(observer.isReady()).thenReturn(false);
+    BatchingIssueListener listener = new BatchingIssueListener(observer, 100, 10);
+
+    listener.handle(issue("key1", "MINOR"));
+    verify(observer, timeout(1000).atLeastOnce()).isReady();
+    listener.close();
+    int readyChecks = mockingDetails(observer).getInvocations().size();
+
+    verify(observer, after(100).never()).onNext(any(IssueBatch.class));
+    assertThat(mockingDetails(observer).getInvocations()).hasSize(readyChecks);
+  }
+
+  @Test
+  public void should_wait_for_transport_to_be_ready() {
+    ServerCallStreamObserver<IssueBatch> observer = mock(ServerCallStreamObserver.class);
+    when(observer.isReady()).thenReturn(false, false, true);
+    BatchingIssueListener listener = new BatchingIssueListener(observer, 1, Long.MAX_VALUE);
+
+    listener.handle(issue("key1", "MINOR"));
+
+    verify(observer, times(3)).isReady();
+    verify(observer).onNext(any(IssueBatch.class));
+  }
+
+  @Test
+  public void should_fail_if_call_is_cancelled() {
+    ServerCallStreamObserver<IssueBatch> observer = mock(ServerCallStreamObserver.class);
+    when(observer.isReady()).thenReturn(false);
+    when(observer.isCancelled()).thenReturn(true);
+    BatchingIssueListener listener = new BatchingIssueListener(observer, 1, Long.MAX_VALUE);
+
+    assertThatThrownBy(() -> listener.handle(issue("key1", "MINOR")))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("Analysis cancelled by the client");
+    verify(observer, never()).onNext(any(IssueBatch.class));
+  }
+
+  private Issue issue(String ruleKey, String severity) {
+    Issue i = mock(Issue.class);
+    when(i.getEndLine()).thenReturn(10);
+    when(i.getStartLine()).thenReturn(11);
+    when(i.getStartLineOffset()).thenReturn(12);
+    when(i.getEndLineOffset()).thenReturn(13);
+    when(i.getMessage()).thenReturn("msg");
+    when(i.getRuleKey()).thenReturn(ruleKey);
+    when(i.getRuleName()).thenReturn("name");
+    when(i.getSeverity()).thenReturn(severity);
+    when(i.getInputFile()).thenReturn(inputFile);
+    return i;
+  }
+}
@@ -19,21 +19,30 @@
  */
 package org.sonarlint.daemon.model;
 
+import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 import io.grpc.stub.StreamObserver;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.sonarlint.daemon.Daemon;
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput.Level;
 import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.LogEvent;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.LogEventBatch;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.groups.Tuple.tuple;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 
 public class ProxyLogOutputTest {
@@ -53,7 +62,7 @@ public class ProxyLogOutputTest {
     log.log("msg", Level.DEBUG);
 
     ArgumentCaptor<LogEvent> argument = ArgumentCaptor.forClass(LogEvent.class);
-    verify(observer).onNext(argument.capture());
+    verify(observer, timeout(1000)).onNext(argument.capture());
     LogEvent event = argument.getValue();
 
     assertThat(event.getIsDebug()).isTrue();
@@ -70,7 +79,7 @@ public class ProxyLogOutputTest {
     log.log("msg", Level.ERROR);
 
     ArgumentCaptor<LogEvent> argument = ArgumentCaptor.forClass(LogEvent.class);
-    verify(observer, atLeastOnce()).onNext(argument.capture());
+    verify(observer, timeout(1000).atLeastOnce()).onNext(argument.capture());
 
     assertThat(argument.getAllValues()).extracting("isDebug", "level", "log")
       .contains(tuple(false, "ERROR", "msg"));
@@ -91,6 +100,144 @@ public class ProxyLogOutputTest {
     doThrow(StatusRuntimeException.class).when(observer).onNext(any(LogEvent.class));
     log.setObserver(observer);
     log.log("msg", Level.DEBUG);
-    verify(daemon).stop();
+    verify(daemon, timeout(1000)).stop();
+  }
+
+  @Test
+  public void testKeepStreamingAfterUnexpectedError() {
+    List<LogEvent> received = new CopyOnWriteArrayList<>();
+    doThrow(new IllegalStateException("call already closed"))
+      .doAnswer(invocation -> received.add(invocation.getArgument(0)))
+      .when(observer).onNext(any(LogEvent.class));
+    ProxyLogOutput log = new ProxyLogOutput(mock(Daemon.class));
+    log.setObserver(observer);
+
+    log.log("lost", Level.INFO);
+    verify(observer, timeout(1000)).onNext(any(LogEvent.class));
+    log.log("msg", Level.INFO);
+
+    await(() -> received.size() == 1);
+    assertThat(received).extracting("log").containsExactly("msg");
+  }
+
+  @Test
+  public void testBatchLog() {
+    StreamObserver<LogEventBatch> batchObserver = mock(StreamObserver.class);
+    ProxyLogOutput log = new ProxyLogOutput(mock(Daemon.class));
+    log.setBatchObserver(batchObserver);
+    log.log("msg1", Level.INFO);
+    log.log("msg2", Level.DEBUG);
+
+    ArgumentCaptor<LogEventBatch> argument = ArgumentCaptor.forClass(LogEventBatch.class);
+    verify(batchObserver, timeout(1000).atLeastOnce()).onNext(argument.capture());
+    await(() -> argument.getAllValues().stream().mapToInt(LogEventBatch::getEventCount).sum() == 2);
+
+    assertThat(argument.getAllValues()).flatExtracting(LogEventBatch::getEventList).extracting("level", "log")
+      .containsExactly(tuple("INFO", "msg1"), tuple("DEBUG", "msg2"));
+    assertThat(log.getDroppedEventCount()).isZero();
+  }
+
+  @Test
+  public void testDropWhenBufferIsFull() throws InterruptedException {
+    CountDownLatch consumerBlocked = new CountDownLatch(1);
+    CountDownLatch releaseConsumer = new CountDownLatch(1);
+    List<LogEvent> received = new CopyOnWriteArrayList<>();
+    doAnswer(invocation -> {
+      consumerBlocked.countDown();
+      releaseConsumer.await();
+      received.add(invocation.getArgument(0));
+      return null;
+    }).when(observer).onNext(any(LogEvent.class));
+
+    ProxyLogOutput log = new ProxyLogOutput(mock(Daemon.class), 2);
+    log.setObserver(observer);
+    log.log("first", Level.INFO);
+    assertThat(consumerBlocked.await(1, TimeUnit.SECONDS)).isTrue();
+
+    // buffer can hold 2 events while the consumer is blocked
+    log.log("debug1", Level.DEBUG);
+    log.log("debug2", Level.DEBUG);
+    log.log("debug3", Level.DEBUG);
+    log.log("info", Level.INFO);
+    assertThat(log.getDroppedEventCount()).isEqualTo(2);
+
+    releaseConsumer.countDown();
+    await(() -> received.size() == 4);
+
+    assertThat(received).extracting("log")
+      .containsExactly("first", "2 log event(s) were dropped because the log stream is not consumed fast enough", "debug2", "info");
+  }
+
+  @Test
+  public void testNeverEvictErrorsWhenBufferIsFull() throws InterruptedException {
+    CountDownLatch consumerBlocked = new CountDownLatch(1);
+    CountDownLatch releaseConsumer = new CountDownLatch(1);
+    List<LogEvent> received = new CopyOnWriteArrayList<>();
+    doAnswer(invocation -> {
+      consumerBlocked.countDown();
+      releaseConsumer.await();
+      received.add(invocation.getArgument(0));
+      return null;
+    }).when(observer).onNext(any(LogEvent.class));
+
+    ProxyLogOutput log = new ProxyLogOutput(mock(Daemon.class), 2);
+    log.setObserver(observer);
+    log.log("first", Level.INFO);
+    assertThat(consumerBlocked.await(1, TimeUnit.SECONDS)).isTrue();
+
+    log.log("error1", Level.ERROR);
+    log.log("info", Level.INFO);
+    // evicts the oldest event that is not an error
+    log.log("warn", Level.WARN);
+    log.log("error2", Level.ERROR);
+    // only errors are buffered
+    log.log("error3", Level.ERROR);
+    assertThat(log.getDroppedEventCount()).isEqualTo(3);
+
+    releaseConsumer.countDown();
+    await(() -> received.size() == 4);
+
+    assertThat(received).extracting("log")
+      .containsExactly("first", "3 log event(s) were dropped because the log stream is not consumed fast enough", "error1", "error2");
+  }
+
+  @Test
+  public void testReplaceObserverWhileSending() throws InterruptedException {
+    Daemon daemon = mock(Daemon.class);
+    CountDownLatch consumerBlocked = new CountDownLatch(1);
+    CountDownLatch releaseConsumer = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      consumerBlocked.countDown();
+      releaseConsumer.await();
+      throw new StatusRuntimeException(Status.CANCELLED);
+    }).when(observer).onNext(any(LogEvent.class));
+    StreamObserver<LogEvent> newObserver = mock(StreamObserver.class);
+
+    ProxyLogOutput log = new ProxyLogOutput(daemon);
+    log.setObserver(observer);
+    log.log("first", Level.INFO);
+    assertThat(consumerBlocked.await(1, TimeUnit.SECONDS)).isTrue();
+
+    // the new stream is set right away, the previous one is completed once the pending send returns
+    Thread replacer = new Thread(() -> log.setObserver(newObserver));
+    replacer.start();
+    await(() -> replacer.getState() == Thread.State.BLOCKED);
+    log.log("second", Level.INFO);
+    releaseConsumer.countDown();
+    replacer.join(1000);
+
+    verify(observer).onCompleted();
+    ArgumentCaptor<LogEvent> argument = ArgumentCaptor.forClass(LogEvent.class);
+    verify(newObserver, timeout(1000)).onNext(argument.capture());
+    assertThat(argument.getValue().getLog()).isEqualTo("second");
+    verify(daemon, never()).stop();
+  }
+
+  private static void await(BooleanSupplier condition) {
+    long deadline = System.currentTimeMillis() + 1000;
+    while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+      Thread.yield();
+    }
+    assertThat(condition.getAsBoolean()).isTrue();
   }
 }
@@ -0,0 +1,137 @@
+/*
+ * SonarLint Daemon
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.daemon.services;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.After;
+import org.junit.Test;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.AnalysisMetrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AnalysisSchedulerTest {
+  private AnalysisScheduler scheduler;
+
+  @After
+  public void tearDown() {
+    scheduler.shutdown();
+  }
+
+  @Test
+  public void should_limit_concurrent_analyses_per_session() throws InterruptedException {
+    scheduler = new AnalysisScheduler(4, 10, 1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch session1Started = new CountDownLatch(1);
+    CountDownLatch session2Started = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(4);
+    AtomicInteger runningInSession = new AtomicInteger();
+    AtomicInteger maxRunningInSession = new AtomicInteger();
+
+    for (int i = 0; i < 2; i++) {
+      scheduler.submit("session1", () -> {
+        maxRunningInSession.accumulateAndGet(runningInSession.incrementAndGet(), Math::max);
+        session1Started.countDown();
+        await(release);
+        runningInSession.decrementAndGet();
+        done.countDown();
+      });
+    }
+    scheduler.submit("session2", done::countDown);
+    // analyses of a session run one after the other, so the first one is completed when the second one starts
+    scheduler.submit("session2", () -> {
+      session2Started.countDown();
+      await(release);
+      done.countDown();
+    });
+
+    assertThat(session1Started.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(session2Started.await(5, TimeUnit.SECONDS)).isTrue();
+    AnalysisMetrics metrics = scheduler.getMetrics();
+    assertThat(metrics.getRunning()).isEqualTo(2);
+    assertThat(metrics.getQueued()).isEqualTo(1);
+    assertThat(metrics.getCompleted()).isEqualTo(1);
+
+    release.countDown();
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(maxRunningInSession.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_reject_when_queue_is_full() throws InterruptedException {
+    scheduler = new AnalysisScheduler(1, 1, 1);
+    CountDownLatch release = new CountDownLatch(1);
+    scheduler.submit("session", () -> await(release));
+    scheduler.submit("session", () -> {
+    });
+
+    assertThatThrownBy(() -> scheduler.submit("session", () -> {
+    })).isInstanceOf(RejectedExecutionException.class);
+    assertThat(scheduler.getMetrics().getRejected()).isEqualTo(1);
+    release.countDown();
+  }
+
+  @Test
+  public void should_queue_analyses_of_all_sessions_while_threads_are_busy() throws InterruptedException {
+    scheduler = new AnalysisScheduler(1, 1, 1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(2);
+    scheduler.submit("session1", () -> {
+      started.countDown();
+      await(release);
+      done.countDown();
+    });
+    scheduler.submit("session2", done::countDown);
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    AnalysisMetrics metrics = scheduler.getMetrics();
+    assertThat(metrics.getRunning()).isEqualTo(1);
+    assertThat(metrics.getQueued()).isEqualTo(1);
+    assertThatThrownBy(() -> scheduler.submit("session3", () -> {
+    })).isInstanceOf(RejectedExecutionException.class);
+
+    release.countDown();
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    // sessions without analyses are forgotten
+    awaitCondition(() -> scheduler.sessionCount() == 0);
+    assertThat(scheduler.getMetrics().getCompleted()).isEqualTo(2);
+  }
+
+  private static void awaitCondition(BooleanSupplier condition) {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+      Thread.yield();
+    }
+    assertThat(condition.getAsBoolean()).isTrue();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * SonarLint Daemon
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.daemon.services;
+
+import io.grpc.stub.StreamObserver;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.sonarlint.daemon.Daemon;
+import org.sonarsource.sonarlint.core.client.api.connected.ConnectedGlobalConfiguration;
+import org.sonarsource.sonarlint.core.client.api.connected.ConnectedSonarLintEngine;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.ConnectedAnalysisReq;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.ConnectedConfiguration;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.IssueBatch;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.StorageState;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.StorageState.State;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.StorageStateReq;
+import org.sonarsource.sonarlint.daemon.proto.SonarlintDaemon.Void;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConnectedSonarLintImplTest {
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private final Map<String, ConnectedSonarLintEngine> nextEngines = new HashMap<>();
+  private AnalysisScheduler scheduler;
+  private ConnectedSonarLintImpl sonarlint;
+
+  @Before
+  public void setUp() {
+    scheduler = new AnalysisScheduler(2, 10, 1);
+    sonarlint = new ConnectedSonarLintImpl(mock(Daemon.class), scheduler, (ConnectedGlobalConfiguration config) -> nextEngines.get(config.getServerId()));
+  }
+
+  @After
+  public void tearDown() {
+    scheduler.shutdown();
+  }
+
+  @Test
+  public void use_the_engine_of_the_requested_storage() throws Exception {
+    ConnectedSonarLintEngine engine1 = start("storage1");
+    ConnectedSonarLintEngine engine2 = start("storage2");
+    when(engine1.getState()).thenReturn(ConnectedSonarLintEngine.State.UPDATED);
+    when(engine2.getState()).thenReturn(ConnectedSonarLintEngine.State.NEVER_UPDATED);
+
+    assertThat(getState("storage1")).isEqualTo(State.UPDATED);
+    assertThat(getState("storage2")).isEqualTo(State.NEVER_UPDATED);
+    // the last started storage by default
+    assertThat(getState("")).isEqualTo(State.NEVER_UPDATED);
+    StreamObserver<StorageState> response = mock(StreamObserver.class);
+    sonarlint.getState(Void.newBuilder().build(), response);
+    verify(response).onNext(StorageState.newBuilder().setState(State.NEVER_UPDATED).build());
+  }
+
+  @Test
+  public void stop_replaced_engine_once_its_analyses_are_completed() throws Exception {
+    ConnectedSonarLintEngine previous = start("storage");
+    CountDownLatch analyzing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(previous.analyze(any(), any(), any(), any())).thenAnswer(invocation -> {
+      analyzing.countDown();
+      release.await();
+      return null;
+    });
+    StreamObserver<IssueBatch> analysisResponse = mock(StreamObserver.class);
+    sonarlint.analyzeBatched(ConnectedAnalysisReq.newBuilder()
+      .setStorageId("storage")
+      .setBaseDir(temp.getRoot().toString())
+      .setWorkDir(temp.getRoot().toString())
+      .setModuleKey("module")
+      .build(), analysisResponse);
+    assertThat(analyzing.await(5, TimeUnit.SECONDS)).isTrue();
+
+    ConnectedSonarLintEngine replacement = start("storage");
+    when(replacement.getState()).thenReturn(ConnectedSonarLintEngine.State.UPDATED);
+    assertThat(getState("storage")).isEqualTo(State.UPDATED);
+    verify(previous, never()).stop(false);
+
+    release.countDown();
+    verify(analysisResponse, timeout(5000)).onCompleted();
+    verify(previous, timeout(5000)).stop(false);
+    verify(replacement, never()).stop(false);
+  }
+
+  private ConnectedSonarLintEngine start(String storageId) throws Exception {
+    ConnectedSonarLintEngine engine = mock(ConnectedSonarLintEngine.class);
+    nextEngines.put(storageId, engine);
+    StreamObserver<Void> response = mock(StreamObserver.class);
+    sonarlint.start(ConnectedConfiguration.newBuilder().setStorageId(storageId).setHomePath(temp.getRoot().toString()).build(), response);
+    verify(response).onCompleted();
+    return engine;
+  }
+
+  private State getState(String storageId) {
+    StreamObserver<StorageState> response = mock(StreamObserver.class);
+    sonarlint.getStorageState(StorageStateReq.newBuilder().setStorageId(storageId).build(), response);
+    ArgumentCaptor<StorageState> state = ArgumentCaptor.forClass(StorageState.class);
+    verify(response).onNext(state.capture());
+    return state.getValue().getState();
+  }
+}
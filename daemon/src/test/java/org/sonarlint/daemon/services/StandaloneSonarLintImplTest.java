@@ -28,6 +28,6 @@ import static org.mockito.Mockito.mock;
 public class StandaloneSonarLintImplTest {
   @Test
   public void testStart() {
-    StandaloneSonarLintImpl sonarlint = new StandaloneSonarLintImpl(mock(Daemon.class), Arrays.asList());
+    StandaloneSonarLintImpl sonarlint = new StandaloneSonarLintImpl(mock(Daemon.class), Arrays.asList(), new AnalysisScheduler());
   }
 }
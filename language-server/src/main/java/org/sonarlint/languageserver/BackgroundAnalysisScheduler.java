@@ -0,0 +1,299 @@
+/*
+ * SonarLint Language Server
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.languageserver;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.URI;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.function.BiConsumer;
+import java.util.function.DoubleSupplier;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
+
+/**
+ * Analyzes the files of the workspace folders in the background, so that issues are reported on files that are not opened.
+ * Files are queued by {@link Priority}, then in the order they were scheduled. A single low priority thread walks the workspace
+ * folders, and analyzes up to {@link #batchSize} files sharing the same base directory at a time. It waits while an interactive
+ * analysis is running, and pauses while the system load per processor is above {@link #maxLoadPerProcessor}.
+ */
+class BackgroundAnalysisScheduler {
+
+  static final int DEFAULT_BATCH_SIZE = 10;
+  static final double DEFAULT_MAX_LOAD_PER_PROCESSOR = 1.0;
+  static final long DEFAULT_PAUSE_MILLIS = 5_000;
+
+  private static final List<String> SKIPPED_DIRECTORIES = Collections.singletonList("node_modules");
+
+  enum Priority {
+    OPEN,
+    RECENTLY_EDITED,
+    COLD
+  }
+
+  private final BiConsumer<Path, List<URI>> analyzer;
+  private final Predicate<Path> fileFilter;
+  private final ClientLogger logger;
+  private final int batchSize;
+  private final double maxLoadPerProcessor;
+  private final DoubleSupplier loadPerProcessor;
+  private final long pauseMillis;
+
+  // all fields below are guarded by this
+  private final Queue<Path> foldersToWalk = new ArrayDeque<>();
+  private final Map<URI, Entry> pending = new HashMap<>();
+  private final PriorityQueue<Entry> queue = new PriorityQueue<>(Comparator.<Entry, Priority>comparing(e -> e.priority).thenComparingLong(e -> e.sequence));
+  private long sequence;
+  private int interactiveAnalyses;
+  private boolean paused;
+  private boolean stopped;
+  private Thread worker;
+
+  BackgroundAnalysisScheduler(BiConsumer<Path, List<URI>> analyzer, Predicate<Path> fileFilter, ClientLogger logger) {
+    this(analyzer, fileFilter, logger, DEFAULT_BATCH_SIZE, DEFAULT_MAX_LOAD_PER_PROCESSOR, BackgroundAnalysisScheduler::systemLoadPerProcessor,
+      DEFAULT_PAUSE_MILLIS);
+  }
+
+  BackgroundAnalysisScheduler(BiConsumer<Path, List<URI>> analyzer, Predicate<Path> fileFilter, ClientLogger logger, int batchSize,
+    double maxLoadPerProcessor, DoubleSupplier loadPerProcessor, long pauseMillis) {
+    this.analyzer = analyzer;
+    this.fileFilter = fileFilter;
+    this.logger = logger;
+    this.batchSize = batchSize;
+    this.maxLoadPerProcessor = maxLoadPerProcessor;
+    this.loadPerProcessor = loadPerProcessor;
+    this.pauseMillis = pauseMillis;
+  }
+
+  synchronized void start() {
+    if (worker != null || stopped) {
+      return;
+    }
+    worker = new Thread(this::run, "sonarlint-background-analysis");
+    worker.setDaemon(true);
+    worker.setPriority(Thread.MIN_PRIORITY);
+    worker.start();
+  }
+
+  /**
+   * Stops the worker once the running batch, if any, is analyzed. Pending files are forgotten.
+   */
+  synchronized void stop() {
+    stopped = true;
+    foldersToWalk.clear();
+    pending.clear();
+    queue.clear();
+    notifyAll();
+  }
+
+  /**
+   * Schedules the analysis of all the files of the folder accepted by the file filter, with the lowest priority.
+   */
+  synchronized void scheduleFolder(Path folder) {
+    foldersToWalk.add(folder);
+    notifyAll();
+  }
+
+  /**
+   * Schedules the analysis of a file. A file already pending keeps the highest of its priorities.
+   */
+  synchronized void schedule(URI uri, Path baseDir, Priority priority) {
+    if (stopped) {
+      return;
+    }
+    Entry previous = pending.get(uri);
+    if (previous != null && previous.priority.compareTo(priority) <= 0) {
+      return;
+    }
+    Entry entry = new Entry(uri, baseDir, priority, sequence++);
+    pending.put(uri, entry);
+    queue.add(entry);
+    notifyAll();
+  }
+
+  /**
+   * Forgets a pending file, for example because an interactive analysis just reported its issues.
+   */
+  synchronized void cancel(URI uri) {
+    // the entry stays in the queue, it is skipped when polled
+    pending.remove(uri);
+  }
+
+  synchronized int pendingCount() {
+    return pending.size();
+  }
+
+  /**
+   * No batch is started until the matching call to {@link #endInteractiveAnalysis()}.
+   */
+  synchronized void beginInteractiveAnalysis() {
+    interactiveAnalyses++;
+  }
+
+  synchronized void endInteractiveAnalysis() {
+    interactiveAnalyses--;
+    notifyAll();
+  }
+
+  private void run() {
+    try {
+      while (awaitWork()) {
+        Path folder = pollFolder();
+        if (folder != null) {
+          walk(folder);
+        } else {
+          analyze(pollBatch());
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private synchronized boolean awaitWork() throws InterruptedException {
+    while (!stopped) {
+      if (interactiveAnalyses > 0 || (foldersToWalk.isEmpty() && pending.isEmpty())) {
+        wait();
+      } else if (loadPerProcessor.getAsDouble() > maxLoadPerProcessor) {
+        if (!paused) {
+          logger.debug("Background analysis paused, the system load is too high");
+          paused = true;
+        }
+        wait(pauseMillis);
+      } else {
+        paused = false;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @CheckForNull
+  private synchronized Path pollFolder() {
+    return foldersToWalk.poll();
+  }
+
+  private synchronized List<Entry> pollBatch() {
+    List<Entry> batch = new ArrayList<>();
+    Entry entry;
+    while (batch.size() < batchSize && (entry = queue.peek()) != null) {
+      if (pending.get(entry.uri) != entry) {
+        // cancelled or scheduled again with a higher priority
+        queue.poll();
+        continue;
+      }
+      if (!batch.isEmpty() && !batch.get(0).baseDir.equals(entry.baseDir)) {
+        break;
+      }
+      queue.poll();
+      pending.remove(entry.uri);
+      batch.add(entry);
+    }
+    return batch;
+  }
+
+  private synchronized boolean isStopped() {
+    return stopped;
+  }
+
+  private void analyze(List<Entry> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    try {
+      analyzer.accept(batch.get(0).baseDir, batch.stream().map(e -> e.uri).collect(Collectors.toList()));
+    } catch (Exception e) {
+      logger.error("Background analysis failed", e);
+    }
+  }
+
+  private void walk(Path folder) {
+    try {
+      Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+          if (isStopped()) {
+            return FileVisitResult.TERMINATE;
+          }
+          Path fileName = dir.getFileName();
+          if (!dir.equals(folder) && fileName != null && isSkipped(fileName.toString())) {
+            return FileVisitResult.SKIP_SUBTREE;
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+          if (attrs.isRegularFile() && fileFilter.test(file)) {
+            schedule(file.toUri(), folder, Priority.COLD);
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) {
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException e) {
+      logger.warn("Unable to list the files of " + folder + ": " + e.getMessage());
+    }
+  }
+
+  private static boolean isSkipped(String directoryName) {
+    return directoryName.startsWith(".") || SKIPPED_DIRECTORIES.contains(directoryName);
+  }
+
+  private static double systemLoadPerProcessor() {
+    OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    double load = os.getSystemLoadAverage();
+    // not available on all platforms
+    return load < 0 ? 0 : (load / os.getAvailableProcessors());
+  }
+
+  private static class Entry {
+    private final URI uri;
+    private final Path baseDir;
+    private final Priority priority;
+    private final long sequence;
+
+    Entry(URI uri, Path baseDir, Priority priority, long sequence) {
+      this.uri = uri;
+      this.baseDir = baseDir;
+      this.priority = priority;
+      this.sequence = sequence;
+    }
+  }
+}
@@ -19,36 +19,37 @@
  */
 package org.sonarlint.languageserver;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
-import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.util.Objects;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
-import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.InMemoryClientInputFile;
 
-public class DefaultClientInputFile implements ClientInputFile {
+public class DefaultClientInputFile extends InMemoryClientInputFile {
 
   private final URI fileUri;
-  private final String content;
   private final String sqLanguage;
   private final String relativePath;
   private final boolean isTest;
 
   public DefaultClientInputFile(URI uri, String relativePath, String content, boolean isTest, @Nullable String clientLanguageId) {
+    super(content, StandardCharsets.UTF_8);
     this.relativePath = relativePath;
     this.fileUri = uri;
-    this.content = content;
     this.isTest = isTest;
     this.sqLanguage = toSqLanguage(clientLanguageId);
   }
 
-  @Override
-  public Charset getCharset() {
-    return StandardCharsets.UTF_8;
+  /**
+   * Whether this instance describes the same document state, in which case it can be reused for a new analysis.
+   */
+  boolean isSameAs(String relativePath, String content, boolean isTest, @Nullable String clientLanguageId) {
+    return this.isTest == isTest
+      && this.relativePath.equals(relativePath)
+      && Objects.equals(this.sqLanguage, toSqLanguage(clientLanguageId))
+      && contents().equals(content);
   }
 
   @Override
@@ -71,16 +72,6 @@ public class DefaultClientInputFile implements ClientInputFile {
     return isTest;
   }
 
-  @Override
-  public String contents() throws IOException {
-    return content;
-  }
-
-  @Override
-  public InputStream inputStream() throws IOException {
-    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
-  }
-
   @Override
   public String language() {
     return this.sqLanguage;
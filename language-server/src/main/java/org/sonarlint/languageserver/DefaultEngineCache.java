@@ -19,55 +19,169 @@
  */
 package org.sonarlint.languageserver;
 
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedSonarLintEngine;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneSonarLintEngine;
 
 /**
+ * Thread safe: each engine is created only once, even when requested concurrently. Connected engines that were not used for some time,
+ * or the least recently used ones when too many servers are in use, are stopped to release their plugins. Engines are counted as in use
+ * between {@link #getOrCreateConnectedEngine(ServerInfo)} and {@link #releaseConnectedEngine(ConnectedSonarLintEngine)}, and are never
+ * stopped while in use.
+ *
  * @see EngineCache
  */
 public class DefaultEngineCache implements EngineCache {
 
-  private final Map<String, ConnectedSonarLintEngine> cache = new HashMap<>();
+  private static final int DEFAULT_MAX_CONNECTED_ENGINES = 3;
+  private static final long DEFAULT_IDLE_TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(30);
+
+  private final Map<String, CachedEngine> cache = new ConcurrentHashMap<>();
+  private final Map<ConnectedSonarLintEngine, CachedEngine> cachedPerEngine = new ConcurrentHashMap<>();
 
   private final StandaloneEngineFactory standaloneEngineFactory;
   private final ConnectedEngineFactory connectedEngineFactory;
+  private final ClientLogger logger;
+  private final int maxConnectedEngines;
+  private final long idleTimeoutNanos;
+  private final LongSupplier nanoTime;
+
+  private volatile StandaloneSonarLintEngine standaloneEngine = null;
 
-  private StandaloneSonarLintEngine standaloneEngine = null;
+  DefaultEngineCache(StandaloneEngineFactory standaloneEngineFactory, ConnectedEngineFactory connectedEngineFactory, ClientLogger logger) {
+    this(standaloneEngineFactory, connectedEngineFactory, logger, DEFAULT_MAX_CONNECTED_ENGINES, DEFAULT_IDLE_TIMEOUT_NANOS, System::nanoTime);
+  }
 
-  DefaultEngineCache(StandaloneEngineFactory standaloneEngineFactory, ConnectedEngineFactory connectedEngineFactory) {
+  DefaultEngineCache(StandaloneEngineFactory standaloneEngineFactory, ConnectedEngineFactory connectedEngineFactory, ClientLogger logger, int maxConnectedEngines,
+    long idleTimeoutNanos, LongSupplier nanoTime) {
     this.standaloneEngineFactory = standaloneEngineFactory;
     this.connectedEngineFactory = connectedEngineFactory;
+    this.logger = logger;
+    this.maxConnectedEngines = maxConnectedEngines;
+    this.idleTimeoutNanos = idleTimeoutNanos;
+    this.nanoTime = nanoTime;
   }
 
   @Override
   public StandaloneSonarLintEngine getOrCreateStandaloneEngine() {
-    if (standaloneEngine == null) {
-      standaloneEngine = standaloneEngineFactory.create();
+    StandaloneSonarLintEngine engine = standaloneEngine;
+    if (engine == null) {
+      synchronized (this) {
+        engine = standaloneEngine;
+        if (engine == null) {
+          engine = standaloneEngineFactory.create();
+          standaloneEngine = engine;
+        }
+      }
     }
-    return standaloneEngine;
+    return engine;
+  }
+
+  @Override
+  public void prewarmStandaloneEngine() {
+    CompletableFuture.runAsync(this::getOrCreateStandaloneEngine)
+      .whenComplete((result, error) -> {
+        if (error != null) {
+          logger.error("Failed to prewarm the standalone engine", error);
+        }
+      });
   }
 
   @Override
-  public void stopStandaloneEngine() {
+  public synchronized void stopStandaloneEngine() {
     if (standaloneEngine != null) {
       standaloneEngine.stop();
+      standaloneEngine = null;
     }
   }
 
   @CheckForNull
   @Override
   public ConnectedSonarLintEngine getOrCreateConnectedEngine(ServerInfo serverInfo) {
-    ConnectedSonarLintEngine engine = cache.get(serverInfo.serverId);
-    if (engine == null) {
+    while (true) {
+      CachedEngine cached = cache.get(serverInfo.serverId);
+      if (cached == null) {
+        CachedEngine created = new CachedEngine(nanoTime.getAsLong());
+        cached = cache.putIfAbsent(serverInfo.serverId, created);
+        if (cached == null) {
+          cached = created;
+          create(serverInfo, created);
+        }
+      }
+      ConnectedSonarLintEngine engine = cached.engine.join();
+      if (engine == null) {
+        return null;
+      }
+      if (cached.acquire()) {
+        cached.lastUsed = nanoTime.getAsLong();
+        evictIdleEngines(serverInfo.serverId);
+        return engine;
+      }
+      // evicted in the meantime, get a new one
+    }
+  }
+
+  @Override
+  public void releaseConnectedEngine(ConnectedSonarLintEngine engine) {
+    CachedEngine cached = cachedPerEngine.get(engine);
+    if (cached != null) {
+      cached.lastUsed = nanoTime.getAsLong();
+      if (cached.release()) {
+        stop(engine);
+      }
+    }
+  }
+
+  private void create(ServerInfo serverInfo, CachedEngine cached) {
+    ConnectedSonarLintEngine engine = null;
+    try {
       engine = connectedEngineFactory.create(serverInfo);
-      if (engine != null) {
-        cache.put(serverInfo.serverId, engine);
+    } finally {
+      if (engine == null) {
+        // don't cache failures, next request will try again
+        cache.remove(serverInfo.serverId, cached);
+      } else {
+        cachedPerEngine.put(engine, cached);
       }
+      cached.engine.complete(engine);
     }
-    return engine;
+  }
+
+  /**
+   * Stop engines unused for too long, and the least recently used ones above the maximum number of engines. Engines in use are kept.
+   */
+  private void evictIdleEngines(String serverIdInUse) {
+    long now = nanoTime.getAsLong();
+    List<Map.Entry<String, CachedEngine>> candidates = cache.entrySet().stream()
+      .filter(e -> !e.getKey().equals(serverIdInUse) && e.getValue().engine.isDone())
+      .sorted(Comparator.comparingLong(e -> e.getValue().lastUsed))
+      .collect(Collectors.toList());
+    int excess = cache.size() - maxConnectedEngines;
+    for (Map.Entry<String, CachedEngine> entry : candidates) {
+      CachedEngine cached = entry.getValue();
+      boolean idle = now - cached.lastUsed > idleTimeoutNanos;
+      if ((idle || excess > 0) && cached.evictIfUnused()) {
+        cache.remove(entry.getKey(), cached);
+        excess--;
+        ConnectedSonarLintEngine engine = cached.engine.join();
+        if (engine != null) {
+          stop(engine);
+        }
+      }
+    }
+  }
+
+  private void stop(ConnectedSonarLintEngine engine) {
+    cachedPerEngine.remove(engine);
+    engine.stop(false);
   }
 
   @Override
@@ -78,7 +192,58 @@ public class DefaultEngineCache implements EngineCache {
 
   @Override
   public void clearConnectedEngines() {
-    cache.values().forEach(engine -> engine.stop(false));
-    cache.clear();
+    for (String serverId : cache.keySet()) {
+      CachedEngine cached = cache.remove(serverId);
+      if (cached != null) {
+        ConnectedSonarLintEngine engine = cached.engine.join();
+        // engines still in use are stopped when released
+        if (engine != null && cached.evict()) {
+          stop(engine);
+        }
+      }
+    }
+  }
+
+  private static class CachedEngine {
+    private final CompletableFuture<ConnectedSonarLintEngine> engine = new CompletableFuture<>();
+    private volatile long lastUsed;
+    private int users;
+    private boolean evicted;
+
+    private CachedEngine(long createdAt) {
+      this.lastUsed = createdAt;
+    }
+
+    synchronized boolean acquire() {
+      if (evicted) {
+        return false;
+      }
+      users++;
+      return true;
+    }
+
+    /**
+     * Returns true if the engine was evicted and is not used anymore, so it has to be stopped
+     */
+    synchronized boolean release() {
+      users--;
+      return evicted && users == 0;
+    }
+
+    synchronized boolean evictIfUnused() {
+      if (users > 0) {
+        return false;
+      }
+      evicted = true;
+      return true;
+    }
+
+    /**
+     * Returns true if the engine is not used, so it has to be stopped now
+     */
+    synchronized boolean evict() {
+      evicted = true;
+      return users == 0;
+    }
   }
 }
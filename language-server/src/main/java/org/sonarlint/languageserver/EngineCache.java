@@ -33,16 +33,27 @@ public interface EngineCache {
    */
   StandaloneSonarLintEngine getOrCreateStandaloneEngine();
 
+  /**
+   * Start creating the standalone engine in background, so that it is ready for the first analysis.
+   */
+  void prewarmStandaloneEngine();
+
   void stopStandaloneEngine();
 
   /**
-   * Get or create and start a connected engine to the specified server.
+   * Get or create and start a connected engine to the specified server. The engine is in use until released with
+   * {@link #releaseConnectedEngine(ConnectedSonarLintEngine)}.
    *
    * Returns null if the engine cannot be created.
    */
   @CheckForNull
   ConnectedSonarLintEngine getOrCreateConnectedEngine(ServerInfo serverInfo);
 
+  /**
+   * Release a connected engine previously returned by {@link #getOrCreateConnectedEngine(ServerInfo)}.
+   */
+  void releaseConnectedEngine(ConnectedSonarLintEngine engine);
+
   /**
    * Add extra property. Will apply to newly created engines only.
    */
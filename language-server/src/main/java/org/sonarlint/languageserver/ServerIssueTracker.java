@@ -21,6 +21,8 @@ package org.sonarlint.languageserver;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
@@ -32,7 +34,6 @@ import org.sonarsource.sonarlint.core.tracking.CachingIssueTracker;
 import org.sonarsource.sonarlint.core.tracking.CachingIssueTrackerImpl;
 import org.sonarsource.sonarlint.core.tracking.InMemoryIssueTrackerCache;
 import org.sonarsource.sonarlint.core.tracking.IssueTrackable;
-import org.sonarsource.sonarlint.core.tracking.IssueTrackerCache;
 import org.sonarsource.sonarlint.core.tracking.Logger;
 import org.sonarsource.sonarlint.core.tracking.Trackable;
 
@@ -42,10 +43,13 @@ class ServerIssueTracker {
   private final ServerConfiguration serverConfiguration;
   private final ProjectBinding projectBinding;
 
-  private final IssueTrackerCache issueTrackerCache;
+  private final InMemoryIssueTrackerCache issueTrackerCache;
   private final CachingIssueTracker cachingIssueTracker;
   private final org.sonarsource.sonarlint.core.tracking.ServerIssueTracker tracker;
 
+  // server issues only change when the storage is synchronized, so read them once per file rather than at each analysis
+  private final Map<String, Collection<Trackable>> serverTrackablesPerFile = new ConcurrentHashMap<>();
+
   ServerIssueTracker(ConnectedSonarLintEngine engine, ServerConfiguration serverConfiguration, ProjectBinding projectBinding, Logger logger) {
     this.engine = engine;
     this.serverConfiguration = serverConfiguration;
@@ -56,7 +60,21 @@ class ServerIssueTracker {
     this.tracker = new org.sonarsource.sonarlint.core.tracking.ServerIssueTracker(logger, cachingIssueTracker);
   }
 
-  void matchAndTrack(String filePath, Collection<Issue> issues, IssueListener issueListener, boolean shouldFetchServerIssues) {
+  /**
+   * @param isOpened if false, the file is tracked once and forgotten, so that analyzing all the files of the workspace
+   *                 doesn't keep their issues in memory
+   */
+  void matchAndTrack(String filePath, Collection<Issue> issues, IssueListener issueListener, boolean shouldFetchServerIssues, boolean isOpened) {
+    try {
+      matchAndTrack(filePath, issues, issueListener, shouldFetchServerIssues);
+    } finally {
+      if (!isOpened) {
+        forget(filePath);
+      }
+    }
+  }
+
+  private void matchAndTrack(String filePath, Collection<Issue> issues, IssueListener issueListener, boolean shouldFetchServerIssues) {
     if (issues.isEmpty()) {
       issueTrackerCache.put(filePath, Collections.emptyList());
       return;
@@ -64,9 +82,9 @@ class ServerIssueTracker {
 
     cachingIssueTracker.matchAndTrackAsNew(filePath, toTrackables(issues));
     if (shouldFetchServerIssues) {
-      tracker.update(serverConfiguration, engine, projectBinding, Collections.singleton(filePath));
+      tracker.updateWithServerTrackables(Collections.singleton(filePath), this::fetchServerTrackables);
     } else {
-      tracker.update(engine, projectBinding, Collections.singleton(filePath));
+      tracker.updateWithServerTrackables(Collections.singleton(filePath), this::getServerTrackables);
     }
 
     issueTrackerCache.getLiveOrFail(filePath).stream()
@@ -85,6 +103,37 @@ class ServerIssueTracker {
       }));
   }
 
+  boolean isUsing(ConnectedSonarLintEngine engine) {
+    return this.engine == engine;
+  }
+
+  /**
+   * Forget server issues read so far, for example after the project storage was updated.
+   */
+  void clearServerIssues() {
+    serverTrackablesPerFile.clear();
+  }
+
+  /**
+   * Forget the tracked and server issues of the given file, for example when it is closed.
+   */
+  void forget(String filePath) {
+    serverTrackablesPerFile.remove(filePath);
+    issueTrackerCache.remove(filePath);
+  }
+
+  private Collection<Trackable> fetchServerTrackables(String filePath) {
+    Collection<Trackable> trackables = org.sonarsource.sonarlint.core.tracking.ServerIssueTracker.toTrackables(
+      tracker.fetchServerIssues(serverConfiguration, engine, projectBinding, filePath));
+    serverTrackablesPerFile.put(filePath, trackables);
+    return trackables;
+  }
+
+  private Collection<Trackable> getServerTrackables(String filePath) {
+    return serverTrackablesPerFile.computeIfAbsent(filePath,
+      k -> org.sonarsource.sonarlint.core.tracking.ServerIssueTracker.toTrackables(engine.getServerIssues(projectBinding, k)));
+  }
+
   private static Collection<Trackable> toTrackables(Collection<Issue> issues) {
     return issues.stream().map(IssueTrackable::new).collect(Collectors.toList());
   }
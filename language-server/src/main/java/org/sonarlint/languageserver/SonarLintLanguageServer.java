@@ -30,7 +30,9 @@ import java.net.Socket;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
@@ -40,12 +42,17 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Future;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -88,6 +95,7 @@ import org.eclipse.lsp4j.SaveOptions;
 import org.eclipse.lsp4j.ServerCapabilities;
 import org.eclipse.lsp4j.SignatureHelp;
 import org.eclipse.lsp4j.SymbolInformation;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
 import org.eclipse.lsp4j.TextDocumentPositionParams;
 import org.eclipse.lsp4j.TextDocumentSyncKind;
 import org.eclipse.lsp4j.TextDocumentSyncOptions;
@@ -136,6 +144,7 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
   static final String TEST_FILE_PATTERN = "testFilePattern";
   private static final String ANALYZER_PROPERTIES = "analyzerProperties";
   private static final String INCLUDE_RULE_DETAILS_IN_CODE_ACTION = "includeRuleDetailsInCodeAction";
+  static final String BACKGROUND_ANALYSIS = "backgroundAnalysis";
   static final String CONNECTED_MODE_SERVERS_PROP = "connectedModeServers";
   static final String CONNECTED_MODE_PROJECT_PROP = "connectedModeProject";
   private static final String TYPESCRIPT_PATH_PROP = "sonar.typescript.internal.typescriptLocation";
@@ -148,6 +157,8 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
   private static final List<String> SONARLINT_COMMANDS = Arrays.asList(
     SONARLINT_UPDATE_SERVER_STORAGE_COMMAND,
     SONARLINT_UPDATE_PROJECT_BINDING_COMMAND);
+  // files of the languages supported by the embedded analyzers, analyzed by the background analysis
+  private static final List<String> ANALYZED_FILE_SUFFIXES = Arrays.asList(".js", ".jsx", ".vue", ".ts", ".tsx", ".py", ".php");
 
   private final SonarLintLanguageClient client;
   private final Future<?> backgroundProcess;
@@ -155,22 +166,29 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
   private final ClientLogger logger;
 
   private final Map<URI, String> languageIdPerFileURI = new HashMap<>();
+  // also read by the background analysis
+  private final Map<URI, DefaultClientInputFile> inputFilePerFileURI = new ConcurrentHashMap<>();
+  private final Set<URI> editedFileURIs = new HashSet<>();
+  private final Map<URI, TextDocument> documentPerFileURI = new HashMap<>();
   private final SonarLintTelemetry telemetry = new SonarLintTelemetry();
 
-  private UserSettings userSettings = new UserSettings();
-  private final List<String> workspaceFolders = new ArrayList<>();
+  private volatile UserSettings userSettings = new UserSettings();
+  private final List<String> workspaceFolders = new CopyOnWriteArrayList<>();
 
   private final EngineCache engineCache;
   private final ServerInfoCache serverInfoCache;
 
-  private ServerProjectBinding binding;
+  private volatile ServerProjectBinding binding;
 
   private final ServerIssueTrackingLogger serverIssueTrackingLogger = new ServerIssueTrackingLogger();
-  private ServerIssueTracker serverIssueTracker;
+  private volatile ServerIssueTracker serverIssueTracker;
 
   // note: only used by SonarLint for VSCode, not Atom
   private boolean shouldIncludeRuleDetailsInCodeAction;
 
+  @Nullable
+  private BackgroundAnalysisScheduler backgroundAnalysis;
+
   SonarLintLanguageServer(InputStream inputStream, OutputStream outputStream,
     BiFunction<LanguageClientLogOutput, ClientLogger, EngineCache> engineCacheFactory,
     Function<SonarLintLanguageClient, ClientLogger> loggerFactory) {
@@ -196,7 +214,7 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
     BiFunction<LanguageClientLogOutput, ClientLogger, EngineCache> engineCacheFactory = (logOutput, logger) -> {
       StandaloneEngineFactory standaloneEngineFactory = new StandaloneEngineFactory(analyzers, logOutput, logger);
       ConnectedEngineFactory connectedEngineFactory = new ConnectedEngineFactory(logOutput, logger);
-      return new DefaultEngineCache(standaloneEngineFactory, connectedEngineFactory);
+      return new DefaultEngineCache(standaloneEngineFactory, connectedEngineFactory, logger);
     };
 
     Function<SonarLintLanguageClient, ClientLogger> loggerFactory = DefaultClientLogger::new;
@@ -254,6 +272,15 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
 
     serverInfoCache.replace(options.get(CONNECTED_MODE_SERVERS_PROP));
     updateBinding((Map<?, ?>) options.get(CONNECTED_MODE_PROJECT_PROP));
+    if (binding == null) {
+      engineCache.prewarmStandaloneEngine();
+    }
+
+    if (Boolean.TRUE.equals(options.get(BACKGROUND_ANALYSIS))) {
+      backgroundAnalysis = new BackgroundAnalysisScheduler(this::analyzeInBackground, SonarLintLanguageServer::isAnalyzedFile, logger);
+      backgroundAnalysis.start();
+      scheduleWorkspaceAnalysis();
+    }
 
     InitializeResult result = new InitializeResult();
     ServerCapabilities c = new ServerCapabilities();
@@ -279,8 +306,9 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
   private static TextDocumentSyncOptions getTextDocumentSyncOptions() {
     TextDocumentSyncOptions textDocumentSyncOptions = new TextDocumentSyncOptions();
     textDocumentSyncOptions.setOpenClose(true);
-    textDocumentSyncOptions.setChange(TextDocumentSyncKind.Full);
-    textDocumentSyncOptions.setSave(new SaveOptions(true));
+    textDocumentSyncOptions.setChange(TextDocumentSyncKind.Incremental);
+    // the content of opened documents is already known
+    textDocumentSyncOptions.setSave(new SaveOptions(false));
     return textDocumentSyncOptions;
   }
 
@@ -294,7 +322,11 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
       if (engine == null) {
         logger.warn("Could not start server: " + serverId);
       } else {
-        updateServerStorage(engine, serverInfo);
+        try {
+          updateServerStorage(engine, serverInfo);
+        } finally {
+          engineCache.releaseConnectedEngine(engine);
+        }
       }
     });
   }
@@ -348,12 +380,16 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
 
     binding = new ServerProjectBinding(serverId, projectKey);
 
-    if (updateProjectStorage(engine, serverInfo)) {
-      ProjectBinding projectBinding = new ProjectBinding(projectKey, "", "");
-      serverIssueTracker = new ServerIssueTracker(engine, getServerConfiguration(serverInfo), projectBinding, serverIssueTrackingLogger);
-      telemetry.usedConnectedMode(serverInfo.serverUrl);
-    } else {
-      binding = null;
+    try {
+      if (updateProjectStorage(engine, serverInfo)) {
+        ProjectBinding projectBinding = new ProjectBinding(projectKey, "", "");
+        serverIssueTracker = new ServerIssueTracker(engine, getServerConfiguration(serverInfo), projectBinding, serverIssueTrackingLogger);
+        telemetry.usedConnectedMode(serverInfo.serverUrl);
+      } else {
+        binding = null;
+      }
+    } finally {
+      engineCache.releaseConnectedEngine(engine);
     }
   }
 
@@ -361,6 +397,9 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
     ServerConfiguration serverConfig = getServerConfiguration(serverInfo);
     try {
       engine.updateProject(serverConfig, binding.projectKey, null);
+      if (serverIssueTracker != null) {
+        serverIssueTracker.clearServerIssues();
+      }
       return true;
     } catch (ProjectNotFoundException e) {
       logger.error(ClientLogger.ErrorType.PROJECT_NOT_FOUND);
@@ -408,6 +447,9 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
 
   @Override
   public CompletableFuture<Object> shutdown() {
+    if (backgroundAnalysis != null) {
+      backgroundAnalysis.stop();
+    }
     engineCache.stopStandaloneEngine();
     engineCache.clearConnectedEngines();
     telemetry.stop();
@@ -494,7 +536,11 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
       ServerInfo serverInfo = serverInfoCache.get(binding.serverId);
       ConnectedSonarLintEngine engine = engineCache.getOrCreateConnectedEngine(serverInfo);
       if (engine != null) {
-        ruleDetails = engine.getRuleDetails(ruleKey);
+        try {
+          ruleDetails = engine.getRuleDetails(ruleKey);
+        } finally {
+          engineCache.releaseConnectedEngine(engine);
+        }
       } else {
         return Collections.emptyList();
       }
@@ -540,29 +586,64 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
   public void didOpen(DidOpenTextDocumentParams params) {
     URI uri = parseURI(params.getTextDocument().getUri());
     languageIdPerFileURI.put(uri, params.getTextDocument().getLanguageId());
+    documentPerFileURI.put(uri, new TextDocument(params.getTextDocument().getText()));
     analyze(uri, params.getTextDocument().getText(), true);
+    if (backgroundAnalysis != null) {
+      backgroundAnalysis.cancel(uri);
+    }
   }
 
   @Override
   public void didChange(DidChangeTextDocumentParams params) {
     URI uri = parseURI(params.getTextDocument().getUri());
-    analyze(uri, params.getContentChanges().get(0).getText(), false);
+    TextDocument document = documentPerFileURI.get(uri);
+    List<TextDocumentContentChangeEvent> changes = params.getContentChanges();
+    if (document == null) {
+      // only a change of the whole content can be applied to a document that was not opened
+      if (changes.isEmpty() || changes.get(changes.size() - 1).getRange() != null) {
+        logger.warn("Ignoring change of unknown document: " + uri);
+        return;
+      }
+      document = new TextDocument(changes.get(changes.size() - 1).getText());
+      documentPerFileURI.put(uri, document);
+    } else {
+      document.apply(changes);
+    }
+    analyze(uri, document.getText(), false);
+    editedFileURIs.add(uri);
+    if (backgroundAnalysis != null) {
+      backgroundAnalysis.cancel(uri);
+    }
   }
 
   @Override
   public void didClose(DidCloseTextDocumentParams params) {
     URI uri = parseURI(params.getTextDocument().getUri());
     languageIdPerFileURI.remove(uri);
+    DefaultClientInputFile inputFile = inputFilePerFileURI.remove(uri);
+    documentPerFileURI.remove(uri);
+    ServerIssueTracker tracker = serverIssueTracker;
+    if (inputFile != null && tracker != null) {
+      tracker.forget(FileUtils.toSonarQubePath(inputFile.relativePath()));
+    }
     // Clear issues
     client.publishDiagnostics(newPublishDiagnostics(uri));
+    if (editedFileURIs.remove(uri) && backgroundAnalysis != null) {
+      // the issues of the saved content are reported again by the background analysis
+      backgroundAnalysis.schedule(uri, findBaseDir(uri), BackgroundAnalysisScheduler.Priority.RECENTLY_EDITED);
+    }
   }
 
   @Override
   public void didSave(DidSaveTextDocumentParams params) {
+    URI uri = parseURI(params.getTextDocument().getUri());
     String content = params.getText();
+    if (content == null) {
+      TextDocument document = documentPerFileURI.get(uri);
+      content = document != null ? document.getText() : null;
+    }
     if (content != null) {
-      URI uri = parseURI(params.getTextDocument().getUri());
-      analyze(uri, params.getText(), false);
+      analyze(uri, content, false);
     }
   }
 
@@ -587,6 +668,14 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
     files.put(uri, newPublishDiagnostics(uri));
 
     AnalysisWrapper analysisWrapper = getAnalysisWrapper();
+    try {
+      analyze(uri, content, shouldFetchServerIssues, analysisWrapper, files);
+    } finally {
+      analysisWrapper.release();
+    }
+  }
+
+  private void analyze(URI uri, String content, boolean shouldFetchServerIssues, AnalysisWrapper analysisWrapper, Map<URI, PublishDiagnosticsParams> files) {
     if (analysisWrapper.isExcludedByServerSideExclusions(uri)) {
       logger.debug("Skip analysis of excluded file: " + uri);
       return;
@@ -602,9 +691,13 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
       }
     };
 
+    if (backgroundAnalysis != null) {
+      backgroundAnalysis.beginInteractiveAnalysis();
+    }
     try {
       Path baseDir = findBaseDir(uri);
-      AnalysisResultsWrapper analysisResults = analysisWrapper.analyze(baseDir, uri, content, issueListener, shouldFetchServerIssues);
+      AnalysisResultsWrapper analysisResults = analysisWrapper.analyze(baseDir, Collections.singletonList(inputFile(baseDir, uri, content)), issueListener,
+        shouldFetchServerIssues);
       telemetry.analysisDoneOnSingleFile(StringUtils.substringAfterLast(uri.toString(), "."), analysisResults.analysisTime);
 
       // Ignore files with parsing error
@@ -613,17 +706,100 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
         .forEach(files::remove);
     } catch (Exception e) {
       logger.error(ClientLogger.ErrorType.ANALYSIS_FAILED, e);
+    } finally {
+      if (backgroundAnalysis != null) {
+        backgroundAnalysis.endInteractiveAnalysis();
+      }
     }
 
     files.values().forEach(client::publishDiagnostics);
   }
 
+  private void scheduleWorkspaceAnalysis() {
+    inputFilePerFileURI.keySet().forEach(uri -> backgroundAnalysis.schedule(uri, findBaseDir(uri), BackgroundAnalysisScheduler.Priority.OPEN));
+    editedFileURIs.forEach(uri -> backgroundAnalysis.schedule(uri, findBaseDir(uri), BackgroundAnalysisScheduler.Priority.RECENTLY_EDITED));
+    workspaceFolders.forEach(folder -> backgroundAnalysis.scheduleFolder(Paths.get(folder)));
+  }
+
+  private static boolean isAnalyzedFile(Path file) {
+    String fileName = file.getFileName().toString();
+    return ANALYZED_FILE_SUFFIXES.stream().anyMatch(fileName::endsWith);
+  }
+
+  /**
+   * Called by the background analysis, on its own thread: opened documents are analyzed with their current content, other files with
+   * their content on disk. Issues are not published for documents that were opened or changed during the analysis, as the interactive
+   * analysis reports more recent ones.
+   */
+  // visible for testing
+  void analyzeInBackground(Path baseDir, List<URI> uris) {
+    AnalysisWrapper analysisWrapper = getAnalysisWrapper();
+    try {
+      analyzeInBackground(baseDir, uris, analysisWrapper);
+    } finally {
+      analysisWrapper.release();
+    }
+  }
+
+  private void analyzeInBackground(Path baseDir, List<URI> uris, AnalysisWrapper analysisWrapper) {
+    Map<URI, ClientInputFile> inputFiles = new LinkedHashMap<>();
+    Map<URI, DefaultClientInputFile> openedInputFiles = new HashMap<>();
+    for (URI uri : uris) {
+      if (analysisWrapper.isExcludedByServerSideExclusions(uri)) {
+        continue;
+      }
+      DefaultClientInputFile opened = inputFilePerFileURI.get(uri);
+      if (opened != null) {
+        openedInputFiles.put(uri, opened);
+        inputFiles.put(uri, opened);
+        continue;
+      }
+      try {
+        String content = new String(Files.readAllBytes(Paths.get(uri)), StandardCharsets.UTF_8);
+        inputFiles.put(uri, new DefaultClientInputFile(uri, getFileRelativePath(baseDir, uri), content, isTest(uri), null));
+      } catch (IOException e) {
+        logger.debug("Skip background analysis of unreadable file " + uri + ": " + e.getMessage());
+      }
+    }
+    if (inputFiles.isEmpty()) {
+      return;
+    }
+
+    Map<URI, PublishDiagnosticsParams> files = new HashMap<>();
+    inputFiles.keySet().forEach(uri -> files.put(uri, newPublishDiagnostics(uri)));
+    IssueListener issueListener = issue -> {
+      ClientInputFile inputFile = issue.getInputFile();
+      if (inputFile != null) {
+        PublishDiagnosticsParams publish = files.get(inputFile.<URI>getClientObject());
+        if (publish != null) {
+          convert(issue).ifPresent(publish.getDiagnostics()::add);
+        }
+      }
+    };
+
+    AnalysisResultsWrapper analysisResults = analysisWrapper.analyze(baseDir, new ArrayList<>(inputFiles.values()), issueListener, false);
+    analysisResults.results.failedAnalysisFiles().stream()
+      .map(ClientInputFile::getClientObject)
+      .forEach(files::remove);
+
+    files.forEach((uri, publish) -> {
+      if (inputFilePerFileURI.get(uri) == openedInputFiles.get(uri)) {
+        client.publishDiagnostics(publish);
+      }
+    });
+  }
+
   private AnalysisWrapper getAnalysisWrapper() {
     if (binding != null) {
       ServerInfo serverInfo = serverInfoCache.get(binding.serverId);
       if (serverInfo != null) {
         ConnectedSonarLintEngine engine = engineCache.getOrCreateConnectedEngine(serverInfo);
         if (engine != null) {
+          if (serverIssueTracker != null && !serverIssueTracker.isUsing(engine)) {
+            // the engine was replaced since binding, for example after being evicted from the engine cache
+            serverIssueTracker = new ServerIssueTracker(engine, getServerConfiguration(serverInfo), new ProjectBinding(binding.projectKey, "", ""),
+              serverIssueTrackingLogger);
+          }
           return new ConnectedAnalysisWrapper(engine, binding.projectKey);
         }
       }
@@ -642,10 +818,31 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
     }
   }
 
+  /**
+   * Reuse the input file of the previous analysis when the document did not change, so that its content is not encoded again.
+   */
+  private DefaultClientInputFile inputFile(Path baseDir, URI uri, String content) {
+    String relativePath = getFileRelativePath(baseDir, uri);
+    boolean test = isTest(uri);
+    String languageId = languageIdPerFileURI.get(uri);
+    DefaultClientInputFile previous = inputFilePerFileURI.get(uri);
+    if (previous != null && previous.isSameAs(relativePath, content, test, languageId)) {
+      return previous;
+    }
+    DefaultClientInputFile inputFile = new DefaultClientInputFile(uri, relativePath, content, test, languageId);
+    inputFilePerFileURI.put(uri, inputFile);
+    return inputFile;
+  }
+
   interface AnalysisWrapper {
-    AnalysisResultsWrapper analyze(Path baseDir, URI uri, String content, IssueListener issueListener, boolean shouldFetchServerIssues);
+    AnalysisResultsWrapper analyze(Path baseDir, List<ClientInputFile> inputFiles, IssueListener issueListener, boolean shouldFetchServerIssues);
 
     boolean isExcludedByServerSideExclusions(URI fileUri);
+
+    /**
+     * Called once the wrapper is not used anymore
+     */
+    void release();
   }
 
   class StandaloneAnalysisWrapper implements AnalysisWrapper {
@@ -655,11 +852,16 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
     }
 
     @Override
-    public AnalysisResultsWrapper analyze(Path baseDir, URI uri, String content, IssueListener issueListener, boolean shouldFetchServerIssues) {
+    public void release() {
+      // the standalone engine is not evicted
+    }
+
+    @Override
+    public AnalysisResultsWrapper analyze(Path baseDir, List<ClientInputFile> inputFiles, IssueListener issueListener, boolean shouldFetchServerIssues) {
       StandaloneAnalysisConfiguration configuration = new StandaloneAnalysisConfiguration(baseDir, baseDir.resolve(".sonarlint"),
-        Collections.singletonList(new DefaultClientInputFile(uri, getFileRelativePath(baseDir, uri), content, isTest(uri), languageIdPerFileURI.get(uri))),
+        inputFiles,
         userSettings.analyzerProperties);
-      logger.debug("Analysis triggered on " + uri + " with configuration: \n" + configuration.toString());
+      logger.debug("Analysis triggered on " + describe(inputFiles) + " with configuration: \n" + configuration.toString());
 
       long start = System.currentTimeMillis();
       StandaloneSonarLintEngine engine = engineCache.getOrCreateStandaloneEngine();
@@ -679,6 +881,11 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
       this.projectKey = projectKey;
     }
 
+    @Override
+    public void release() {
+      engineCache.releaseConnectedEngine(engine);
+    }
+
     @Override
     public boolean isExcludedByServerSideExclusions(URI fileUri) {
       Path baseDir = findBaseDir(fileUri);
@@ -692,14 +899,20 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
     }
 
     @Override
-    public AnalysisResultsWrapper analyze(Path baseDir, URI uri, String content, IssueListener issueListener, boolean shouldFetchServerIssues) {
+    public AnalysisResultsWrapper analyze(Path baseDir, List<ClientInputFile> inputFiles, IssueListener issueListener, boolean shouldFetchServerIssues) {
       ConnectedAnalysisConfiguration configuration = new ConnectedAnalysisConfiguration(projectKey, baseDir, baseDir.resolve(".sonarlint"),
-        Collections.singletonList(new DefaultClientInputFile(uri, getFileRelativePath(baseDir, uri), content, isTest(uri), languageIdPerFileURI.get(uri))),
+        inputFiles,
         userSettings.analyzerProperties);
-      logger.debug("Analysis triggered on " + uri + " with configuration: \n" + configuration.toString());
-
-      List<Issue> issues = new LinkedList<>();
-      IssueListener collector = issues::add;
+      logger.debug("Analysis triggered on " + describe(inputFiles) + " with configuration: \n" + configuration.toString());
+
+      Map<ClientInputFile, List<Issue>> issuesPerFile = new LinkedHashMap<>();
+      inputFiles.forEach(inputFile -> issuesPerFile.put(inputFile, new LinkedList<>()));
+      IssueListener collector = issue -> {
+        ClientInputFile inputFile = issue.getInputFile();
+        if (inputFile != null) {
+          issuesPerFile.computeIfAbsent(inputFile, f -> new LinkedList<>()).add(issue);
+        }
+      };
       ServerInfo serverInfo = serverInfoCache.get(binding.serverId);
 
       long start = System.currentTimeMillis();
@@ -715,8 +928,8 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
         analysisResults = analyze(configuration, collector);
       }
 
-      String filePath = FileUtils.toSonarQubePath(getFileRelativePath(baseDir, uri));
-      serverIssueTracker.matchAndTrack(filePath, issues, issueListener, shouldFetchServerIssues);
+      issuesPerFile.forEach((inputFile, issues) -> serverIssueTracker.matchAndTrack(FileUtils.toSonarQubePath(inputFile.relativePath()), issues,
+        issueListener, shouldFetchServerIssues, inputFilePerFileURI.containsKey(inputFile.<URI>getClientObject())));
 
       int analysisTime = (int) (System.currentTimeMillis() - start);
 
@@ -728,6 +941,13 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
     }
   }
 
+  private static String describe(List<ClientInputFile> inputFiles) {
+    if (inputFiles.size() == 1) {
+      return inputFiles.get(0).getClientObject().toString();
+    }
+    return inputFiles.size() + " files";
+  }
+
   private boolean isTest(URI uri) {
     return userSettings.testMatcher.matches(Paths.get(uri));
   }
@@ -886,6 +1106,10 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
       case SONARLINT_UPDATE_PROJECT_BINDING_COMMAND:
         Map<String, Object> map = args == null || args.isEmpty() ? null : parseToMap(args.get(0));
         updateBinding(map);
+        if (backgroundAnalysis != null) {
+          // issues depend on the quality profiles of the bound project
+          scheduleWorkspaceAnalysis();
+        }
         break;
       default:
         logger.warn("Unimplemented command: " + params.getCommand());
@@ -927,8 +1151,12 @@ public class SonarLintLanguageServer implements LanguageServer, WorkspaceService
   public void didChangeWorkspaceFolders(DidChangeWorkspaceFoldersParams params) {
     WorkspaceFoldersChangeEvent event = params.getEvent();
     workspaceFolders.removeAll(toList(event.getRemoved()));
-    workspaceFolders.addAll(toList(event.getAdded()));
+    List<String> added = toList(event.getAdded());
+    workspaceFolders.addAll(added);
     workspaceFolders.sort(Comparator.reverseOrder());
+    if (backgroundAnalysis != null) {
+      added.forEach(folder -> backgroundAnalysis.scheduleFolder(Paths.get(folder)));
+    }
   }
 
   // See the changelog for any evolutions on how properties are parsed:
@@ -0,0 +1,156 @@
+/*
+ * SonarLint Language Server
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.languageserver;
+
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+
+/**
+ * Content of a document opened in the editor, updated with the range edits sent by the client when text synchronization is incremental.
+ * Edits are spliced in the content, and offsets of line starts are maintained on each edit, to convert LSP positions without scanning
+ * the content. Analysis reads the whole content, so the string is only built when it is read.
+ */
+class TextDocument {
+
+  private final StringBuilder content = new StringBuilder();
+  private int[] lineStarts;
+  private int lineCount;
+
+  @CheckForNull
+  private String text;
+
+  TextDocument(String text) {
+    reset(text);
+  }
+
+  private void reset(String newContent) {
+    content.setLength(0);
+    content.append(newContent);
+    text = newContent;
+    lineStarts = new int[16];
+    lineCount = 1;
+    addLineStarts(0, content.length());
+  }
+
+  /**
+   * Applies the changes in order, as received in a didChange notification.
+   */
+  void apply(List<TextDocumentContentChangeEvent> changes) {
+    for (TextDocumentContentChangeEvent change : changes) {
+      apply(change);
+    }
+  }
+
+  private void apply(TextDocumentContentChangeEvent change) {
+    Range range = change.getRange();
+    if (range == null) {
+      reset(change.getText());
+      return;
+    }
+    int start = offset(range.getStart());
+    int end = Math.max(start, offset(range.getEnd()));
+    replace(start, end, change.getText());
+  }
+
+  String getText() {
+    if (text == null) {
+      text = content.toString();
+    }
+    return text;
+  }
+
+  int lineCount() {
+    return lineCount;
+  }
+
+  /**
+   * Offset of a position. Like specified by the LSP, a character beyond the end of the line designates the end of the line.
+   */
+  // visible for testing
+  int offset(Position position) {
+    int line = position.getLine();
+    int length = content.length();
+    if (line >= lineCount) {
+      return length;
+    }
+    int offset = lineStarts[line] + position.getCharacter();
+    if (line + 1 == lineCount) {
+      return Math.min(offset, length);
+    }
+    int nextLineStart = lineStarts[line + 1];
+    if (offset < nextLineStart - 1) {
+      return offset;
+    }
+    int lineBreakLength = nextLineStart >= 2 && content.charAt(nextLineStart - 2) == '\r' && content.charAt(nextLineStart - 1) == '\n' ? 2 : 1;
+    return Math.min(offset, nextLineStart - lineBreakLength);
+  }
+
+  private int lineOf(int offset) {
+    int index = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+    return index >= 0 ? index : (-index - 2);
+  }
+
+  private void replace(int start, int end, String inserted) {
+    int firstAfter = lineOf(end) + 1;
+    int[] after = Arrays.copyOfRange(lineStarts, firstAfter, lineCount);
+    content.replace(start, end, inserted);
+    text = null;
+    updateLineStarts(start, start + inserted.length(), after, inserted.length() - (end - start));
+  }
+
+  /**
+   * Whether an offset is a line start only depends on the characters just before and at this offset, so only offsets
+   * from the start of the edit to the end of the inserted text can change. Line starts after the edit are shifted.
+   */
+  private void updateLineStarts(int start, int newEnd, int[] after, int delta) {
+    lineCount = lineOf(start) + 1;
+    if (lineStarts[lineCount - 1] == start && start > 0) {
+      lineCount--;
+    }
+    addLineStarts(start, newEnd);
+    for (int lineStart : after) {
+      addLineStart(lineStart + delta);
+    }
+  }
+
+  /**
+   * Adds the line starts from offset {@code from} to offset {@code to} inclusive.
+   */
+  private void addLineStarts(int from, int to) {
+    int length = content.length();
+    for (int offset = Math.max(from, 1); offset <= to; offset++) {
+      char previous = content.charAt(offset - 1);
+      if (previous == '\n' || (previous == '\r' && (offset == length || content.charAt(offset) != '\n'))) {
+        addLineStart(offset);
+      }
+    }
+  }
+
+  private void addLineStart(int offset) {
+    if (lineCount == lineStarts.length) {
+      lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+    }
+    lineStarts[lineCount++] = offset;
+  }
+}
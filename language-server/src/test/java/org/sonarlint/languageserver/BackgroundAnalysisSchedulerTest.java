@@ -0,0 +1,204 @@
+/*
+ * SonarLint Language Server
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.languageserver;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonarlint.languageserver.BackgroundAnalysisScheduler.Priority;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class BackgroundAnalysisSchedulerTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private final Path baseDir = Paths.get("base").toAbsolutePath();
+  private final List<List<URI>> batches = Collections.synchronizedList(new ArrayList<>());
+  private final ClientLogger logger = mock(ClientLogger.class);
+  private final AtomicReference<Double> load = new AtomicReference<>(0.0);
+
+  private BackgroundAnalysisScheduler scheduler;
+
+  @After
+  public void stop() {
+    if (scheduler != null) {
+      scheduler.stop();
+    }
+  }
+
+  private BackgroundAnalysisScheduler newScheduler(int batchSize) {
+    scheduler = new BackgroundAnalysisScheduler((dir, uris) -> batches.add(uris), p -> p.toString().endsWith(".js"), logger, batchSize, 1.0,
+      load::get, 10);
+    return scheduler;
+  }
+
+  private URI uri(String name) {
+    return baseDir.resolve(name).toUri();
+  }
+
+  @Test
+  public void analyze_by_priority_then_by_schedule_order_after_interactive_analysis() {
+    newScheduler(1);
+    scheduler.beginInteractiveAnalysis();
+    scheduler.start();
+
+    scheduler.schedule(uri("cold1"), baseDir, Priority.COLD);
+    scheduler.schedule(uri("edited"), baseDir, Priority.RECENTLY_EDITED);
+    scheduler.schedule(uri("open"), baseDir, Priority.OPEN);
+    scheduler.schedule(uri("cold2"), baseDir, Priority.COLD);
+    assertThat(scheduler.pendingCount()).isEqualTo(4);
+    assertThat(batches).isEmpty();
+
+    scheduler.endInteractiveAnalysis();
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> batches.size() == 4);
+    assertThat(batches).containsExactly(
+      Collections.singletonList(uri("open")),
+      Collections.singletonList(uri("edited")),
+      Collections.singletonList(uri("cold1")),
+      Collections.singletonList(uri("cold2")));
+    assertThat(scheduler.pendingCount()).isZero();
+  }
+
+  @Test
+  public void batch_files_of_same_base_dir() {
+    newScheduler(2);
+    Path otherBaseDir = Paths.get("other").toAbsolutePath();
+    scheduler.beginInteractiveAnalysis();
+    scheduler.start();
+
+    scheduler.schedule(uri("a"), baseDir, Priority.COLD);
+    scheduler.schedule(uri("b"), baseDir, Priority.COLD);
+    scheduler.schedule(uri("c"), baseDir, Priority.COLD);
+    scheduler.schedule(otherBaseDir.resolve("d").toUri(), otherBaseDir, Priority.COLD);
+    scheduler.endInteractiveAnalysis();
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> batches.size() == 3);
+    assertThat(batches).containsExactly(
+      Arrays.asList(uri("a"), uri("b")),
+      Collections.singletonList(uri("c")),
+      Collections.singletonList(otherBaseDir.resolve("d").toUri()));
+  }
+
+  @Test
+  public void keep_highest_priority_and_skip_cancelled_files() {
+    newScheduler(10);
+    scheduler.beginInteractiveAnalysis();
+    scheduler.start();
+
+    scheduler.schedule(uri("a"), baseDir, Priority.COLD);
+    scheduler.schedule(uri("b"), baseDir, Priority.COLD);
+    scheduler.schedule(uri("c"), baseDir, Priority.OPEN);
+    scheduler.schedule(uri("b"), baseDir, Priority.RECENTLY_EDITED);
+    scheduler.schedule(uri("c"), baseDir, Priority.COLD);
+    scheduler.cancel(uri("a"));
+    assertThat(scheduler.pendingCount()).isEqualTo(2);
+    scheduler.endInteractiveAnalysis();
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> batches.size() == 1);
+    assertThat(batches.get(0)).containsExactly(uri("c"), uri("b"));
+  }
+
+  @Test
+  public void walk_folders_skipping_hidden_and_dependency_directories() throws IOException {
+    Path folder = temp.newFolder().toPath();
+    Path file = createFile(folder.resolve("src/main.js"));
+    createFile(folder.resolve("src/readme.txt"));
+    createFile(folder.resolve(".git/hook.js"));
+    createFile(folder.resolve("node_modules/lib/index.js"));
+
+    newScheduler(10);
+    scheduler.start();
+    scheduler.scheduleFolder(folder);
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> batches.size() == 1);
+    assertThat(batches.get(0)).containsExactly(file.toUri());
+  }
+
+  @Test
+  public void pause_while_system_load_is_too_high() throws InterruptedException {
+    load.set(2.0);
+    newScheduler(10);
+    scheduler.start();
+    scheduler.schedule(uri("a"), baseDir, Priority.COLD);
+
+    Thread.sleep(100);
+    assertThat(batches).isEmpty();
+    verify(logger).debug(startsWith("Background analysis paused"));
+
+    load.set(0.5);
+    await().atMost(5, TimeUnit.SECONDS).until(() -> batches.size() == 1);
+  }
+
+  @Test
+  public void log_failed_batches_and_continue() {
+    scheduler = new BackgroundAnalysisScheduler((dir, uris) -> {
+      if (uris.contains(uri("fail"))) {
+        throw new IllegalStateException("error");
+      }
+      batches.add(uris);
+    }, p -> true, logger, 1, 1.0, load::get, 10);
+    scheduler.beginInteractiveAnalysis();
+    scheduler.start();
+    scheduler.schedule(uri("fail"), baseDir, Priority.COLD);
+    scheduler.schedule(uri("ok"), baseDir, Priority.COLD);
+    scheduler.endInteractiveAnalysis();
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> batches.size() == 1);
+    verify(logger).error(startsWith("Background analysis failed"), any(IllegalStateException.class));
+  }
+
+  @Test
+  public void ignore_files_scheduled_after_stop() {
+    newScheduler(10);
+    scheduler.beginInteractiveAnalysis();
+    scheduler.start();
+    scheduler.schedule(uri("a"), baseDir, Priority.COLD);
+
+    scheduler.stop();
+    scheduler.schedule(uri("b"), baseDir, Priority.COLD);
+
+    assertThat(scheduler.pendingCount()).isZero();
+  }
+
+  private static Path createFile(Path file) throws IOException {
+    Files.createDirectories(file.getParent());
+    return Files.write(file, "content".getBytes());
+  }
+}
@@ -19,6 +19,13 @@
  */
 package org.sonarlint.languageserver;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.*;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedSonarLintEngine;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneSonarLintEngine;
@@ -33,7 +40,7 @@ public class DefaultEngineCacheTest {
     StandaloneEngineFactory standaloneEngineFactory = mock(StandaloneEngineFactory.class);
     StandaloneSonarLintEngine standaloneEngine = mock(StandaloneSonarLintEngine.class);
 
-    DefaultEngineCache engineCache = new DefaultEngineCache(standaloneEngineFactory, mock(ConnectedEngineFactory.class));
+    DefaultEngineCache engineCache = new DefaultEngineCache(standaloneEngineFactory, mock(ConnectedEngineFactory.class), mock(ClientLogger.class));
     engineCache.putExtraProperty("foo", "bar");
     verify(standaloneEngineFactory).putExtraProperty(anyString(), anyString());
 
@@ -52,7 +59,7 @@ public class DefaultEngineCacheTest {
     ConnectedEngineFactory connectedEngineFactory = mock(ConnectedEngineFactory.class);
     ConnectedSonarLintEngine connectedEngine = mock(ConnectedSonarLintEngine.class);
 
-    DefaultEngineCache engineCache = new DefaultEngineCache(mock(StandaloneEngineFactory.class), connectedEngineFactory);
+    DefaultEngineCache engineCache = new DefaultEngineCache(mock(StandaloneEngineFactory.class), connectedEngineFactory, mock(ClientLogger.class));
     engineCache.putExtraProperty("foo", "bar");
     verify(connectedEngineFactory).putExtraProperty(anyString(), anyString());
 
@@ -63,4 +70,153 @@ public class DefaultEngineCacheTest {
     when(connectedEngineFactory.create(eq(serverInfo))).thenReturn(mock(ConnectedSonarLintEngine.class));
     assertThat(engineCache.getOrCreateConnectedEngine(serverInfo)).isEqualTo(connectedEngine);
   }
+
+  @Test
+  public void create_connected_engine_once_when_requested_concurrently() throws Exception {
+    ServerInfo serverInfo = new ServerInfo("serverId", "serverUrl", "token", null);
+    ConnectedEngineFactory connectedEngineFactory = mock(ConnectedEngineFactory.class);
+    CountDownLatch creating = new CountDownLatch(1);
+    when(connectedEngineFactory.create(serverInfo)).thenAnswer(invocation -> {
+      creating.await();
+      return mock(ConnectedSonarLintEngine.class);
+    });
+    DefaultEngineCache engineCache = new DefaultEngineCache(mock(StandaloneEngineFactory.class), connectedEngineFactory, mock(ClientLogger.class));
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<ConnectedSonarLintEngine>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        futures.add(executor.submit(() -> engineCache.getOrCreateConnectedEngine(serverInfo)));
+      }
+      creating.countDown();
+      ConnectedSonarLintEngine engine = futures.get(0).get();
+      for (Future<ConnectedSonarLintEngine> future : futures) {
+        assertThat(future.get()).isSameAs(engine);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    verify(connectedEngineFactory, times(1)).create(serverInfo);
+  }
+
+  @Test
+  public void do_not_cache_failure_to_create_connected_engine() {
+    ServerInfo serverInfo = new ServerInfo("serverId", "serverUrl", "token", null);
+    ConnectedEngineFactory connectedEngineFactory = mock(ConnectedEngineFactory.class);
+    DefaultEngineCache engineCache = new DefaultEngineCache(mock(StandaloneEngineFactory.class), connectedEngineFactory, mock(ClientLogger.class));
+
+    assertThat(engineCache.getOrCreateConnectedEngine(serverInfo)).isNull();
+
+    ConnectedSonarLintEngine connectedEngine = mock(ConnectedSonarLintEngine.class);
+    when(connectedEngineFactory.create(serverInfo)).thenReturn(connectedEngine);
+    assertThat(engineCache.getOrCreateConnectedEngine(serverInfo)).isEqualTo(connectedEngine);
+  }
+
+  @Test
+  public void stop_idle_and_least_recently_used_connected_engines() {
+    ServerInfo server1 = new ServerInfo("server1", "serverUrl", "token", null);
+    ServerInfo server2 = new ServerInfo("server2", "serverUrl", "token", null);
+    ServerInfo server3 = new ServerInfo("server3", "serverUrl", "token", null);
+    ConnectedEngineFactory connectedEngineFactory = mock(ConnectedEngineFactory.class);
+    ConnectedSonarLintEngine engine1 = mock(ConnectedSonarLintEngine.class);
+    ConnectedSonarLintEngine engine2 = mock(ConnectedSonarLintEngine.class);
+    ConnectedSonarLintEngine engine3 = mock(ConnectedSonarLintEngine.class);
+    when(connectedEngineFactory.create(server1)).thenReturn(engine1);
+    when(connectedEngineFactory.create(server2)).thenReturn(engine2);
+    when(connectedEngineFactory.create(server3)).thenReturn(engine3);
+    AtomicLong now = new AtomicLong();
+    DefaultEngineCache engineCache = new DefaultEngineCache(mock(StandaloneEngineFactory.class), connectedEngineFactory, mock(ClientLogger.class), 2, 100, now::get);
+
+    engineCache.releaseConnectedEngine(engineCache.getOrCreateConnectedEngine(server1));
+    now.set(10);
+    engineCache.releaseConnectedEngine(engineCache.getOrCreateConnectedEngine(server2));
+    now.set(20);
+    engineCache.releaseConnectedEngine(engineCache.getOrCreateConnectedEngine(server1));
+    now.set(30);
+    // above the maximum, the least recently used engine is stopped
+    engineCache.releaseConnectedEngine(engineCache.getOrCreateConnectedEngine(server3));
+    verify(engine2).stop(false);
+    verify(engine1, never()).stop(anyBoolean());
+
+    now.set(200);
+    // engine1 is idle for too long
+    engineCache.releaseConnectedEngine(engineCache.getOrCreateConnectedEngine(server3));
+    verify(engine1).stop(false);
+    verify(engine3, never()).stop(anyBoolean());
+  }
+
+  @Test
+  public void do_not_stop_connected_engines_in_use() {
+    ServerInfo server1 = new ServerInfo("server1", "serverUrl", "token", null);
+    ServerInfo server2 = new ServerInfo("server2", "serverUrl", "token", null);
+    ConnectedEngineFactory connectedEngineFactory = mock(ConnectedEngineFactory.class);
+    ConnectedSonarLintEngine engine1 = mock(ConnectedSonarLintEngine.class);
+    ConnectedSonarLintEngine engine2 = mock(ConnectedSonarLintEngine.class);
+    when(connectedEngineFactory.create(server1)).thenReturn(engine1);
+    when(connectedEngineFactory.create(server2)).thenReturn(engine2);
+    AtomicLong now = new AtomicLong();
+    DefaultEngineCache engineCache = new DefaultEngineCache(mock(StandaloneEngineFactory.class), connectedEngineFactory, mock(ClientLogger.class), 1, 100, now::get);
+
+    ConnectedSonarLintEngine inUse = engineCache.getOrCreateConnectedEngine(server1);
+    now.set(200);
+    // engine1 is idle and above the maximum, but still in use
+    engineCache.releaseConnectedEngine(engineCache.getOrCreateConnectedEngine(server2));
+    verify(engine1, never()).stop(anyBoolean());
+    assertThat(engineCache.getOrCreateConnectedEngine(server1)).isSameAs(inUse);
+    engineCache.releaseConnectedEngine(inUse);
+    engineCache.releaseConnectedEngine(inUse);
+
+    // once released, engine1 can be evicted
+    now.set(400);
+    engineCache.releaseConnectedEngine(engineCache.getOrCreateConnectedEngine(server2));
+    verify(engine1).stop(false);
+  }
+
+  @Test
+  public void stop_cleared_connected_engines_once_released() {
+    ServerInfo serverInfo = new ServerInfo("serverId", "serverUrl", "token", null);
+    ConnectedEngineFactory connectedEngineFactory = mock(ConnectedEngineFactory.class);
+    ConnectedSonarLintEngine engine = mock(ConnectedSonarLintEngine.class);
+    ConnectedSonarLintEngine newEngine = mock(ConnectedSonarLintEngine.class);
+    when(connectedEngineFactory.create(serverInfo)).thenReturn(engine, newEngine);
+    DefaultEngineCache engineCache = new DefaultEngineCache(mock(StandaloneEngineFactory.class), connectedEngineFactory, mock(ClientLogger.class));
+
+    ConnectedSonarLintEngine inUse = engineCache.getOrCreateConnectedEngine(serverInfo);
+    engineCache.clearConnectedEngines();
+    verify(engine, never()).stop(anyBoolean());
+    assertThat(engineCache.getOrCreateConnectedEngine(serverInfo)).isSameAs(newEngine);
+
+    engineCache.releaseConnectedEngine(inUse);
+    verify(engine).stop(false);
+  }
+
+  @Test
+  public void create_new_standalone_engine_after_stop() {
+    StandaloneEngineFactory standaloneEngineFactory = mock(StandaloneEngineFactory.class);
+    StandaloneSonarLintEngine standaloneEngine = mock(StandaloneSonarLintEngine.class);
+    when(standaloneEngineFactory.create()).thenReturn(standaloneEngine);
+    DefaultEngineCache engineCache = new DefaultEngineCache(standaloneEngineFactory, mock(ConnectedEngineFactory.class), mock(ClientLogger.class));
+
+    engineCache.prewarmStandaloneEngine();
+    verify(standaloneEngineFactory, timeout(1000)).create();
+    assertThat(engineCache.getOrCreateStandaloneEngine()).isEqualTo(standaloneEngine);
+
+    engineCache.stopStandaloneEngine();
+    verify(standaloneEngine).stop();
+    engineCache.getOrCreateStandaloneEngine();
+    verify(standaloneEngineFactory, times(2)).create();
+  }
+
+  @Test
+  public void log_prewarm_failure() {
+    StandaloneEngineFactory standaloneEngineFactory = mock(StandaloneEngineFactory.class);
+    IllegalStateException failure = new IllegalStateException("failure");
+    when(standaloneEngineFactory.create()).thenThrow(failure);
+    ClientLogger logger = mock(ClientLogger.class);
+    DefaultEngineCache engineCache = new DefaultEngineCache(standaloneEngineFactory, mock(ConnectedEngineFactory.class), logger);
+
+    engineCache.prewarmStandaloneEngine();
+
+    verify(logger, timeout(1000)).error(eq("Failed to prewarm the standalone engine"), argThat(e -> e == failure || e.getCause() == failure));
+  }
 }
@@ -42,6 +42,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -163,13 +164,70 @@ public class ServerIssueTrackerTest {
     verifyNoMoreInteractions(engine);
   }
 
+  @Test
+  public void read_server_issues_once_until_cleared() throws IOException {
+    Path baseDir = temporaryFolder.newFolder().toPath();
+
+    Issue issue = mockIssue();
+    Collection<Issue> issues = Collections.singleton(issue);
+    List<ServerIssue> serverIssues = Collections.singletonList(mockServerIssue(issue));
+
+    ConnectedSonarLintEngine engine = mock(ConnectedSonarLintEngine.class);
+    when(engine.getServerIssues(any(), any())).thenReturn(serverIssues);
+    ServerIssueTracker tracker = newTracker(baseDir, engine);
+    matchAndTrack(tracker, "dummy", issues);
+    matchAndTrack(tracker, "dummy", issues);
+    verify(engine, times(1)).getServerIssues(any(), any());
+
+    tracker.clearServerIssues();
+    matchAndTrack(tracker, "dummy", issues);
+    verify(engine, times(2)).getServerIssues(any(), any());
+
+    // opening the file downloads fresh issues, which are then reused
+    matchAndTrack(tracker, "dummy", issues, true);
+    matchAndTrack(tracker, "dummy", issues);
+    verify(engine).downloadServerIssues(any(), any(), any());
+    verify(engine, times(2)).getServerIssues(any(), any());
+
+    // closing the file forgets its issues, but not the ones of other files
+    matchAndTrack(tracker, "other", issues);
+    verify(engine, times(3)).getServerIssues(any(), any());
+    tracker.forget("dummy");
+    matchAndTrack(tracker, "other", issues);
+    verify(engine, times(3)).getServerIssues(any(), any());
+    matchAndTrack(tracker, "dummy", issues);
+    verify(engine, times(4)).getServerIssues(any(), any());
+  }
+
+  @Test
+  public void forget_issues_of_files_that_are_not_opened() throws IOException {
+    Path baseDir = temporaryFolder.newFolder().toPath();
+
+    Issue issue = mockIssue();
+    Collection<Issue> issues = Collections.singleton(issue);
+    List<ServerIssue> serverIssues = Collections.singletonList(mockServerIssue(issue));
+
+    ConnectedSonarLintEngine engine = mock(ConnectedSonarLintEngine.class);
+    when(engine.getServerIssues(any(), any())).thenReturn(serverIssues);
+    ServerIssueTracker tracker = newTracker(baseDir, engine);
+    assertThat(matchAndTrackNotOpened(tracker, "dummy", issues)).hasSize(1);
+    assertThat(matchAndTrackNotOpened(tracker, "dummy", issues)).hasSize(1);
+    verify(engine, times(2)).getServerIssues(any(), any());
+  }
+
   private Collection<Issue> matchAndTrack(ServerIssueTracker tracker, String filePath, Collection<Issue> issues) {
     return matchAndTrack(tracker, filePath, issues, false);
   }
 
   private Collection<Issue> matchAndTrack(ServerIssueTracker tracker, String filePath, Collection<Issue> issues, boolean shouldFetchServerIssues) {
     List<Issue> recorded = new LinkedList<>();
-    tracker.matchAndTrack(filePath, issues, recorded::add, shouldFetchServerIssues);
+    tracker.matchAndTrack(filePath, issues, recorded::add, shouldFetchServerIssues, true);
+    return recorded;
+  }
+
+  private Collection<Issue> matchAndTrackNotOpened(ServerIssueTracker tracker, String filePath, Collection<Issue> issues) {
+    List<Issue> recorded = new LinkedList<>();
+    tracker.matchAndTrack(filePath, issues, recorded::add, false, false);
     return recorded;
   }
 
@@ -748,6 +748,10 @@ public class SonarLintLanguageServerTest {
       return lastEngine.standaloneEngine;
     }
 
+    @Override
+    public void prewarmStandaloneEngine() {
+    }
+
     @Override
     public void stopStandaloneEngine() {
       if (lastEngine != null) {
@@ -762,6 +766,10 @@ public class SonarLintLanguageServerTest {
       return lastEngine.connectedEngine;
     }
 
+    @Override
+    public void releaseConnectedEngine(ConnectedSonarLintEngine engine) {
+    }
+
     @Override
     public void putExtraProperty(String name, String value) {
     }
@@ -0,0 +1,153 @@
+/*
+ * SonarLint Language Server
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.languageserver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TextDocumentTest {
+
+  @Test
+  public void apply_range_edits() {
+    TextDocument document = new TextDocument("function foo() {\n  alert('toto');\n}");
+
+    document.apply(Collections.singletonList(change(1, 9, 1, 13, "titi")));
+    assertThat(document.getText()).isEqualTo("function foo() {\n  alert('titi');\n}");
+
+    document.apply(Arrays.asList(change(0, 16, 0, 16, "\n  // comment"), change(3, 1, 3, 1, "\n")));
+    assertThat(document.getText()).isEqualTo("function foo() {\n  // comment\n  alert('titi');\n}\n");
+    assertThat(document.lineCount()).isEqualTo(5);
+
+    document.apply(Collections.singletonList(change(1, 0, 2, 0, "")));
+    assertThat(document.getText()).isEqualTo("function foo() {\n  alert('titi');\n}\n");
+  }
+
+  @Test
+  public void replace_whole_content_when_change_has_no_range() {
+    TextDocument document = new TextDocument("a\nb");
+
+    document.apply(Arrays.asList(change(0, 0, 0, 0, "x"), new TextDocumentContentChangeEvent("c\nd\ne")));
+
+    assertThat(document.getText()).isEqualTo("c\nd\ne");
+    assertThat(document.lineCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void handle_all_line_breaks() {
+    TextDocument document = new TextDocument("a\r\nb\rc\nd");
+    assertThat(document.lineCount()).isEqualTo(4);
+    assertThat(document.offset(new Position(3, 0))).isEqualTo(7);
+
+    // joining \r and \n makes a single line break
+    document.apply(Collections.singletonList(change(1, 1, 2, 0, "\n")));
+    assertThat(document.getText()).isEqualTo("a\r\nb\nc\nd");
+    document.apply(Collections.singletonList(change(1, 0, 1, 0, "x\r")));
+    assertThat(document.getText()).isEqualTo("a\r\nx\rb\nc\nd");
+    assertThat(document.lineCount()).isEqualTo(5);
+    document.apply(Collections.singletonList(change(1, 1, 2, 0, "")));
+    assertThat(document.getText()).isEqualTo("a\r\nxb\nc\nd");
+    assertThat(document.lineCount()).isEqualTo(4);
+  }
+
+  @Test
+  public void character_beyond_end_of_line_is_end_of_line() {
+    TextDocument document = new TextDocument("ab\r\ncd\nef");
+
+    assertThat(document.offset(new Position(0, 10))).isEqualTo(2);
+    assertThat(document.offset(new Position(1, 10))).isEqualTo(6);
+    assertThat(document.offset(new Position(2, 10))).isEqualTo(9);
+    assertThat(document.offset(new Position(5, 0))).isEqualTo(9);
+  }
+
+  @Test
+  public void random_edits_match_string_edits() {
+    Random random = new Random(42);
+    String alphabet = "ab\n\r";
+    String expected = "";
+    TextDocument document = new TextDocument(expected);
+
+    for (int i = 0; i < 2000; i++) {
+      int start = random.nextInt(expected.length() + 1);
+      int end = start + random.nextInt(Math.min(5, expected.length() - start) + 1);
+      if (isCrLf(expected, start)) {
+        start--;
+      }
+      if (isCrLf(expected, end)) {
+        end++;
+      }
+      StringBuilder inserted = new StringBuilder();
+      for (int j = random.nextInt(6); j > 0; j--) {
+        inserted.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+
+      Position startPosition = position(expected, start);
+      Position endPosition = position(expected, end);
+      document.apply(Collections.singletonList(new TextDocumentContentChangeEvent(new Range(startPosition, endPosition), 0, inserted.toString())));
+      expected = expected.substring(0, start) + inserted + expected.substring(end);
+
+      assertThat(document.lineCount()).isEqualTo(lineStarts(expected).length);
+      if (random.nextInt(10) == 0) {
+        assertThat(document.getText()).isEqualTo(expected);
+      }
+    }
+    assertThat(document.getText()).isEqualTo(expected);
+  }
+
+  private static TextDocumentContentChangeEvent change(int startLine, int startCharacter, int endLine, int endCharacter, String text) {
+    return new TextDocumentContentChangeEvent(new Range(new Position(startLine, startCharacter), new Position(endLine, endCharacter)), 0, text);
+  }
+
+  private static Position position(String text, int offset) {
+    int[] lineStarts = lineStarts(text);
+    int line = lineStarts.length - 1;
+    while (lineStarts[line] > offset) {
+      line--;
+    }
+    return new Position(line, offset - lineStarts[line]);
+  }
+
+  private static int[] lineStarts(String text) {
+    List<Integer> starts = new ArrayList<>();
+    starts.add(0);
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '\n' || (c == '\r' && !isCrLf(text, i + 1))) {
+        starts.add(i + 1);
+      }
+    }
+    return starts.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Whether the offset is between the characters of a \r\n line break, which is not a valid position.
+   */
+  private static boolean isCrLf(String text, int offset) {
+    return offset > 0 && offset < text.length() && text.charAt(offset - 1) == '\r' && text.charAt(offset) == '\n';
+  }
+}